@@ -8,8 +8,12 @@ export interface Attendance {
   checkOut?: string;
   hoursWorked: number;
   status: 'present' | 'absent' | 'late' | 'leave' | 'half-day';
+  late: boolean; // Arrival classified late by the server (against the staff's contract hours)
 }
 
+// Punctuality against the staff's contract hours, classified by the server when the punch is recorded
+export type Punctuality = 'ON_TIME' | 'LATE' | 'EARLY_DEPARTURE' | 'OVERTIME';
+
 // Backend DTO Response Interface
 export interface AttendanceResponseDTO {
   attendanceId: number;
@@ -23,6 +27,17 @@ export interface AttendanceResponseDTO {
   departmentId: number | null;
   departmentName: string | null;
   status: 'ARRIVAL_RECORDED' | 'DEPARTURE_RECORDED' | 'COMPLETE' | 'INCOMPLETE';
+  arrivalStatus: Punctuality | null; // ON_TIME or LATE, null without arrival
+  lateMinutes: number | null;
+  departureStatus: Punctuality | null; // EARLY_DEPARTURE, ON_TIME or OVERTIME, null without departure
+  departureMinutes: number | null;
+}
+
+// One page of attendance records (newest first) from the paginated endpoints
+export interface AttendancePageDTO {
+  items: AttendanceResponseDTO[];
+  limit: number;
+  nextCursor: string | null; // null on the last page
 }
 
 // Request DTO for recording attendance
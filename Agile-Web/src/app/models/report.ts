@@ -0,0 +1,22 @@
+// Backend DTO of GET /api/reports/monthly
+export interface MonthlyReportDTO {
+  year: number;
+  month: number; // 1 to 12
+  period: string; // e.g. "October 2026"
+  totalDays: number;
+  activeStaff: number;
+  attendanceRate: number;
+  lateArrivalRate: number;
+  totalAbsences: number;
+  staffReports: StaffReportDTO[]; // highest percentage first
+}
+
+export interface StaffReportDTO {
+  staffId: number;
+  name: string;
+  department: string;
+  daysPresent: number;
+  totalDays: number;
+  percentage: number;
+  lateArrivals: number;
+}
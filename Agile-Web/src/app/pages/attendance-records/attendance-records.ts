@@ -16,7 +16,9 @@ export class AttendanceRecords implements OnInit {
   attendanceRecords: Attendance[] = [];
   searchQuery: string = '';
   isLoading: boolean = false;
+  isLoadingMore: boolean = false;
   errorMessage: string = '';
+  nextCursor: string | null = null;
 
   constructor(private attendanceService: AttendanceService) {}
 
@@ -28,11 +30,12 @@ export class AttendanceRecords implements OnInit {
     this.isLoading = true;
     this.errorMessage = '';
 
-    this.attendanceService.getAllAttendance().subscribe({
-      next: (records) => {
-        this.attendanceRecords = records;
+    this.attendanceService.getAttendancePage().subscribe({
+      next: (page) => {
+        this.attendanceRecords = page.records;
+        this.nextCursor = page.nextCursor;
         this.isLoading = false;
-        console.log('Loaded attendance records:', records.length);
+        console.log('Loaded attendance records:', page.records.length);
       },
       error: (error) => {
         // Handle 403 authentication errors specifically
@@ -49,6 +52,24 @@ export class AttendanceRecords implements OnInit {
     });
   }
 
+  loadMore() {
+    if (!this.nextCursor || this.isLoadingMore) return;
+    this.isLoadingMore = true;
+
+    this.attendanceService.getAttendancePage(this.nextCursor).subscribe({
+      next: (page) => {
+        this.attendanceRecords = [...this.attendanceRecords, ...page.records];
+        this.nextCursor = page.nextCursor;
+        this.isLoadingMore = false;
+      },
+      error: (error) => {
+        this.errorMessage = `Failed to load more attendance records: ${error.message}`;
+        this.isLoadingMore = false;
+        console.error('Error loading more attendance:', error);
+      }
+    });
+  }
+
   get filteredRecords(): Attendance[] {
     if (!this.searchQuery) return this.attendanceRecords;
     const query = this.searchQuery.toLowerCase();
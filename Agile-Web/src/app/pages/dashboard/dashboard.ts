@@ -1,9 +1,10 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
+import { Subscription, retry, tap, timer } from 'rxjs';
 import { StaffService } from '../../services/staff';
 import { AttendanceService } from '../../services/attendance';
 import { DepartmentService, DepartmentResponse } from '../../services/department.service';
-import { AttendanceStats, RecentCheckIn } from '../../models/attendance';
+import { Attendance, AttendanceStats, RecentCheckIn } from '../../models/attendance';
 
 @Component({
   selector: 'app-dashboard',
@@ -12,7 +13,7 @@ import { AttendanceStats, RecentCheckIn } from '../../models/attendance';
   templateUrl: './dashboard.html',
   styleUrl: './dashboard.scss',
 })
-export class Dashboard implements OnInit{
+export class Dashboard implements OnInit, OnDestroy {
 
   stats: AttendanceStats | null = null;
   departments: DepartmentResponse[] = [];
@@ -20,6 +21,12 @@ export class Dashboard implements OnInit{
   isLoading: boolean = false;
   errorMessage: string = '';
 
+  // Today's attendances and staff counts, kept up to date by the live stream
+  private todayAttendances: Attendance[] = [];
+  private totalStaff = 0;
+  private activeStaff = 0;
+  private liveUpdates?: Subscription;
+
   constructor(
     private staffService: StaffService,
     private attendanceService: AttendanceService,
@@ -28,6 +35,38 @@ export class Dashboard implements OnInit{
 
   ngOnInit() {
     this.loadData();
+    this.startLiveUpdates();
+  }
+
+  ngOnDestroy() {
+    this.liveUpdates?.unsubscribe();
+  }
+
+  /**
+   * Apply punches as they are recorded instead of re-polling today's attendances.
+   * When the stream ends, the data is reloaded (punches of the gap are not streamed) and the stream reopened.
+   */
+  private startLiveUpdates() {
+    this.liveUpdates = this.attendanceService.streamAttendances().pipe(
+      retry({ delay: () => timer(5000).pipe(tap(() => this.loadData())) })
+    ).subscribe(attendance => this.applyLiveAttendance(attendance));
+  }
+
+  private applyLiveAttendance(attendance: Attendance) {
+    const today = new Date().toISOString().split('T')[0];
+    if (attendance.date.toISOString().split('T')[0] !== today) {
+      return;
+    }
+    const index = this.todayAttendances.findIndex(a => a.id === attendance.id);
+    if (index >= 0) {
+      this.todayAttendances[index] = attendance;
+    } else {
+      this.todayAttendances.push(attendance);
+    }
+    if (this.stats) {
+      this.updateStats();
+    }
+    this.loadRecentCheckIns(this.todayAttendances);
   }
 
   loadData() {
@@ -41,32 +80,15 @@ export class Dashboard implements OnInit{
     this.attendanceService.getAttendancesByDate(today).subscribe({
       next: (attendances) => {
         // Load staff to get total count
+        this.todayAttendances = attendances;
         this.staffService.getAllStaff().subscribe({
           next: (staff) => {
-            const totalStaff = staff.length;
-            const activeStaff = staff.filter(s => s.active !== false).length;
-            const presentToday = attendances.filter(a => a.checkIn).length;
-            const lateArrivals = attendances.filter(a => {
-              if (!a.checkIn) return false;
-              const [hours, minutes] = a.checkIn.split(':').map(Number);
-              return hours > 9 || (hours === 9 && minutes > 0);
-            }).length;
-            const absent = activeStaff - presentToday;
-            const attendanceRate = activeStaff > 0 ? (presentToday / activeStaff) * 100 : 0;
-            const lateArrivalRate = presentToday > 0 ? (lateArrivals / presentToday) * 100 : 0;
-
-            this.stats = {
-              totalStaff,
-              presentToday,
-              absent: Math.max(0, absent),
-              lateArrivals,
-              onLeave: 0, // Can be enhanced later
-              attendanceRate: Math.round(attendanceRate * 10) / 10,
-              lateArrivalRate: Math.round(lateArrivalRate * 10) / 10
-            };
+            this.totalStaff = staff.length;
+            this.activeStaff = staff.filter(s => s.active !== false).length;
+            this.updateStats();
 
             // Load recent check-ins
-            this.loadRecentCheckIns(attendances);
+            this.loadRecentCheckIns(this.todayAttendances);
             this.isLoading = false;
           },
           error: (error) => {
@@ -87,6 +109,29 @@ export class Dashboard implements OnInit{
     this.loadDepartments();
   }
 
+  private updateStats() {
+    const attendances = this.todayAttendances;
+    const presentToday = attendances.filter(a => a.checkIn).length;
+    const lateArrivals = attendances.filter(a => {
+      if (!a.checkIn) return false;
+      const [hours, minutes] = a.checkIn.split(':').map(Number);
+      return hours > 9 || (hours === 9 && minutes > 0);
+    }).length;
+    const absent = this.activeStaff - presentToday;
+    const attendanceRate = this.activeStaff > 0 ? (presentToday / this.activeStaff) * 100 : 0;
+    const lateArrivalRate = presentToday > 0 ? (lateArrivals / presentToday) * 100 : 0;
+
+    this.stats = {
+      totalStaff: this.totalStaff,
+      presentToday,
+      absent: Math.max(0, absent),
+      lateArrivals,
+      onLeave: 0, // Can be enhanced later
+      attendanceRate: Math.round(attendanceRate * 10) / 10,
+      lateArrivalRate: Math.round(lateArrivalRate * 10) / 10
+    };
+  }
+
   loadDepartments() {
     this.departmentService.getAllDepartments().subscribe({
       next: (depts: DepartmentResponse[]) => {
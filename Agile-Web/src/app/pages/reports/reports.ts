@@ -1,11 +1,7 @@
 import { Component, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
-import { forkJoin } from 'rxjs';
-import { map } from 'rxjs/operators';
-import { StaffService } from '../../services/staff';
-import { AttendanceService } from '../../services/attendance';
-import { Staff } from '../../models/staff';
-import { Attendance } from '../../models/attendance';
+import { ReportService } from '../../services/report';
+import { MonthlyReportDTO } from '../../models/report';
 
 interface StaffReport {
   name: string;
@@ -39,8 +35,7 @@ export class Reports implements OnInit {
   errorMessage: string = '';
 
   constructor(
-    private staffService: StaffService,
-    private attendanceService: AttendanceService
+    private reportService: ReportService
   ) {}
 
   ngOnInit() {
@@ -51,16 +46,10 @@ export class Reports implements OnInit {
     this.isLoading = true;
     this.errorMessage = '';
 
-    // Get date range for current month
-    const { startDate, endDate, totalDays, period } = this.getCurrentMonthRange();
-
-    // Get all staff and all attendance records for the month
-    forkJoin({
-      staff: this.staffService.getAllStaff(),
-      attendances: this.getAttendancesForMonth(startDate, endDate)
-    }).subscribe({
-      next: ({ staff, attendances }) => {
-        this.calculateReports(staff, attendances, totalDays, period);
+    // The backend aggregates the current month; only the summary rows are downloaded
+    this.reportService.getMonthlyReport().subscribe({
+      next: (report) => {
+        this.applyReport(report);
         this.isLoading = false;
       },
       error: (error) => {
@@ -71,101 +60,24 @@ export class Reports implements OnInit {
     });
   }
 
-  getCurrentMonthRange(): { startDate: string, endDate: string, totalDays: number, period: string } {
-    const now = new Date();
-    const year = now.getFullYear();
-    const month = now.getMonth();
-    
-    // First day of current month
-    const startDate = new Date(year, month, 1);
-    // Today
-    const endDate = new Date(year, month, now.getDate());
-    
-    // Calculate total days (including today)
-    const totalDays = Math.floor((endDate.getTime() - startDate.getTime()) / (1000 * 60 * 60 * 24)) + 1;
-    
-    // Format dates as yyyy-MM-dd
-    const startDateStr = startDate.toISOString().split('T')[0];
-    const endDateStr = endDate.toISOString().split('T')[0];
-    
-    // Format period string
-    const monthNames = ['January', 'February', 'March', 'April', 'May', 'June',
-      'July', 'August', 'September', 'October', 'November', 'December'];
-    const period = `${monthNames[month]} ${year}`;
-    
-    return { startDate: startDateStr, endDate: endDateStr, totalDays, period };
-  }
-
-  getAttendancesForMonth(startDate: string, endDate: string) {
-    // Get all attendance records and filter by date range
-    return this.attendanceService.getAllAttendance().pipe(
-      map(attendances => {
-        return attendances.filter(att => {
-          const attDate = att.date.toISOString().split('T')[0];
-          return attDate >= startDate && attDate <= endDate;
-        });
-      })
-    );
-  }
-
-  calculateReports(staff: Staff[], attendances: Attendance[], totalDays: number, period: string) {
-    // Calculate monthly stats
-    const activeStaff = staff.filter(s => s.active !== false);
-    const totalStaff = activeStaff.length;
-    
-    // Count unique staff who have attendance records
-    const staffWithAttendance = new Set(attendances.map(a => parseInt(a.staffId)));
-    const presentCount = staffWithAttendance.size;
-    
-    // Calculate total expected attendance days (active staff * total days)
-    const totalExpectedDays = totalStaff * totalDays;
-    const totalPresentDays = attendances.filter(a => a.checkIn).length;
-    const attendanceRate = totalExpectedDays > 0 ? (totalPresentDays / totalExpectedDays) * 100 : 0;
-    
-    // Count late arrivals
-    const lateArrivals = attendances.filter(a => {
-      if (!a.checkIn) return false;
-      const [hours, minutes] = a.checkIn.split(':').map(Number);
-      return hours > 9 || (hours === 9 && minutes > 0);
-    }).length;
-    const lateArrivalRate = totalPresentDays > 0 ? (lateArrivals / totalPresentDays) * 100 : 0;
-    
-    // Calculate total absences (expected - present)
-    const totalAbsences = totalExpectedDays - totalPresentDays;
-    
+  applyReport(report: MonthlyReportDTO) {
     this.monthlyStats = {
-      attendanceRate: Math.round(attendanceRate * 10) / 10,
-      lateArrivalRate: Math.round(lateArrivalRate * 10) / 10,
-      totalAbsences: Math.max(0, totalAbsences),
-      totalDays,
-      period
+      attendanceRate: report.attendanceRate,
+      lateArrivalRate: report.lateArrivalRate,
+      totalAbsences: report.totalAbsences,
+      totalDays: report.totalDays,
+      period: report.period
     };
 
-    // Calculate individual staff reports
-    this.staffReports = activeStaff.map(s => {
-      // Get attendance records for this staff member
-      const staffAttendances = attendances.filter(a => parseInt(a.staffId) === s.userId);
-      const daysPresent = staffAttendances.filter(a => a.checkIn).length;
-      const lateArrivals = staffAttendances.filter(a => {
-        if (!a.checkIn) return false;
-        const [hours, minutes] = a.checkIn.split(':').map(Number);
-        return hours > 9 || (hours === 9 && minutes > 0);
-      }).length;
-      
-      const percentage = totalDays > 0 ? Math.round((daysPresent / totalDays) * 100) : 0;
-      
-      return {
-        name: s.name ? `${s.name} ${s.surname || ''}`.trim() : 'Unknown',
-        department: s.departmentName || 'N/A',
-        daysPresent,
-        totalDays,
-        percentage,
-        lateArrivals
-      };
-    });
-
-    // Sort by percentage (descending)
-    this.staffReports.sort((a, b) => b.percentage - a.percentage);
+    // Already sorted by percentage (descending)
+    this.staffReports = report.staffReports.map(s => ({
+      name: s.name,
+      department: s.department,
+      daysPresent: s.daysPresent,
+      totalDays: s.totalDays,
+      percentage: s.percentage,
+      lateArrivals: s.lateArrivals
+    }));
   }
 
   exportReport() {
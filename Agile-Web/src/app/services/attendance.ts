@@ -1,8 +1,8 @@
 import { Injectable, inject } from '@angular/core';
-import { HttpClient, HttpHeaders, HttpErrorResponse } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpErrorResponse, HttpParams } from '@angular/common/http';
 import { BehaviorSubject, Observable, of, throwError } from 'rxjs';
 import { map, catchError } from 'rxjs/operators';
-import { Attendance, AttendanceStats, RecentCheckIn, AttendanceResponseDTO, AttendanceRequestDTO } from '../models/attendance';
+import { Attendance, AttendanceStats, RecentCheckIn, AttendanceResponseDTO, AttendanceRequestDTO, AttendancePageDTO } from '../models/attendance';
 import { environment } from '../../environments/environment';
 
 @Injectable({
@@ -42,6 +42,21 @@ export class AttendanceService {
     );
   }
 
+  /**
+   * Get one page of attendance records (newest first).
+   * Pass the nextCursor of the previous page to get the next one.
+   */
+  getAttendancePage(cursor?: string | null, limit: number = 200): Observable<{ records: Attendance[], nextCursor: string | null }> {
+    let params = new HttpParams().set('limit', limit);
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+    return this.http.get<AttendancePageDTO>(this.apiUrl, { params }).pipe(
+      map(page => ({ records: this.convertDTOsToAttendance(page.items), nextCursor: page.nextCursor })),
+      catchError(this.handleError)
+    );
+  }
+
   /**
    * Record attendance (clock in/out)
    */
@@ -104,6 +119,64 @@ export class AttendanceService {
     );
   }
 
+  /**
+   * Live stream of the attendances recorded from now on (Server-Sent Events), optionally of one department.
+   * Read with fetch, since EventSource cannot send the Authorization header.
+   * Errors when the stream ends (server restart, or this page fell too far behind and was evicted):
+   * punches recorded meanwhile are not sent again, reload them before subscribing again.
+   */
+  streamAttendances(departmentId?: number): Observable<Attendance> {
+    return new Observable<Attendance>(subscriber => {
+      const controller = new AbortController();
+      const url = departmentId != null
+        ? `${this.apiUrl}/stream?departmentId=${departmentId}`
+        : `${this.apiUrl}/stream`;
+      const token = localStorage.getItem('token');
+
+      fetch(url, {
+        headers: {
+          'Accept': 'text/event-stream',
+          'Authorization': token ? `Bearer ${token}` : ''
+        },
+        signal: controller.signal
+      })
+        .then(async response => {
+          if (!response.ok || !response.body) {
+            throw new Error(`Attendance stream refused (${response.status})`);
+          }
+          const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+          let buffered = '';
+          while (true) {
+            const { value, done } = await reader.read();
+            if (done) {
+              break;
+            }
+            buffered += value;
+            // Events end with a blank line; comments (heartbeats) have no data
+            let end: number;
+            while ((end = buffered.indexOf('\n\n')) >= 0) {
+              const data = buffered.slice(0, end).split('\n')
+                .filter(line => line.startsWith('data:'))
+                .map(line => line.slice(5).replace(/^ /, ''))
+                .join('\n');
+              buffered = buffered.slice(end + 2);
+              if (data) {
+                subscriber.next(this.convertDTOToAttendance(JSON.parse(data) as AttendanceResponseDTO));
+              }
+            }
+          }
+          throw new Error('Attendance stream ended');
+        })
+        .catch(error => {
+          if (!controller.signal.aborted) {
+            subscriber.error(error);
+          }
+        });
+
+      return () => controller.abort();
+    });
+  }
+
   /**
    * Convert backend DTOs to frontend Attendance model
    */
@@ -118,7 +191,8 @@ export class AttendanceService {
     const checkIn = dto.arrivalTime ? this.extractTime(dto.arrivalTime) : undefined;
     const checkOut = dto.departureTime ? this.extractTime(dto.departureTime) : undefined;
     const hoursWorked = this.calculateHoursWorked(dto.arrivalTime, dto.departureTime);
-    const status = this.mapBackendStatusToFrontend(dto.status, dto.arrivalTime, dto.departureTime);
+    const late = dto.arrivalStatus === 'LATE';
+    const status = this.mapBackendStatusToFrontend(dto.status, late);
 
     return {
       id: dto.attendanceId.toString(),
@@ -129,7 +203,8 @@ export class AttendanceService {
       checkIn,
       checkOut,
       hoursWorked,
-      status
+      status,
+      late
     };
   }
 
@@ -169,20 +244,11 @@ export class AttendanceService {
    */
   private mapBackendStatusToFrontend(
     backendStatus: string,
-    arrivalTime: string | null,
-    departureTime: string | null
+    late: boolean
   ): 'present' | 'absent' | 'late' | 'leave' | 'half-day' {
     if (backendStatus === 'COMPLETE' || backendStatus === 'DEPARTURE_RECORDED') {
-      // Check if late (after 9:00 AM)
-      if (arrivalTime) {
-        const arrival = new Date(arrivalTime);
-        const hour = arrival.getHours();
-        const minute = arrival.getMinutes();
-        if (hour > 9 || (hour === 9 && minute > 0)) {
-          return 'late';
-        }
-      }
-      return 'present';
+      // Lateness is classified by the server against the staff's contract hours
+      return late ? 'late' : 'present';
     } else if (backendStatus === 'ARRIVAL_RECORDED') {
       return 'present';
     } else if (backendStatus === 'INCOMPLETE') {
@@ -221,12 +287,8 @@ export class AttendanceService {
         // Count present (has arrival time)
         const presentToday = attendances.filter(a => a.checkIn).length;
         
-        // Count late arrivals (after 9:00 AM)
-        const lateArrivals = attendances.filter(a => {
-          if (!a.checkIn) return false;
-          const [hours, minutes] = a.checkIn.split(':').map(Number);
-          return hours > 9 || (hours === 9 && minutes > 0);
-        }).length;
+        // Count late arrivals (classified by the server)
+        const lateArrivals = attendances.filter(a => a.checkIn && a.late).length;
 
         // For now, we'll need to get total staff from another service
         // This will be handled in the component
@@ -263,12 +325,10 @@ export class AttendanceService {
           .sort((a, b) => b.time.getTime() - a.time.getTime()) // Most recent first
           .slice(0, 5) // Get top 5
           .map(item => {
-            const [hours, minutes] = item.attendance.checkIn!.split(':').map(Number);
-            const isLate = hours > 9 || (hours === 9 && minutes > 0);
             return {
               name: item.attendance.staffName,
               time: item.attendance.checkIn!,
-              status: isLate ? 'Late' : 'On time'
+              status: item.attendance.late ? 'Late' : 'On time'
             };
           });
         return checkIns;
@@ -0,0 +1,41 @@
+import { Injectable, inject } from '@angular/core';
+import { HttpClient, HttpErrorResponse, HttpParams } from '@angular/common/http';
+import { Observable, throwError } from 'rxjs';
+import { catchError } from 'rxjs/operators';
+import { MonthlyReportDTO } from '../models/report';
+import { environment } from '../../environments/environment';
+
+@Injectable({
+  providedIn: 'root',
+})
+export class ReportService {
+  private http = inject(HttpClient);
+  private apiUrl = `${environment.apiUrl}/reports`;
+
+  /**
+   * Get the monthly attendance report, computed by the backend.
+   * Without year and month the current month is reported (up to today).
+   */
+  getMonthlyReport(year?: number, month?: number, departmentId?: number): Observable<MonthlyReportDTO> {
+    let params = new HttpParams();
+    if (year != null && month != null) {
+      params = params.set('year', year).set('month', month);
+    }
+    if (departmentId != null) {
+      params = params.set('departmentId', departmentId);
+    }
+    return this.http.get<MonthlyReportDTO>(`${this.apiUrl}/monthly`, { params }).pipe(
+      catchError(this.handleError)
+    );
+  }
+
+  private handleError(error: HttpErrorResponse): Observable<never> {
+    let errorMessage = 'An unknown error occurred';
+    if (error.error instanceof ErrorEvent) {
+      errorMessage = `Error: ${error.error.message}`;
+    } else {
+      errorMessage = error.error?.error || `Error Code: ${error.status}\nMessage: ${error.message}`;
+    }
+    return throwError(() => new Error(errorMessage));
+  }
+}
@@ -0,0 +1,60 @@
+-- SQL script to merge duplicate attendances and add the unique (staff_id, attendance_date) key
+-- Concurrent punches of the same staff could insert two attendances for one day (fixed by the per-staff
+-- punch locks), and spring.jpa.hibernate.ddl-auto=update cannot add uk_attendance_staff_date while such
+-- rows exist. attendance.record.fast-path and the in-memory attendance index stay disabled until it exists.
+-- Run with the application stopped, after a backup (MySQL 8: DDL commits implicitly, nothing is rolled back).
+
+USE fingerprint_attendance;
+
+-- Rows of the days with more than one attendance, ranked by earliest arrival and by latest departure
+DROP TABLE IF EXISTS attendance_duplicate_rows;
+CREATE TABLE attendance_duplicate_rows AS
+SELECT a.*,
+       MIN(a.attendance_id) OVER (PARTITION BY a.staff_id, a.attendance_date) AS keep_id,
+       ROW_NUMBER() OVER (PARTITION BY a.staff_id, a.attendance_date
+                          ORDER BY a.arrival_time IS NULL, a.arrival_time, a.attendance_id) AS arrival_rank,
+       ROW_NUMBER() OVER (PARTITION BY a.staff_id, a.attendance_date
+                          ORDER BY a.departure_time IS NULL, a.departure_time DESC, a.attendance_id) AS departure_rank
+FROM attendances a
+JOIN (SELECT staff_id, attendance_date
+      FROM attendances
+      GROUP BY staff_id, attendance_date
+      HAVING COUNT(*) > 1) d
+  ON d.staff_id = a.staff_id AND d.attendance_date = a.attendance_date;
+
+-- One attendance per day: the earliest arrival and the latest departure, with their keys and punctuality
+DROP TABLE IF EXISTS attendance_merged;
+CREATE TABLE attendance_merged AS
+SELECT arr.keep_id,
+       arr.arrival_time, arr.arrival_key, arr.arrival_status, arr.late_minutes,
+       dep.departure_time, dep.departure_key, dep.departure_status, dep.departure_minutes
+FROM attendance_duplicate_rows arr
+JOIN attendance_duplicate_rows dep ON dep.keep_id = arr.keep_id AND dep.departure_rank = 1
+WHERE arr.arrival_rank = 1;
+
+-- Delete the extra rows first (their keys are unique), then store the merged punches on the kept row
+DELETE a FROM attendances a
+JOIN attendance_duplicate_rows d ON d.attendance_id = a.attendance_id
+WHERE a.attendance_id <> d.keep_id;
+
+UPDATE attendances a
+JOIN attendance_merged m ON m.keep_id = a.attendance_id
+SET a.arrival_time = m.arrival_time,
+    a.arrival_key = m.arrival_key,
+    a.arrival_status = m.arrival_status,
+    a.late_minutes = m.late_minutes,
+    a.departure_time = m.departure_time,
+    a.departure_key = m.departure_key,
+    a.departure_status = m.departure_status,
+    a.departure_minutes = m.departure_minutes;
+
+-- Skip if SHOW INDEX FROM attendances already lists uk_attendance_staff_date
+ALTER TABLE attendances ADD CONSTRAINT uk_attendance_staff_date UNIQUE (staff_id, attendance_date);
+
+-- Verify the changes: the merged days (rebuild their summary tables with
+-- POST /api/reports/aggregates/rebuild?from=...&to=... once the application is started)
+SELECT MIN(attendance_date) AS rebuild_from, MAX(attendance_date) AS rebuild_to, COUNT(DISTINCT keep_id) AS merged_days
+FROM attendance_duplicate_rows;
+
+DROP TABLE attendance_duplicate_rows;
+DROP TABLE attendance_merged;
@@ -0,0 +1,112 @@
+#!/usr/bin/env python3
+"""
+Clock-in storm load generator for the attendance endpoints (Python 3 standard library only).
+
+Every client thread punches for its own range of staff IDs (arrival, then departure),
+and optionally reads the day's attendances, so the database does real inserts and updates.
+
+Usage:
+    python3 punch_load.py --url http://localhost:8085 --clients 200 --requests 20000 \
+        --staff-from 1 --staff-to 5000 [--token <admin JWT> --read-ratio 0.1]
+
+Run it once per configuration (default profile, then SPRING_PROFILES_ACTIVE=virtual)
+against the same database and compare the printed throughput and latency percentiles.
+"""
+import argparse
+import json
+import threading
+import time
+import urllib.error
+import urllib.request
+from concurrent.futures import ThreadPoolExecutor
+from datetime import date, datetime, timedelta
+
+
+def post_punch(url, staff_id, day, seconds):
+    body = json.dumps({
+        "staffId": staff_id,
+        "attendanceDate": day.isoformat(),
+        "attendanceTime": (datetime.combine(day, datetime.min.time()) + timedelta(seconds=seconds)).isoformat(),
+    }).encode()
+    request = urllib.request.Request(url + "/api/attendance/record", data=body, method="POST",
+                                     headers={"Content-Type": "application/json"})
+    return send(request)
+
+
+def get_day(url, token, day):
+    request = urllib.request.Request(url + "/api/attendance/date/" + day.isoformat(),
+                                     headers={"Authorization": "Bearer " + token})
+    return send(request)
+
+
+def send(request):
+    start = time.perf_counter()
+    try:
+        with urllib.request.urlopen(request, timeout=60) as response:
+            response.read()
+            status = response.status
+    except urllib.error.HTTPError as e:
+        status = e.code
+    except Exception:
+        status = 0
+    return status, time.perf_counter() - start
+
+
+def percentile(sorted_values, p):
+    if not sorted_values:
+        return 0.0
+    return sorted_values[min(len(sorted_values) - 1, int(len(sorted_values) * p))]
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("--url", default="http://localhost:8085")
+    parser.add_argument("--clients", type=int, default=100)
+    parser.add_argument("--requests", type=int, default=10000)
+    parser.add_argument("--staff-from", type=int, default=1)
+    parser.add_argument("--staff-to", type=int, default=1000)
+    parser.add_argument("--day", default=None, help="first attendance date (default: a far future date)")
+    parser.add_argument("--token", default=None, help="admin JWT, needed for --read-ratio")
+    parser.add_argument("--read-ratio", type=float, default=0.0)
+    args = parser.parse_args()
+
+    staff_ids = list(range(args.staff_from, args.staff_to + 1))
+    first_day = date.fromisoformat(args.day) if args.day else date(2099, 1, 1)
+    counter = iter(range(args.requests))
+    lock = threading.Lock()
+    latencies, statuses = [], {}
+
+    def worker():
+        while True:
+            with lock:
+                n = next(counter, None)
+            if n is None:
+                return
+            # Two punches (arrival, departure) per staff and day, then move on to the next day
+            slot, punch = divmod(n, 2)
+            staff_id = staff_ids[slot % len(staff_ids)]
+            day = first_day + timedelta(days=slot // len(staff_ids))
+            if args.token and (n % 100) < args.read_ratio * 100:
+                status, latency = get_day(args.url, args.token, day)
+            else:
+                status, latency = post_punch(args.url, staff_id, day, 8 * 3600 + punch * 9 * 3600)
+            with lock:
+                latencies.append(latency)
+                statuses[status] = statuses.get(status, 0) + 1
+
+    start = time.perf_counter()
+    with ThreadPoolExecutor(max_workers=args.clients) as pool:
+        for _ in range(args.clients):
+            pool.submit(worker)
+    elapsed = time.perf_counter() - start
+
+    latencies.sort()
+    print(f"requests:   {len(latencies)} in {elapsed:.1f} s with {args.clients} clients")
+    print(f"throughput: {len(latencies) / elapsed:.1f} req/s")
+    print(f"latency:    p50 {percentile(latencies, 0.50) * 1000:.0f} ms, "
+          f"p95 {percentile(latencies, 0.95) * 1000:.0f} ms, p99 {percentile(latencies, 0.99) * 1000:.0f} ms")
+    print(f"statuses:   {dict(sorted(statuses.items()))}")
+
+
+if __name__ == "__main__":
+    main()
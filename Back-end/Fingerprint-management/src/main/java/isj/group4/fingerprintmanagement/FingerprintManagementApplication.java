@@ -2,8 +2,10 @@ package isj.group4.fingerprintmanagement;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FingerprintManagementApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,192 @@
+package isj.group4.fingerprintmanagement.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses the body of punch batches (POST /api/attendance/record/batch) sent with
+ * "Content-Encoding: gzip". Used by fingerprint terminals to upload large punch batches.
+ *
+ * Other requests are left alone. The body is decompressed before the batch is parsed, at most
+ * attendance.batch.max-decompressed-bytes: a larger body gets 413, a corrupt or truncated one 400.
+ */
+@Component
+@Log4j2
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+    private static final String BATCH_PATH = "/api/attendance/record/batch";
+
+    private final long maxDecompressedBytes;
+
+    public GzipRequestFilter(@Value("${attendance.batch.max-decompressed-bytes:16777216}") long maxDecompressedBytes) {
+        // The body is held in one array
+        this.maxDecompressedBytes = Math.min(Math.max(1, maxDecompressedBytes), Integer.MAX_VALUE - 8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return encoding == null || !GZIP.equalsIgnoreCase(encoding.trim())
+                || !HttpMethod.POST.matches(request.getMethod())
+                || !BATCH_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        byte[] body;
+        try {
+            body = decompress(request.getInputStream());
+        } catch (ZipException | EOFException e) {
+            log.warn("Rejected gzip punch batch: {}", e.getMessage());
+            sendError(response, HttpStatus.BAD_REQUEST, "Request body is not valid gzip");
+            return;
+        }
+        if (body == null) {
+            log.warn("Rejected gzip punch batch larger than {} bytes decompressed", maxDecompressedBytes);
+            sendError(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Decompressed request body must not exceed " + maxDecompressedBytes + " bytes");
+            return;
+        }
+        filterChain.doFilter(new GzipRequestWrapper(request, body), response);
+    }
+
+    /**
+     * @return the decompressed body, or null if it is larger than maxDecompressedBytes
+     */
+    private byte[] decompress(InputStream compressed) throws IOException {
+        try (GZIPInputStream gzipStream = new GZIPInputStream(compressed)) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzipStream.read(buffer)) != -1) {
+                if (body.size() + (long) read > maxDecompressedBytes) {
+                    return null;
+                }
+                body.write(buffer, 0, read);
+            }
+            return body.toByteArray();
+        }
+    }
+
+    private static void sendError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+
+    /**
+     * Request wrapper exposing the decompressed body and hiding the encoding headers.
+     */
+    private static class GzipRequestWrapper extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        GzipRequestWrapper(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream stream = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return stream.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return stream.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return stream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Async reads are not supported for gzip bodies");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null
+                    ? Charset.forName(getCharacterEncoding())
+                    : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+                return null;
+            }
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return Integer.toString(body.length);
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+                return Collections.emptyEnumeration();
+            }
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return Collections.enumeration(Collections.singletonList(Integer.toString(body.length)));
+            }
+            return super.getHeaders(name);
+        }
+    }
+}
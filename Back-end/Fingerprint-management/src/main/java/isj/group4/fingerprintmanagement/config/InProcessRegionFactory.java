@@ -0,0 +1,183 @@
+package isj.group4.fingerprintmanagement.config;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process storage for the Hibernate second-level and query caches
+ * (hibernate.cache.region.factory_class), used when attendance.l2-cache is enabled.
+ *
+ * Each region is a map of at most hibernate.cache.inprocess.max_entries.{region} entries
+ * (hibernate.cache.inprocess.default_max_entries by default), evicting the least recently used.
+ * Concurrency is left to Hibernate: READ_WRITE regions store soft locks while an entity is being
+ * changed, and query results are checked against the update timestamps of their tables.
+ * The update-timestamps region is never bounded: without the timestamp of a table, a stale
+ * query result would be used.
+ */
+public class InProcessRegionFactory extends RegionFactoryTemplate {
+
+    public static final String DEFAULT_MAX_ENTRIES = "hibernate.cache.inprocess.default_max_entries";
+    public static final String MAX_ENTRIES_PREFIX = "hibernate.cache.inprocess.max_entries.";
+
+    private final Map<String, RegionStorage> regions = new ConcurrentHashMap<>();
+    private Map<String, Object> settings = Map.of();
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions options, Map<String, Object> configValues) {
+        settings = new HashMap<>(configValues);
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        regions.values().forEach(RegionStorage::release);
+        regions.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return storage(regionConfig.getRegionName(), maxEntries(regionConfig.getRegionName()));
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return storage(regionName, maxEntries(regionName));
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return storage(regionName, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the storage of each region, by region name
+     */
+    public Map<String, RegionStorage> getRegions() {
+        return Map.copyOf(regions);
+    }
+
+    private RegionStorage storage(String regionName, int maxEntries) {
+        return regions.computeIfAbsent(regionName, name -> new RegionStorage(maxEntries));
+    }
+
+    private int maxEntries(String regionName) {
+        Object value = settings.getOrDefault(MAX_ENTRIES_PREFIX + regionName, settings.get(DEFAULT_MAX_ENTRIES));
+        return value != null ? Math.max(1, Integer.parseInt(value.toString().trim())) : 10_000;
+    }
+
+    /**
+     * Bounded map of one region, least recently used first.
+     */
+    public static final class RegionStorage implements DomainDataStorageAccess {
+
+        private final int maxEntries;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Object, Object> entries;
+        private long evictions;
+
+        RegionStorage(int maxEntries) {
+            this.maxEntries = maxEntries;
+            this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                    if (size() > RegionStorage.this.maxEntries) {
+                        evictions++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            lock.lock();
+            try {
+                return entries.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            lock.lock();
+            try {
+                entries.put(key, value);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            lock.lock();
+            try {
+                return entries.containsKey(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void evictData() {
+            lock.lock();
+            try {
+                entries.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void evictData(Object key) {
+            lock.lock();
+            try {
+                entries.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void release() {
+            evictData();
+        }
+
+        public int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public long getEvictions() {
+            lock.lock();
+            try {
+                return evictions;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package isj.group4.fingerprintmanagement.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -38,9 +39,12 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // Streamed responses complete in an async dispatch; the request itself was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Public endpoints - no authentication required
                         .requestMatchers("/auth/**", "/api/auth/**").permitAll()
                         .requestMatchers(org.springframework.http.HttpMethod.POST,"/api/attendance/record").permitAll()
+                        .requestMatchers(org.springframework.http.HttpMethod.POST,"/api/attendance/record/batch").permitAll()
                         // All other requests require authentication
                         .anyRequest().authenticated()
                 )
@@ -65,6 +69,7 @@ public class SecurityConfig {
         attendanceConfig.setAllowCredentials(false); // Must be false when using "*" for origins
         attendanceConfig.setMaxAge(3600L);
         source.registerCorsConfiguration("/api/attendance/record", attendanceConfig);
+        source.registerCorsConfiguration("/api/attendance/record/batch", attendanceConfig);
 
         // Restricted CORS for all other endpoints
         CorsConfiguration configuration = new CorsConfiguration();
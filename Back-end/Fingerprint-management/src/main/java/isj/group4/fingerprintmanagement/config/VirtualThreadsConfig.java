@@ -0,0 +1,51 @@
+package isj.group4.fingerprintmanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration of the 'virtual' profile (application-virtual.properties).
+ * Servlet requests, @Async work and scheduled jobs run on virtual threads
+ * (spring.threads.virtual.enabled), which requires Java 21 (mvn -Pjava21).
+ * Database concurrency is bounded separately by a semaphore sized to the Hikari pool.
+ */
+@Configuration
+@Profile("virtual")
+@Log4j2
+public class VirtualThreadsConfig {
+
+    public VirtualThreadsConfig() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("Profile 'virtual' is active but Java {} has no virtual threads, "
+                    + "requests run on platform threads (build and run with Java 21)", Runtime.version().feature());
+        }
+    }
+
+    /**
+     * Wrap the DataSource so that at most as many connections as the pool holds are requested at once.
+     */
+    @Bean
+    public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitingDataSource) {
+                    return bean;
+                }
+                int maxConcurrency = environment.getProperty("attendance.db.max-concurrency", Integer.class,
+                        bean instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10);
+                long acquireTimeoutMs = environment.getProperty("attendance.db.acquire-timeout-ms", Long.class,
+                        30_000L);
+                log.info("Bounding database concurrency of '{}' to {} connections", beanName, maxConcurrency);
+                return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeoutMs);
+            }
+        };
+    }
+}
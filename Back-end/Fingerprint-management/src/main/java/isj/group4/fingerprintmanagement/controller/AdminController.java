@@ -2,8 +2,10 @@ package isj.group4.fingerprintmanagement.controller;
 
 import isj.group4.fingerprintmanagement.dto.AdminLoginRequestDTO;
 import isj.group4.fingerprintmanagement.dto.AdminLoginResponseDTO;
+import isj.group4.fingerprintmanagement.dto.CacheStatsDTO;
 import isj.group4.fingerprintmanagement.entity.Admin;
 import isj.group4.fingerprintmanagement.services.AdminService;
+import isj.group4.fingerprintmanagement.services.EntityCacheStats;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
@@ -27,6 +29,7 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
+    private final EntityCacheStats entityCacheStats;
 
 //    /**
 //     * Admin login endpoint.
@@ -213,5 +216,22 @@ public class AdminController {
         response.put("exists", exists);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Get size and hit/miss counters of the Hibernate second-level cache regions.
+     * GET /api/admin/metrics/entity-cache
+     *
+     * @return the statistics of each region, or 404 if the second-level cache is not enabled
+     */
+    @GetMapping("/metrics/entity-cache")
+    public ResponseEntity<?> getEntityCacheStats() {
+        if (!entityCacheStats.isEnabled()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Second-level cache is not enabled (attendance.l2-cache.enabled=false)");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        List<CacheStatsDTO> stats = entityCacheStats.getStats();
+        return ResponseEntity.ok(stats);
+    }
 }
 
@@ -0,0 +1,68 @@
+package isj.group4.fingerprintmanagement.controller;
+
+import isj.group4.fingerprintmanagement.dto.AttendanceAnalyticsDTO;
+import isj.group4.fingerprintmanagement.services.AnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * REST Controller for the attendance analytics.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@Log4j2
+@CrossOrigin(origins = "*") // Configure appropriately for production
+public class AnalyticsController {
+
+    /** Seconds a client waits before asking again while the in-memory copy loads. */
+    private static final int RETRY_AFTER_SECONDS = 30;
+
+    private final AnalyticsService analyticsService;
+
+    /**
+     * Aggregate the attendances of a period, grouped by one dimension.
+     * GET /api/analytics/attendance?groupBy={dimension}&from={yyyy-MM-dd}&to={yyyy-MM-dd}&departmentId={id}&staffId={id}
+     *
+     * Answered from memory (see AttendanceCube); the data may be a few seconds behind the punches.
+     *
+     * @param groupBy department, staff, weekday, arrival_hour, date or month (default: department)
+     * @param from first attendance date, inclusive (default: start of the cube)
+     * @param to last attendance date, inclusive (default: today)
+     * @param departmentId only attendances of this department (optional)
+     * @param staffId only attendances of this staff (optional)
+     * @return the totals of each group, or 503 (with Retry-After) while the cube is disabled or loading
+     */
+    @GetMapping("/attendance")
+    public ResponseEntity<?> getAttendanceAnalytics(
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) Long staffId) {
+        try {
+            AttendanceAnalyticsDTO analytics = analyticsService.getAttendanceAnalytics(
+                    groupBy, from, to, departmentId, staffId);
+            return ResponseEntity.ok(analytics);
+        } catch (IllegalArgumentException e) {
+            log.error("Attendance analytics failed: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (IllegalStateException e) {
+            log.warn("Attendance analytics unavailable: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS))
+                    .body(error);
+        }
+    }
+}
@@ -1,15 +1,37 @@
 package isj.group4.fingerprintmanagement.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import isj.group4.fingerprintmanagement.dto.AttendanceBatchResponseDTO;
+import isj.group4.fingerprintmanagement.dto.AttendancePageDTO;
 import isj.group4.fingerprintmanagement.dto.AttendanceRequestDTO;
 import isj.group4.fingerprintmanagement.dto.AttendanceResponseDTO;
+import isj.group4.fingerprintmanagement.dto.LockStatsDTO;
+import isj.group4.fingerprintmanagement.dto.PunchJournalStatsDTO;
+import isj.group4.fingerprintmanagement.dto.StreamStatsDTO;
+import isj.group4.fingerprintmanagement.services.AttendanceBroadcaster;
+import isj.group4.fingerprintmanagement.services.AttendanceExportService;
 import isj.group4.fingerprintmanagement.services.AttendanceService;
+import isj.group4.fingerprintmanagement.services.PunchJournalService;
+import isj.group4.fingerprintmanagement.services.ResourceVersions;
+import isj.group4.fingerprintmanagement.services.ResourceVersions.Resource;
+import isj.group4.fingerprintmanagement.services.StaffLockStripes;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,7 +47,19 @@ import java.util.Map;
 @CrossOrigin(origins = "*") // Configure appropriately for production
 public class AttendanceController {
 
+    /** Maximum number of punches accepted in a single batch request. */
+    private static final int MAX_BATCH_SIZE = 5000;
+
+    /** Longest idempotency key (size of the arrival_key and departure_key columns). */
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+
     private final AttendanceService attendanceService;
+    private final ObjectProvider<PunchJournalService> punchJournalService;
+    private final StaffLockStripes staffLocks;
+    private final AttendanceExportService attendanceExportService;
+    private final ObjectMapper objectMapper;
+    private final ResourceVersions resourceVersions;
+    private final AttendanceBroadcaster attendanceBroadcaster;
 
     /**
      * Record attendance (arrival or departure).
@@ -36,13 +70,39 @@ public class AttendanceController {
      * - If attendance exists with only arrival time, set departure time
      * - If both times are already set, return error
      *
+     * A retried punch carrying the same idempotency key (body field or Idempotency-Key
+     * header), or the same staffId + deviceId + attendanceTime, returns the original
+     * response instead of being recorded again.
+     *
+     * When attendance.ingest.mode=journal the punch is appended to the local punch
+     * journal and acknowledged with 202 Accepted and status "QUEUED"; it is applied
+     * to the database shortly after by the journal drainer.
+     *
      * @param requestDTO the attendance recording request
+     * @param idempotencyKey optional idempotency key of the punch
      * @return the recorded attendance details
      */
     @PostMapping("/record")
-    public ResponseEntity<?> recordAttendance(@Valid @RequestBody AttendanceRequestDTO requestDTO) {
+    public ResponseEntity<?> recordAttendance(
+            @Valid @RequestBody AttendanceRequestDTO requestDTO,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             log.info("Received attendance record request for staff ID: {}", requestDTO.getStaffId());
+            if (idempotencyKey != null && requestDTO.getIdempotencyKey() == null) {
+                // The header is not covered by @Valid
+                if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                    throw new IllegalArgumentException("Idempotency key must not exceed "
+                            + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+                }
+                requestDTO.setIdempotencyKey(idempotencyKey);
+            }
+            PunchJournalService journal = punchJournalService.getIfAvailable();
+            AttendanceResponseDTO queued = journal != null ? journal.append(requestDTO) : null;
+            if (queued != null) {
+                HttpStatus httpStatus = PunchJournalService.STATUS_QUEUED.equals(queued.getStatus())
+                        ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+                return ResponseEntity.status(httpStatus).body(queued);
+            }
             AttendanceResponseDTO response = attendanceService.recordAttendance(requestDTO);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (IllegalArgumentException e) {
@@ -63,18 +123,138 @@ public class AttendanceController {
         }
     }
 
+    /**
+     * Record a batch of attendance punches (arrivals and/or departures).
+     * POST /api/attendance/record/batch
+     *
+     * Accepts a JSON array of attendance requests, optionally gzip-compressed
+     * (Content-Encoding: gzip). Punches are applied in array order with the same
+     * logic as the single record endpoint, and each punch gets its own result,
+     * so one bad punch never fails the whole batch: a punch that fails the validation
+     * of the single endpoint gets an ERROR result with the violation messages.
+     *
+     * @param requests the attendance recording requests
+     * @return the per-punch results of the batch
+     */
+    @PostMapping("/record/batch")
+    public ResponseEntity<?> recordAttendanceBatch(@RequestBody List<AttendanceRequestDTO> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Batch size must not exceed " + MAX_BATCH_SIZE + " punches");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        try {
+            log.info("Received attendance batch of {} punches", requests.size());
+            AttendanceBatchResponseDTO response = attendanceService.recordAttendanceBatch(requests);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Unexpected error recording attendance batch: {}", e.getMessage(), e);
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "An unexpected error occurred");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    /**
+     * Get queue depth and lag of the write-behind punch journal.
+     * GET /api/attendance/ingest/stats
+     *
+     * @return the journal statistics, or 404 if journal ingestion is not enabled
+     */
+    @GetMapping("/ingest/stats")
+    public ResponseEntity<?> getIngestStats() {
+        PunchJournalService journal = punchJournalService.getIfAvailable();
+        if (journal == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Journal ingestion is not enabled (attendance.ingest.mode=sync)");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        PunchJournalStatsDTO stats = journal.getStats();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Get contention of the per-staff punch locks, used to size attendance.lock.stripes.
+     * GET /api/attendance/metrics/locks
+     *
+     * @return the lock statistics
+     */
+    @GetMapping("/metrics/locks")
+    public ResponseEntity<?> getLockStats() {
+        LockStatsDTO stats = staffLocks.getStats();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Get the subscribers and counters of the live attendance stream.
+     * GET /api/attendance/metrics/stream
+     *
+     * @return the stream statistics
+     */
+    @GetMapping("/metrics/stream")
+    public ResponseEntity<?> getStreamStats() {
+        StreamStatsDTO stats = attendanceBroadcaster.getStats();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Stream the attendances recorded from now on, as Server-Sent Events.
+     * GET /api/attendance/stream
+     * GET /api/attendance/stream?departmentId={id}
+     *
+     * Each recorded arrival or departure is sent once committed, as an "attendance" event whose data
+     * is the AttendanceResponseDTO. Punches recorded while the client was not connected are not sent
+     * again: load the attendances of the day when (re)connecting.
+     *
+     * @param departmentId only the attendances of this department (optional)
+     * @return the event stream, or 503 if too many streams are open
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<ResponseBodyEmitter> streamAttendances(@RequestParam(required = false) Long departmentId) {
+        try {
+            log.info("Opening attendance stream (department: {})", departmentId);
+            SseEmitter emitter = attendanceBroadcaster.subscribe(departmentId);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    // Keeps reverse proxies from buffering the events
+                    .header("X-Accel-Buffering", "no")
+                    .body(emitter);
+        } catch (IllegalStateException e) {
+            log.warn("Attendance stream refused: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            ResponseBodyEmitter body = new ResponseBodyEmitter();
+            try {
+                body.send(error, MediaType.APPLICATION_JSON);
+                body.complete();
+            } catch (IOException ex) {
+                body.completeWithError(ex);
+            }
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
+        }
+    }
+
     /**
      * Get attendance by ID.
      * GET /api/attendance/{id}
      *
      * @param id the attendance ID
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return the attendance details
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getAttendanceById(@PathVariable Long id) {
+    public ResponseEntity<?> getAttendanceById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.ATTENDANCES);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         try {
             AttendanceResponseDTO response = attendanceService.getAttendanceByIdAsDTO(id);
-            return ResponseEntity.ok(response);
+            return ConditionalGet.ok(etag, response);
         } catch (IllegalArgumentException e) {
             log.error("Attendance not found: {}", e.getMessage());
             Map<String, String> error = new HashMap<>();
@@ -86,14 +266,117 @@ public class AttendanceController {
     /**
      * Get all attendances.
      * GET /api/attendance
+     * GET /api/attendance?limit={n}&cursor={nextCursor} (one page, newest first)
      *
-     * @return list of all attendance records
+     * Without limit or cursor the whole table is returned as a list; prefer the paginated form.
+     *
+     * @param limit page size (default 100, at most 1000)
+     * @param cursor nextCursor of the previous page
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
+     * @return list of all attendance records, or one page of them
      */
     @GetMapping
-    public ResponseEntity<List<AttendanceResponseDTO>> getAllAttendances() {
+    public ResponseEntity<?> getAllAttendances(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.ATTENDANCES);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+        if (limit != null || cursor != null) {
+            return getAttendancePage(null, null, cursor, limit, etag);
+        }
         log.info("Fetching all attendance records");
         List<AttendanceResponseDTO> attendances = attendanceService.getAllAttendancesAsDTO();
-        return ResponseEntity.ok(attendances);
+        return ConditionalGet.ok(etag, attendances);
+    }
+
+    /**
+     * Get attendances of a date range.
+     * GET /api/attendance/range?from={yyyy-MM-dd}&to={yyyy-MM-dd}&staffId={id}&departmentId={id}&punctuality={late|early_departure|overtime}
+     *
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive (at most 366 days after from)
+     * @param staffId only attendances of this staff (optional)
+     * @param departmentId only attendances of this department (optional)
+     * @param punctuality only late arrivals, early departures or overtime (optional)
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
+     * @return list of attendances of the range, in date order
+     */
+    @GetMapping("/range")
+    public ResponseEntity<?> getAttendancesInRange(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Long staffId,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) String punctuality,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.ATTENDANCES);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+        try {
+            log.info("Fetching attendances from {} to {} (staff: {}, department: {}, punctuality: {})",
+                    from, to, staffId, departmentId, punctuality);
+            List<AttendanceResponseDTO> attendances =
+                    attendanceService.getAttendancesInRange(from, to, staffId, departmentId, punctuality);
+            return ConditionalGet.ok(etag, attendances);
+        } catch (IllegalArgumentException e) {
+            log.error("Error fetching attendances by range: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    /**
+     * Export attendance history, streamed row by row (e.g. for payroll).
+     * GET /api/attendance/export?format={ndjson|csv}&from={yyyy-MM-dd}&to={yyyy-MM-dd}&departmentId={id}&staffId={id}
+     *
+     * All filters are optional. Attendances are ordered by date.
+     *
+     * @param format ndjson (default) or csv
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive
+     * @param departmentId only attendances of this department
+     * @param staffId only attendances of this staff
+     * @return the streamed export
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAttendances(
+            @RequestParam(defaultValue = AttendanceExportService.FORMAT_NDJSON) String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) Long staffId) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = from != null ? LocalDate.parse(from) : null;
+            toDate = to != null ? LocalDate.parse(to) : null;
+            attendanceExportService.validate(format, fromDate, toDate);
+        } catch (DateTimeParseException e) {
+            return exportError("Invalid date format. Use yyyy-MM-dd");
+        } catch (IllegalArgumentException e) {
+            return exportError(e.getMessage());
+        }
+
+        log.info("Exporting attendances as {} (from: {}, to: {}, department: {}, staff: {})",
+                format, from, to, departmentId, staffId);
+        boolean csv = AttendanceExportService.FORMAT_CSV.equals(format);
+        String fileName = "attendance-export"
+                + (fromDate != null ? "-" + fromDate : "")
+                + (toDate != null ? "-" + toDate : "")
+                + (csv ? ".csv" : ".ndjson");
+        StreamingResponseBody body = out ->
+                attendanceExportService.export(format, fromDate, toDate, departmentId, staffId, out);
+        return ResponseEntity.ok()
+                .contentType(csv
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
     }
 
     /**
@@ -101,14 +384,21 @@ public class AttendanceController {
      * GET /api/attendance/date/{date}
      *
      * @param date the attendance date (format: yyyy-MM-dd)
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return list of attendances for the specified date
      */
     @GetMapping("/date/{date}")
-    public ResponseEntity<?> getAttendancesByDate(@PathVariable String date) {
+    public ResponseEntity<?> getAttendancesByDate(
+            @PathVariable String date,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            String etag = resourceVersions.attendanceEtag(LocalDate.parse(date));
+            if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+                return ConditionalGet.notModified(etag);
+            }
             log.info("Fetching attendances for date: {}", date);
             List<AttendanceResponseDTO> attendances = attendanceService.getAttendancesByDateAsDTO(date);
-            return ResponseEntity.ok(attendances);
+            return ConditionalGet.ok(etag, attendances);
         } catch (Exception e) {
             log.error("Error fetching attendances by date: {}", e.getMessage());
             Map<String, String> error = new HashMap<>();
@@ -120,31 +410,60 @@ public class AttendanceController {
     /**
      * Get attendances by staff ID.
      * GET /api/attendance/staff/{staffId}
+     * GET /api/attendance/staff/{staffId}?limit={n}&cursor={nextCursor} (one page, newest first)
      *
      * @param staffId the staff user ID
-     * @return list of attendances for the specified staff
+     * @param limit page size (default 100, at most 1000)
+     * @param cursor nextCursor of the previous page
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
+     * @return list of attendances for the specified staff, or one page of them
      */
     @GetMapping("/staff/{staffId}")
-    public ResponseEntity<List<AttendanceResponseDTO>> getStaffAttendances(@PathVariable Long staffId) {
+    public ResponseEntity<?> getStaffAttendances(
+            @PathVariable Long staffId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.ATTENDANCES);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+        if (limit != null || cursor != null) {
+            return getAttendancePage(staffId, null, cursor, limit, etag);
+        }
         log.info("Fetching attendances for staff ID: {}", staffId);
         List<AttendanceResponseDTO> attendances = attendanceService.getStaffAttendancesAsDTO(staffId);
-        return ResponseEntity.ok(attendances);
+        return ConditionalGet.ok(etag, attendances);
     }
 
     /**
      * Get attendances by department ID.
      * GET /api/attendance/department/{departmentId}
+     * GET /api/attendance/department/{departmentId}?limit={n}&cursor={nextCursor} (one page, newest first)
      *
      * @param departmentId the department ID
-     * @return list of attendances for the specified department
+     * @param limit page size (default 100, at most 1000)
+     * @param cursor nextCursor of the previous page
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
+     * @return list of attendances for the specified department, or one page of them
      */
     @GetMapping("/department/{departmentId}")
-    public ResponseEntity<List<AttendanceResponseDTO>> getAttendancesByDepartment(
-            @PathVariable Long departmentId) {
+    public ResponseEntity<?> getAttendancesByDepartment(
+            @PathVariable Long departmentId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.ATTENDANCES);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+        if (limit != null || cursor != null) {
+            return getAttendancePage(null, departmentId, cursor, limit, etag);
+        }
         log.info("Fetching attendances for department ID: {}", departmentId);
         List<AttendanceResponseDTO> attendances =
                 attendanceService.getAllAttendancesByDepartmentAsDTO(departmentId);
-        return ResponseEntity.ok(attendances);
+        return ConditionalGet.ok(etag, attendances);
     }
 
     /**
@@ -153,19 +472,21 @@ public class AttendanceController {
      *
      * @param staffId the staff user ID
      * @param date the attendance date (format: yyyy-MM-dd)
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return attendance record for the staff on the specified date
      */
     @GetMapping("/staff/{staffId}/date/{date}")
     public ResponseEntity<?> getStaffAttendanceByDate(
             @PathVariable Long staffId,
-            @PathVariable String date) {
+            @PathVariable String date,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            String etag = resourceVersions.attendanceEtag(LocalDate.parse(date));
+            if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+                return ConditionalGet.notModified(etag);
+            }
             log.info("Fetching attendance for staff ID: {} on date: {}", staffId, date);
-            List<AttendanceResponseDTO> attendances = attendanceService
-                    .getAllAttendancesByStaffAndDate(staffId, date)
-                    .stream()
-                    .map(att -> attendanceService.getAttendanceByIdAsDTO(att.getAttendanceId()))
-                    .toList();
+            List<AttendanceResponseDTO> attendances = attendanceService.getStaffAttendancesByDateAsDTO(staffId, date);
 
             if (attendances.isEmpty()) {
                 Map<String, String> response = new HashMap<>();
@@ -173,7 +494,7 @@ public class AttendanceController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
-            return ResponseEntity.ok(attendances.get(0));
+            return ConditionalGet.ok(etag, attendances.get(0));
         } catch (Exception e) {
             log.error("Error fetching staff attendance by date: {}", e.getMessage());
             Map<String, String> error = new HashMap<>();
@@ -181,5 +502,27 @@ public class AttendanceController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         }
     }
-}
 
+    private ResponseEntity<?> getAttendancePage(Long staffId, Long departmentId, String cursor, Integer limit,
+                                                String etag) {
+        try {
+            AttendancePageDTO page = attendanceService.getAttendancePage(staffId, departmentId, cursor, limit);
+            return ConditionalGet.ok(etag, page);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    /**
+     * 400 response of the export endpoint, whose declared body type has to be a stream
+     */
+    private ResponseEntity<StreamingResponseBody> exportError(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, error));
+    }
+}
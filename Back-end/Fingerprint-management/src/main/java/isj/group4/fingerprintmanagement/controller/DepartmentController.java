@@ -4,9 +4,12 @@ import isj.group4.fingerprintmanagement.dto.DepartmentDetailDTO;
 import isj.group4.fingerprintmanagement.dto.DepartmentRequestDTO;
 import isj.group4.fingerprintmanagement.dto.DepartmentResponseDTO;
 import isj.group4.fingerprintmanagement.services.DepartmentService;
+import isj.group4.fingerprintmanagement.services.ResourceVersions;
+import isj.group4.fingerprintmanagement.services.ResourceVersions.Resource;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,6 +30,7 @@ import java.util.Map;
 public class DepartmentController {
 
     private final DepartmentService departmentService;
+    private final ResourceVersions resourceVersions;
 
     /**
      * Create a new department.
@@ -52,12 +56,18 @@ public class DepartmentController {
      * Get all departments.
      * GET /api/department
      *
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return list of all departments with statistics
      */
     @GetMapping
-    public ResponseEntity<List<DepartmentResponseDTO>> getAllDepartments() {
+    public ResponseEntity<List<DepartmentResponseDTO>> getAllDepartments(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.DEPARTMENTS);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         List<DepartmentResponseDTO> departments = departmentService.getAllDepartments();
-        return ResponseEntity.ok(departments);
+        return ConditionalGet.ok(etag, departments);
     }
 
     /**
@@ -65,13 +75,20 @@ public class DepartmentController {
      * GET /api/department/{id}
      *
      * @param id the department ID
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return the department details
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getDepartmentById(@PathVariable Long id) {
+    public ResponseEntity<?> getDepartmentById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.DEPARTMENTS);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         try {
             DepartmentResponseDTO department = departmentService.getDepartmentById(id);
-            return ResponseEntity.ok(department);
+            return ConditionalGet.ok(etag, department);
         } catch (IllegalArgumentException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -84,13 +101,20 @@ public class DepartmentController {
      * GET /api/department/{id}/details
      *
      * @param id the department ID
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return the detailed department information
      */
     @GetMapping("/{id}/details")
-    public ResponseEntity<?> getDepartmentDetails(@PathVariable Long id) {
+    public ResponseEntity<?> getDepartmentDetails(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.DEPARTMENTS);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         try {
             DepartmentDetailDTO details = departmentService.getDepartmentDetails(id);
-            return ResponseEntity.ok(details);
+            return ConditionalGet.ok(etag, details);
         } catch (IllegalArgumentException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -134,24 +158,36 @@ public class DepartmentController {
      * Get departments with staff.
      * GET /api/department/with-staff
      *
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return list of departments that have staff
      */
     @GetMapping("/with-staff")
-    public ResponseEntity<List<DepartmentResponseDTO>> getDepartmentsWithStaff() {
+    public ResponseEntity<List<DepartmentResponseDTO>> getDepartmentsWithStaff(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.DEPARTMENTS);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         List<DepartmentResponseDTO> departments = departmentService.getDepartmentsWithStaff();
-        return ResponseEntity.ok(departments);
+        return ConditionalGet.ok(etag, departments);
     }
 
     /**
      * Get empty departments.
      * GET /api/department/empty
      *
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return list of departments with no staff
      */
     @GetMapping("/empty")
-    public ResponseEntity<List<DepartmentResponseDTO>> getEmptyDepartments() {
+    public ResponseEntity<List<DepartmentResponseDTO>> getEmptyDepartments(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.DEPARTMENTS);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         List<DepartmentResponseDTO> departments = departmentService.getEmptyDepartments();
-        return ResponseEntity.ok(departments);
+        return ConditionalGet.ok(etag, departments);
     }
 
     /**
@@ -240,13 +276,20 @@ public class DepartmentController {
      * GET /api/department/{id}/statistics
      *
      * @param id the department ID
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return department statistics
      */
     @GetMapping("/{id}/statistics")
-    public ResponseEntity<?> getDepartmentStatistics(@PathVariable Long id) {
+    public ResponseEntity<?> getDepartmentStatistics(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.DEPARTMENTS);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         try {
             DepartmentResponseDTO stats = departmentService.getDepartmentStatistics(id);
-            return ResponseEntity.ok(stats);
+            return ConditionalGet.ok(etag, stats);
         } catch (IllegalArgumentException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
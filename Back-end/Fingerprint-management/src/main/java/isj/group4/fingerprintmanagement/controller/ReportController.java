@@ -0,0 +1,149 @@
+package isj.group4.fingerprintmanagement.controller;
+
+import isj.group4.fingerprintmanagement.dto.DailyAttendanceDTO;
+import isj.group4.fingerprintmanagement.dto.MonthlyReportDTO;
+import isj.group4.fingerprintmanagement.dto.PresenceReportDTO;
+import isj.group4.fingerprintmanagement.services.ReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for attendance reports.
+ */
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@Log4j2
+@CrossOrigin(origins = "*") // Configure appropriately for production
+public class ReportController {
+
+    /** Seconds a client waits before asking again while the in-memory copy loads. */
+    private static final int RETRY_AFTER_SECONDS = 30;
+
+    private final ReportService reportService;
+
+    /**
+     * Get the monthly attendance report.
+     * GET /api/reports/monthly?year={yyyy}&month={1-12}&departmentId={id}
+     *
+     * Without year and month the report covers the current month up to today.
+     *
+     * @param year the year (default: current year)
+     * @param month the month, 1 to 12 (default: current month)
+     * @param departmentId only staff of this department (optional)
+     * @return the month statistics and the summary of each active staff
+     */
+    @GetMapping("/monthly")
+    public ResponseEntity<?> getMonthlyReport(
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer month,
+            @RequestParam(required = false) Long departmentId) {
+        try {
+            MonthlyReportDTO report = reportService.getMonthlyReport(year, month, departmentId);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            log.error("Monthly report failed: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    /**
+     * Get the attendance totals of each department per day.
+     * GET /api/reports/daily?from={yyyy-MM-dd}&to={yyyy-MM-dd}&departmentId={id}
+     *
+     * Read from the daily summary table; staff without department are reported with a null departmentId.
+     *
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive (at most 366 days after from)
+     * @param departmentId only this department (optional)
+     * @return the totals, in (date, department) order
+     */
+    @GetMapping("/daily")
+    public ResponseEntity<?> getDailyTotals(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Long departmentId) {
+        try {
+            List<DailyAttendanceDTO> totals = reportService.getDailyTotals(from, to, departmentId);
+            return ResponseEntity.ok(totals);
+        } catch (IllegalArgumentException e) {
+            log.error("Daily totals failed: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    /**
+     * Get the expected, present and absent staff of each day of a period.
+     * GET /api/reports/presence?from={yyyy-MM-dd}&to={yyyy-MM-dd}&departmentId={id}&schedule={HH:mm-HH:mm}
+     *
+     * Computed in memory from per-day bitmaps of the present staff (see PresenceBitmaps).
+     *
+     * @param from first day, inclusive (default: first day of the month of 'to')
+     * @param to last day, inclusive (default: today)
+     * @param departmentId only staff of this department (optional)
+     * @param schedule only staff with this contract schedule, e.g. 08:00-17:00, or none (optional)
+     * @return the presence of each day and the absences of each staff, or 503 (with Retry-After) while the bitmaps are disabled or loading
+     */
+    @GetMapping("/presence")
+    public ResponseEntity<?> getPresenceReport(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) String schedule) {
+        try {
+            PresenceReportDTO report = reportService.getPresenceReport(from, to, departmentId, schedule);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            log.error("Presence report failed: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (IllegalStateException e) {
+            log.warn("Presence report unavailable: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS))
+                    .body(error);
+        }
+    }
+
+    /**
+     * Rebuild the attendance summary tables of a period from the attendances.
+     * POST /api/reports/aggregates/rebuild?from={yyyy-MM-dd}&to={yyyy-MM-dd}
+     *
+     * Monthly totals are rebuilt for every month the period touches, at most 24 months.
+     *
+     * @param from first attendance date, inclusive (the oldest attendance if earlier)
+     * @param to last attendance date, inclusive, not in the future (default: today)
+     * @return success message
+     */
+    @PostMapping("/aggregates/rebuild")
+    public ResponseEntity<?> rebuildAggregates(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            int months = reportService.rebuildAggregates(from, to);
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Attendance aggregates rebuilt (" + months + " months)");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.error("Aggregate rebuild failed: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package isj.group4.fingerprintmanagement.controller;
 
+import isj.group4.fingerprintmanagement.dto.CacheStatsDTO;
 import isj.group4.fingerprintmanagement.dto.StaffRequestDTO;
 import isj.group4.fingerprintmanagement.dto.StaffResponseDTO;
 import isj.group4.fingerprintmanagement.dto.StaffUpdateDTO;
+import isj.group4.fingerprintmanagement.services.AbsenceJobService;
+import isj.group4.fingerprintmanagement.services.DirectoryCache;
+import isj.group4.fingerprintmanagement.services.ResourceVersions;
+import isj.group4.fingerprintmanagement.services.ResourceVersions.Resource;
 import isj.group4.fingerprintmanagement.services.StaffService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,6 +33,9 @@ import java.util.Map;
 public class StaffController {
 
     private final StaffService staffService;
+    private final AbsenceJobService absenceJobService;
+    private final DirectoryCache directoryCache;
+    private final ResourceVersions resourceVersions;
 
     /**
      * Create a new staff member.
@@ -52,24 +61,36 @@ public class StaffController {
      * Get all staff members.
      * GET /api/staff
      *
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return list of all staff
      */
     @GetMapping
-    public ResponseEntity<List<StaffResponseDTO>> getAllStaff() {
+    public ResponseEntity<List<StaffResponseDTO>> getAllStaff(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.STAFF);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         List<StaffResponseDTO> staff = staffService.getAllStaff();
-        return ResponseEntity.ok(staff);
+        return ConditionalGet.ok(etag, staff);
     }
 
     /**
      * Get all active staff members.
      * GET /api/staff/active
      *
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return list of active staff
      */
     @GetMapping("/active")
-    public ResponseEntity<List<StaffResponseDTO>> getAllActiveStaff() {
+    public ResponseEntity<List<StaffResponseDTO>> getAllActiveStaff(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.STAFF);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         List<StaffResponseDTO> staff = staffService.getAllActiveStaff();
-        return ResponseEntity.ok(staff);
+        return ConditionalGet.ok(etag, staff);
     }
 
     /**
@@ -77,13 +98,20 @@ public class StaffController {
      * GET /api/staff/{id}
      *
      * @param id the staff ID
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return the staff details
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getStaffById(@PathVariable Long id) {
+    public ResponseEntity<?> getStaffById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.STAFF);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         try {
             StaffResponseDTO staff = staffService.getStaffById(id);
-            return ResponseEntity.ok(staff);
+            return ConditionalGet.ok(etag, staff);
         } catch (IllegalArgumentException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -110,12 +138,19 @@ public class StaffController {
      * GET /api/staff/department/{departmentId}
      *
      * @param departmentId the department ID
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return list of staff in the department
      */
     @GetMapping("/department/{departmentId}")
-    public ResponseEntity<List<StaffResponseDTO>> getStaffByDepartment(@PathVariable Long departmentId) {
+    public ResponseEntity<List<StaffResponseDTO>> getStaffByDepartment(
+            @PathVariable Long departmentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.STAFF);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         List<StaffResponseDTO> staff = staffService.getStaffByDepartment(departmentId);
-        return ResponseEntity.ok(staff);
+        return ConditionalGet.ok(etag, staff);
     }
 
     /**
@@ -123,12 +158,19 @@ public class StaffController {
      * GET /api/staff/department/{departmentId}/active
      *
      * @param departmentId the department ID
+     * @param ifNoneMatch ETags the client already has (304 if one is current)
      * @return list of active staff in the department
      */
     @GetMapping("/department/{departmentId}/active")
-    public ResponseEntity<List<StaffResponseDTO>> getActiveStaffByDepartment(@PathVariable Long departmentId) {
+    public ResponseEntity<List<StaffResponseDTO>> getActiveStaffByDepartment(
+            @PathVariable Long departmentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersions.etag(Resource.STAFF);
+        if (ConditionalGet.isNotModified(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         List<StaffResponseDTO> staff = staffService.getActiveStaffByDepartment(departmentId);
-        return ResponseEntity.ok(staff);
+        return ConditionalGet.ok(etag, staff);
     }
 
     /**
@@ -192,6 +234,64 @@ public class StaffController {
         }
     }
 
+    /**
+     * Detect the absences of a day: one absence for each active staff who had to work that day
+     * and has no arrival. Runs every night for the previous day; a day is only counted once.
+     * POST /api/staff/absences/detect?date=2026-10-16
+     *
+     * @param date the day (yyyy-MM-dd, default yesterday)
+     * @return the outcome of the detection
+     */
+    @PostMapping("/absences/detect")
+    public ResponseEntity<?> detectAbsences(@RequestParam(required = false) String date) {
+        try {
+            return ResponseEntity.ok(absenceJobService.detectAbsences(date));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (IllegalStateException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+
+    /**
+     * Reset the absence count of every staff for a month. Runs on the first night of each month;
+     * a month is only reset once.
+     * POST /api/staff/absences/reset?month=2026-10
+     *
+     * @param month the month (yyyy-MM, default current month)
+     * @return the outcome of the reset
+     */
+    @PostMapping("/absences/reset")
+    public ResponseEntity<?> resetAbsences(@RequestParam(required = false) String month) {
+        try {
+            return ResponseEntity.ok(absenceJobService.resetAbsences(month));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (IllegalStateException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+
+    /**
+     * Get size and hit/miss counters of the staff and department DTO caches.
+     * GET /api/staff/metrics/cache
+     *
+     * @return the statistics of each cache
+     */
+    @GetMapping("/metrics/cache")
+    public ResponseEntity<?> getCacheStats() {
+        List<CacheStatsDTO> stats = directoryCache.getStats();
+        return ResponseEntity.ok(stats);
+    }
+
     /**
      * Deactivate staff account.
      * POST /api/staff/{id}/deactivate
@@ -0,0 +1,47 @@
+package isj.group4.fingerprintmanagement.controller;
+
+import isj.group4.fingerprintmanagement.dto.RosterDeltaDTO;
+import isj.group4.fingerprintmanagement.services.RosterSyncService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * REST Controller for synchronizing offline-capable terminals.
+ */
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@Log4j2
+@CrossOrigin(origins = "*") // Configure appropriately for production
+public class SyncController {
+
+    private final RosterSyncService rosterSyncService;
+
+    /**
+     * Get the staff roster changes since a revision.
+     * GET /api/sync/roster?since={revision}
+     *
+     * Without 'since' (or with 0) the full roster of active staff is returned.
+     * The terminal stores the returned 'revision' and sends it as 'since' on its next poll.
+     *
+     * @param since the last revision seen by the terminal
+     * @return the changed and removed staff
+     */
+    @GetMapping("/roster")
+    public ResponseEntity<?> getRosterChanges(@RequestParam(defaultValue = "0") long since) {
+        try {
+            RosterDeltaDTO delta = rosterSyncService.getChangesSince(since);
+            return ResponseEntity.ok(delta);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for the result of an absence job: the absence detection of a day, or the absence reset of a month.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AbsenceJobRunDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // DETECTION or RESET
+    private String jobType;
+
+    // Day checked, or first day of the month reset
+    private LocalDate runDate;
+
+    // Staff whose absence count was incremented or reset
+    private Integer affectedStaff;
+
+    // Staff expected to work that day (DETECTION only)
+    private Integer expectedStaff;
+
+    // False when the job had already run for this date (nothing was changed)
+    private Boolean executed;
+
+    private LocalDateTime completedAt;
+}
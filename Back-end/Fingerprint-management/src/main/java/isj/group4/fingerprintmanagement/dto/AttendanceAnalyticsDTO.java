@@ -0,0 +1,65 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO for an attendance analytics query: the attendances of a period grouped by one dimension.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttendanceAnalyticsDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // department, staff, weekday, arrival_hour, date or month
+    private String groupBy;
+    private LocalDate from;
+    private LocalDate to;
+
+    // Time spent aggregating, in milliseconds
+    private Double queryMillis;
+
+    // Ordered by group key
+    private List<GroupDTO> groups;
+
+    /**
+     * Totals of one group.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class GroupDTO implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // e.g. a department ID, "MONDAY", "08" or "2026-10-12"
+        private String key;
+        private String label;
+
+        private Long attendances;
+        // Attendances with an arrival, and those with a late arrival
+        private Long present;
+        private Long lateArrivals;
+        private Double lateArrivalRate;
+
+        // Mean arrival time of the day ("HH:mm"), null without arrival
+        private String averageArrival;
+
+        // Over the attendances with both an arrival and a departure
+        private Long workedMinutes;
+        private Long averageWorkedMinutes;
+    }
+}
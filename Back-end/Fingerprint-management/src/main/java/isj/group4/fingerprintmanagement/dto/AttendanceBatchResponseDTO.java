@@ -0,0 +1,63 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for returning the outcome of a batch of attendance punches.
+ * Every punch of the request gets its own result, in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttendanceBatchResponseDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Per-item status values.
+     */
+    public static final String STATUS_CONFLICT = "CONFLICT";
+    public static final String STATUS_ERROR = "ERROR";
+
+    // Statistics
+    private Integer total;
+    private Integer recorded;
+    private Integer conflicts;
+    private Integer errors;
+
+    // Per-punch results
+    private List<ItemResultDTO> results;
+
+    /**
+     * Nested DTO for the result of a single punch.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ItemResultDTO implements Serializable {
+        /** Position of the punch in the request array. */
+        private Integer index;
+        private Long staffId;
+
+        /**
+         * "ARRIVAL_RECORDED", "DEPARTURE_RECORDED", "CONFLICT" or "ERROR".
+         */
+        private String status;
+
+        /** Reason for a CONFLICT or ERROR status. */
+        private String message;
+
+        /** The recorded attendance (null for CONFLICT and ERROR). */
+        private AttendanceResponseDTO attendance;
+    }
+}
@@ -0,0 +1,32 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for returning one page of attendance records, newest first.
+ * The next page is requested with nextCursor; it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttendancePageDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private List<AttendanceResponseDTO> items;
+
+    // Page size used for this page
+    private Integer limit;
+
+    // Opaque token of the last item of this page (null when there is no next page)
+    private String nextCursor;
+}
@@ -2,6 +2,7 @@ package isj.group4.fingerprintmanagement.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -46,5 +47,19 @@ public class AttendanceRequestDTO implements Serializable {
     @NotNull(message = "Attendance time is required")
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime attendanceTime;
-}
 
+    /**
+     * Optional client-generated key identifying this punch (e.g. a UUID).
+     * A retried punch with the same key returns the original response instead
+     * of being recorded again. May also be sent as the Idempotency-Key header.
+     */
+    @Size(max = 100, message = "Idempotency key must not exceed 100 characters")
+    private String idempotencyKey;
+
+    /**
+     * Optional identifier of the terminal that captured the punch.
+     * Without an idempotency key, staffId + deviceId + attendanceTime is used as the key.
+     */
+    @Size(max = 50, message = "Device ID must not exceed 50 characters")
+    private String deviceId;
+}
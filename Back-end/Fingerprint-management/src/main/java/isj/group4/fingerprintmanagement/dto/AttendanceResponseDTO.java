@@ -1,6 +1,7 @@
 package isj.group4.fingerprintmanagement.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import isj.group4.fingerprintmanagement.entity.Attendance.Punctuality;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -69,5 +70,16 @@ public class AttendanceResponseDTO implements Serializable {
      * - "INCOMPLETE": Neither time is set (should not normally occur)
      */
     private String status;
+
+    /**
+     * Punctuality against the contract hours of the staff, classified when the punches were recorded:
+     * - arrivalStatus: "ON_TIME" or "LATE" (lateMinutes after the contract start)
+     * - departureStatus: "EARLY_DEPARTURE", "ON_TIME" or "OVERTIME" (departureMinutes before or after the contract end)
+     * Null while the punch is not recorded.
+     */
+    private Punctuality arrivalStatus;
+    private Integer lateMinutes;
+    private Punctuality departureStatus;
+    private Integer departureMinutes;
 }
 
@@ -0,0 +1,35 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * DTO for the usage of an in-memory cache.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String name;
+    private Integer size;
+    private Integer maxSize;
+    private Long ttlSeconds;
+
+    // Counters since startup
+    private Long hits;
+    private Long misses;
+    private Double hitRate;
+    private Long puts;
+    private Long evictions;
+    private Long invalidations;
+}
@@ -0,0 +1,39 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for the attendance totals of a department on a day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyAttendanceDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private LocalDate attendanceDate;
+
+    // Null for staff without department
+    private Long departmentId;
+    private String departmentName;
+
+    private Integer presentCount;
+    private Integer lateCount;
+
+    // Sum of departure - arrival over the complete attendances
+    private Long workedMinutes;
+
+    private LocalDateTime firstArrival;
+    private LocalDateTime lastDeparture;
+}
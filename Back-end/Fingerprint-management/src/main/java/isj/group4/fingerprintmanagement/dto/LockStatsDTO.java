@@ -0,0 +1,50 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for the contention of the per-staff punch locks.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LockStatsDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Integer stripes;
+
+    // Counters since startup
+    private Long acquisitions;
+    private Long contended;
+    private Double contentionRate;
+    private Long totalWaitMillis;
+    private Long maxWaitMillis;
+
+    // Most contended stripes, highest first
+    private List<StripeDTO> hottestStripes;
+
+    /**
+     * Nested DTO for the contention of a single stripe.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class StripeDTO implements Serializable {
+        private Integer stripe;
+        private Long contended;
+
+        /** Threads waiting for the stripe right now. */
+        private Integer queueLength;
+    }
+}
@@ -0,0 +1,58 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for the monthly attendance report: the month statistics and one summary row per active staff.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MonthlyReportDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Integer year;
+    private Integer month;
+
+    // e.g. "October 2026"
+    private String period;
+
+    // Days of the month covered by the report (up to today for the current month)
+    private Integer totalDays;
+
+    // Statistics (rates in percent, rounded to one decimal)
+    private Integer activeStaff;
+    private Double attendanceRate;
+    private Double lateArrivalRate;
+    private Integer totalAbsences;
+
+    // Active staff, highest attendance percentage first
+    private List<StaffReportDTO> staffReports;
+
+    /**
+     * Nested DTO for the attendance summary of one staff member.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class StaffReportDTO implements Serializable {
+        private Long staffId;
+        private String name;
+        private String department;
+        private Integer daysPresent;
+        private Integer totalDays;
+        private Integer percentage;
+        private Integer lateArrivals;
+    }
+}
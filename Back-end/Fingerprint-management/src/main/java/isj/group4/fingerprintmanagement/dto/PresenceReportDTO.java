@@ -0,0 +1,78 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO for the presence report: expected, present and absent staff of each day of a period.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PresenceReportDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private LocalDate from;
+    private LocalDate to;
+    private Long departmentId;
+    private String schedule;
+
+    // Active staff of the department/schedule (expected every day)
+    private Integer expectedStaff;
+
+    // Over the whole period (rate in percent, rounded to one decimal)
+    private Double attendanceRate;
+    private Integer totalAbsences;
+
+    private List<DayDTO> days;
+
+    // Staff absent at least once, most absences first
+    private List<StaffAbsenceDTO> absentStaff;
+
+    /**
+     * Presence of one day.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DayDTO implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private LocalDate date;
+        private Integer expected;
+        private Integer present;
+        private Integer absent;
+        private Double attendanceRate;
+    }
+
+    /**
+     * Absences of one staff over the period.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class StaffAbsenceDTO implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Long staffId;
+        private String name;
+        private String department;
+        private Integer absentDays;
+    }
+}
@@ -0,0 +1,39 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * DTO for the state of the write-behind punch journal.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PunchJournalStatsDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // Queue depth and lag
+    private Long pendingPunches;
+    private Long lagMillis;
+    private String oldestPendingAt;
+
+    // Journal file usage
+    private Integer usedBytes;
+    private Integer capacityBytes;
+
+    // Counters since startup
+    private Long appendedTotal;
+    private Long drainedTotal;
+    private Long drainFailures;
+    private Long deadLetteredTotal;
+    private String lastDrainAt;
+    private String lastError;
+}
@@ -0,0 +1,38 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for the roster changes since a revision.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RosterDeltaDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** Revision the changes were requested from. */
+    private Long since;
+
+    /** Revision to send as 'since' on the next poll. */
+    private Long revision;
+
+    /** True for a full snapshot (since=0): the terminal replaces its roster. */
+    private Boolean full;
+
+    /** Staff added or changed (including deactivated staff, with active=false). */
+    private List<RosterEntryDTO> changed;
+
+    /** IDs of deleted staff. */
+    private List<Long> removed;
+}
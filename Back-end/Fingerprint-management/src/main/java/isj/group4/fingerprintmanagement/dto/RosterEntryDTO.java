@@ -0,0 +1,35 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Compact form of a staff member, as needed by a terminal working offline.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RosterEntryDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Long staffId;
+    private String name;
+    private String surname;
+    private Long departmentId;
+    private String departmentName;
+    private Boolean active;
+
+    /** Fingerprint reference of the staff (null if not enrolled). */
+    private String fingerCode;
+
+    /** Revision of the last change of this staff. */
+    private Long revision;
+}
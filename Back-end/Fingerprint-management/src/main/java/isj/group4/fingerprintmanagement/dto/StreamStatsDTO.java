@@ -0,0 +1,34 @@
+package isj.group4.fingerprintmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * DTO for the state of the live attendance stream (GET /api/attendance/stream).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StreamStatsDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // Current subscribers and limits
+    private Integer subscribers;
+    private Integer maxSubscribers;
+    private Integer bufferSize;
+
+    // Counters since startup
+    private Long subscribedTotal;
+    private Long rejectedTotal;
+    private Long publishedTotal;
+    private Long deliveredTotal;
+    private Long evictedTotal;
+}
@@ -0,0 +1,44 @@
+package isj.group4.fingerprintmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger of the absence jobs (see AbsenceJobService): one row per absence detection of a day
+ * and per absence reset of a month. The unique key makes a job run at most once per date,
+ * even when it is started again or by several instances.
+ */
+@Entity
+@Table(name = "absence_job_runs",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_absence_job_run", columnNames = {"job_type", "run_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AbsenceJobRun {
+
+    public enum JobType {
+        DETECTION,
+        RESET
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private JobType jobType;
+
+    // Day checked (DETECTION) or first day of the month reset (RESET)
+    @Column(nullable = false)
+    private LocalDate runDate;
+
+    // Staff whose absence count was incremented (DETECTION) or reset (RESET)
+    private Integer affectedStaff;
+
+    private LocalDateTime completedAt;
+}
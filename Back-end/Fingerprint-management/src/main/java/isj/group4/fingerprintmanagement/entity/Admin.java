@@ -5,6 +5,7 @@ import lombok.*;
 
 @Entity
 @Table(name = "admins")
+@Cacheable
 @Data
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
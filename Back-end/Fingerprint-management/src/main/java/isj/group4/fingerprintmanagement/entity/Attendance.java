@@ -6,12 +6,34 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "attendances")
+@Table(name = "attendances",
+        // The unique key also serves per-staff date ranges; idx_attendance_date_staff serves all-staff
+        // and per-department date ranges
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_attendance_staff_date", columnNames = {"staff_id", "attendance_date"}),
+        indexes = {
+                @Index(name = "idx_attendance_date_id", columnList = "attendance_date, attendance_id"),
+                @Index(name = "idx_attendance_date_staff", columnList = "attendance_date, staff_id"),
+                @Index(name = "idx_attendance_arrival_status", columnList = "arrival_status, attendance_date"),
+                @Index(name = "idx_attendance_departure_status", columnList = "departure_status, attendance_date")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Attendance {
+
+    /**
+     * Punctuality of a punch against the contract hours of the staff.
+     * Arrivals are ON_TIME or LATE, departures EARLY_DEPARTURE, ON_TIME or OVERTIME.
+     */
+    public enum Punctuality {
+        ON_TIME,
+        LATE,
+        EARLY_DEPARTURE,
+        OVERTIME
+    }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long attendanceId;
@@ -20,7 +42,30 @@ public class Attendance {
     private LocalDate attendanceDate;
     private LocalDateTime departureTime;
 
-    @ManyToOne
+    // Idempotency keys of the punches that set the arrival and departure times
+    @Column(unique = true, length = 100)
+    private String arrivalKey;
+
+    @Column(unique = true, length = 100)
+    private String departureKey;
+
+    // Classified when the punch is recorded (see PunctualityClassifier), null while not punched
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Punctuality arrivalStatus;
+
+    // Minutes after the contract start (0 unless late)
+    private Integer lateMinutes;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Punctuality departureStatus;
+
+    // Minutes before the contract end (early departure) or after it (overtime), otherwise 0
+    private Integer departureMinutes;
+
+    // Lazy: listings read staff details through projections or the roster, not this association
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "staff_id")
     private Staff staff;
 }
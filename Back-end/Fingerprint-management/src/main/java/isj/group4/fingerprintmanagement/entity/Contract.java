@@ -2,11 +2,14 @@ package isj.group4.fingerprintmanagement.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "contracts")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contracts")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
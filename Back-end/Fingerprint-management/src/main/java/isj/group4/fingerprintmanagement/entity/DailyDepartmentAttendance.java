@@ -0,0 +1,42 @@
+package isj.group4.fingerprintmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Attendance totals of a department on a day, maintained from the attendances table
+ * (see AttendanceAggregateService). Staff without department are counted under department 0.
+ */
+@Entity
+@Table(name = "attendance_daily_department",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_daily_department_date", columnNames = {"attendance_date", "department_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyDepartmentAttendance {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate attendanceDate;
+
+    @Column(nullable = false)
+    private Long departmentId;
+
+    // Attendances with an arrival, and those with a late arrival
+    private Integer presentCount;
+    private Integer lateCount;
+
+    // Sum of departure - arrival over the complete attendances
+    private Long workedMinutes;
+
+    private LocalDateTime firstArrival;
+    private LocalDateTime lastDeparture;
+
+    private LocalDateTime updatedAt;
+}
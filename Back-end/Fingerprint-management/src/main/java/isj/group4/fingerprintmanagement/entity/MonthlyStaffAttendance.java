@@ -0,0 +1,45 @@
+package isj.group4.fingerprintmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Attendance totals of a staff over a month, maintained from the attendances table
+ * (see AttendanceAggregateService).
+ */
+@Entity
+@Table(name = "attendance_monthly_staff",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_monthly_staff_month", columnNames = {"month_start", "staff_id"}),
+        // Totals of a staff over every month (attendance count of StaffRepo.RESPONSE_DTO)
+        indexes = @Index(name = "idx_monthly_staff_staff", columnList = "staff_id, month_start"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MonthlyStaffAttendance {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // First day of the month
+    @Column(nullable = false)
+    private LocalDate monthStart;
+
+    @Column(nullable = false)
+    private Long staffId;
+
+    // Attendances with an arrival, and those with a late arrival
+    private Integer presentCount;
+    private Integer lateCount;
+
+    // Sum of departure - arrival over the complete attendances
+    private Long workedMinutes;
+
+    private LocalDateTime firstArrival;
+    private LocalDateTime lastDeparture;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,24 @@
+package isj.group4.fingerprintmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marker of a deleted staff, so that terminals syncing the roster learn about the removal.
+ */
+@Entity
+@Table(name = "roster_tombstones", indexes = @Index(name = "idx_tombstone_revision", columnList = "revision"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RosterTombstone {
+    @Id
+    private Long staffId;
+
+    @Column(nullable = false)
+    private Long revision;
+
+    private LocalDateTime deletedAt;
+}
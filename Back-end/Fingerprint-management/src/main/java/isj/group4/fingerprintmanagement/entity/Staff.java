@@ -6,7 +6,9 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Entity
-@Table(name = "staff")
+@Table(name = "staff", indexes = @Index(name = "idx_staff_roster_revision", columnList = "roster_revision"))
+// Not cached: absence counts and roster revisions are also updated with JDBC
+@Cacheable(false)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -15,6 +17,9 @@ public class Staff extends User {
 
     private Integer noAbsence;
 
+    // Revision of the last change seen by terminals (see GET /api/sync/roster)
+    private Long rosterRevision;
+
     // Many attendances for a staff
     @OneToMany(mappedBy = "staff", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Attendance> attendances = new ArrayList<>();
@@ -0,0 +1,181 @@
+package isj.group4.fingerprintmanagement.repository;
+
+import isj.group4.fingerprintmanagement.entity.AbsenceJobRun.JobType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access for the absence jobs: the absence counters of the staff table, updated
+ * set-based (one UPDATE per batch of staff IDs), and the absence_job_runs ledger.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AbsenceJdbcRepo {
+
+    /** Upper bound for the number of values bound into a single IN (...) list. */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Record that a job runs for a date. Run in the transaction of the job: a concurrent run of the
+     * same job and date waits on the unique key, then finds the date taken once the first one has committed.
+     *
+     * @param jobType the job
+     * @param runDate the day checked, or the first day of the month reset
+     * @return false if the job already ran for this date
+     */
+    public boolean claimRun(JobType jobType, LocalDate runDate) {
+        try {
+            namedJdbcTemplate.update("INSERT INTO absence_job_runs (job_type, run_date) VALUES (:jobType, :runDate)",
+                    runParams(jobType, runDate));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Store the outcome of a claimed run.
+     */
+    public void completeRun(JobType jobType, LocalDate runDate, int affectedStaff, LocalDateTime completedAt) {
+        namedJdbcTemplate.update("UPDATE absence_job_runs SET affected_staff = :affected, completed_at = :completedAt "
+                        + "WHERE job_type = :jobType AND run_date = :runDate",
+                runParams(jobType, runDate)
+                        .addValue("affected", affectedStaff)
+                        .addValue("completedAt", Timestamp.valueOf(completedAt), Types.TIMESTAMP));
+    }
+
+    /**
+     * @return the run of a job for a date, if it ran
+     */
+    public Optional<JobRunRow> findRun(JobType jobType, LocalDate runDate) {
+        return namedJdbcTemplate.query("SELECT run_date, affected_staff, completed_at FROM absence_job_runs "
+                                + "WHERE job_type = :jobType AND run_date = :runDate",
+                        runParams(jobType, runDate),
+                        (rs, rowNum) -> new JobRunRow(
+                                rs.getObject("run_date", LocalDate.class),
+                                rs.getObject("affected_staff", Integer.class),
+                                rs.getObject("completed_at", LocalDateTime.class)))
+                .stream().findFirst();
+    }
+
+    /**
+     * @return the latest date a job ran for, if it ever ran
+     */
+    public Optional<LocalDate> findLatestRunDate(JobType jobType) {
+        return Optional.ofNullable(namedJdbcTemplate.queryForObject(
+                "SELECT MAX(run_date) FROM absence_job_runs WHERE job_type = :jobType",
+                new MapSqlParameterSource("jobType", jobType.name()), LocalDate.class));
+    }
+
+    /**
+     * Find the active staff with no arrival on a date, with the working days of their contract.
+     * The arrival of each staff is looked up on the unique (staff_id, attendance_date) key.
+     *
+     * @param date the attendance date
+     * @return the staff without arrival
+     */
+    public List<AbsenceCandidate> findActiveStaffWithoutArrival(LocalDate date) {
+        return namedJdbcTemplate.query("SELECT s.user_id, c.no_days_per_week, c.contract_date "
+                        + "FROM staff s "
+                        + "JOIN users u ON u.user_id = s.user_id "
+                        + "LEFT JOIN contracts c ON c.staff_id = s.user_id "
+                        + "WHERE (u.active IS NULL OR u.active = TRUE) "
+                        + "AND NOT EXISTS (SELECT 1 FROM attendances a WHERE a.staff_id = s.user_id "
+                        + "AND a.attendance_date = :date AND a.arrival_time IS NOT NULL)",
+                new MapSqlParameterSource("date", date),
+                (rs, rowNum) -> new AbsenceCandidate(
+                        rs.getLong("user_id"),
+                        rs.getObject("no_days_per_week", Integer.class),
+                        rs.getObject("contract_date", LocalDate.class)));
+    }
+
+    /**
+     * Add one absence to each of the given staff, with one UPDATE per batch of IDs.
+     *
+     * @param staffIds the staff user IDs
+     * @return number of staff updated
+     */
+    public int incrementAbsences(Collection<Long> staffIds) {
+        int updated = 0;
+        for (List<Long> chunk : chunk(staffIds)) {
+            updated += namedJdbcTemplate.update(
+                    "UPDATE staff SET no_absence = COALESCE(no_absence, 0) + 1 WHERE user_id IN (:ids)",
+                    new MapSqlParameterSource("ids", chunk));
+        }
+        return updated;
+    }
+
+    /**
+     * @return the IDs of the staff with at least one absence
+     */
+    public List<Long> findStaffWithAbsences() {
+        return namedJdbcTemplate.queryForList("SELECT user_id FROM staff WHERE no_absence <> 0",
+                new MapSqlParameterSource(), Long.class);
+    }
+
+    /**
+     * Reset the absence count of each of the given staff, with one UPDATE per batch of IDs.
+     *
+     * @param staffIds the staff user IDs
+     * @return number of staff updated
+     */
+    public int resetAbsences(Collection<Long> staffIds) {
+        int updated = 0;
+        for (List<Long> chunk : chunk(staffIds)) {
+            updated += namedJdbcTemplate.update("UPDATE staff SET no_absence = 0 WHERE user_id IN (:ids)",
+                    new MapSqlParameterSource("ids", chunk));
+        }
+        return updated;
+    }
+
+    private static MapSqlParameterSource runParams(JobType jobType, LocalDate runDate) {
+        return new MapSqlParameterSource()
+                .addValue("jobType", jobType.name())
+                .addValue("runDate", runDate);
+    }
+
+    private static List<List<Long>> chunk(Collection<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        List<Long> current = new ArrayList<>(Math.min(ids.size(), IN_CLAUSE_CHUNK));
+        for (Long id : ids) {
+            current.add(id);
+            if (current.size() == IN_CLAUSE_CHUNK) {
+                chunks.add(current);
+                current = new ArrayList<>(IN_CLAUSE_CHUNK);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * An active staff without arrival on the checked day.
+     *
+     * @param daysPerWeek working days per week of the contract (null without contract)
+     * @param contractDate start date of the contract (null without contract)
+     */
+    public record AbsenceCandidate(long staffId, Integer daysPerWeek, LocalDate contractDate) {
+    }
+
+    /**
+     * A recorded run of an absence job (affectedStaff and completedAt are null while it runs).
+     */
+    public record JobRunRow(LocalDate runDate, Integer affectedStaff, LocalDateTime completedAt) {
+    }
+}
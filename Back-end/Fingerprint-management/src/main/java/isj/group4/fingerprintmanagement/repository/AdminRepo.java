@@ -1,8 +1,11 @@
 package isj.group4.fingerprintmanagement.repository;
 
 import isj.group4.fingerprintmanagement.entity.Admin;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -13,8 +16,9 @@ public interface AdminRepo extends JpaRepository<Admin, Long> {
 
     /**
      * Find admin by email address.
-     * Used for authentication and login.
+     * Used for authentication and login (on every authenticated request), cached in the query cache.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Admin> findByEmail(String email);
 
 
@@ -0,0 +1,241 @@
+package isj.group4.fingerprintmanagement.repository;
+
+import isj.group4.fingerprintmanagement.dto.DailyAttendanceDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access to the attendance summary tables (attendance_daily_department and
+ * attendance_monthly_staff).
+ * A summary row is never adjusted in place: the rows of the changed keys are deleted and
+ * computed again from the attendances table with one INSERT ... SELECT, so recomputing a key
+ * twice, or after a failed attempt, always gives the same result.
+ * Callers run a delete and its insert in the same transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceAggregateJdbcRepo {
+
+    /** Upper bound for the number of values bound into a single IN (...) list. */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    /**
+     * Totals of a group of attendances: present, late (as classified when the arrival was recorded),
+     * worked minutes, first arrival, last departure.
+     */
+    private static final String TOTALS = "COUNT(a.arrival_time), "
+            + "SUM(CASE WHEN a.arrival_status = 'LATE' THEN 1 ELSE 0 END), "
+            + "COALESCE(SUM(TIMESTAMPDIFF(MINUTE, a.arrival_time, a.departure_time)), 0), "
+            + "MIN(a.arrival_time), MAX(a.departure_time), :now ";
+
+    private static final String INSERT_DAILY = "INSERT INTO attendance_daily_department (attendance_date, "
+            + "department_id, present_count, late_count, worked_minutes, first_arrival, last_departure, updated_at) "
+            + "SELECT a.attendance_date, COALESCE(s.department_id, 0), " + TOTALS
+            + "FROM attendances a JOIN staff s ON s.user_id = a.staff_id ";
+
+    private static final String DAILY_GROUP_BY = "GROUP BY a.attendance_date, COALESCE(s.department_id, 0)";
+
+    private static final String INSERT_MONTHLY = "INSERT INTO attendance_monthly_staff (month_start, staff_id, "
+            + "present_count, late_count, worked_minutes, first_arrival, last_departure, updated_at) "
+            + "SELECT :monthStart, a.staff_id, " + TOTALS
+            + "FROM attendances a WHERE a.attendance_date >= :monthStart AND a.attendance_date <= :monthEnd ";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Recompute the daily department totals of the given dates.
+     *
+     * @param dates the attendance dates
+     */
+    public void recomputeDaily(Collection<LocalDate> dates) {
+        for (List<LocalDate> chunk : chunk(dates)) {
+            MapSqlParameterSource params = totalsParams().addValue("dates", chunk);
+            namedJdbcTemplate.update("DELETE FROM attendance_daily_department WHERE attendance_date IN (:dates)", params);
+            namedJdbcTemplate.update(INSERT_DAILY + "WHERE a.attendance_date IN (:dates) " + DAILY_GROUP_BY, params);
+        }
+    }
+
+    /**
+     * Recompute the daily department totals of a date range.
+     *
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive
+     */
+    public void recomputeDaily(LocalDate from, LocalDate to) {
+        MapSqlParameterSource params = totalsParams().addValue("from", from).addValue("to", to);
+        namedJdbcTemplate.update("DELETE FROM attendance_daily_department "
+                + "WHERE attendance_date >= :from AND attendance_date <= :to", params);
+        namedJdbcTemplate.update(INSERT_DAILY + "WHERE a.attendance_date >= :from AND a.attendance_date <= :to "
+                + DAILY_GROUP_BY, params);
+    }
+
+    /**
+     * Recompute the monthly staff totals of a month.
+     *
+     * @param monthStart first day of the month
+     * @param staffIds only these staff (null for every staff)
+     */
+    public void recomputeMonthly(LocalDate monthStart, Collection<Long> staffIds) {
+        MapSqlParameterSource params = totalsParams()
+                .addValue("monthStart", monthStart)
+                .addValue("monthEnd", monthStart.plusMonths(1).minusDays(1));
+        if (staffIds == null) {
+            namedJdbcTemplate.update("DELETE FROM attendance_monthly_staff WHERE month_start = :monthStart", params);
+            namedJdbcTemplate.update(INSERT_MONTHLY + "GROUP BY a.staff_id", params);
+            return;
+        }
+        for (List<Long> chunk : chunk(staffIds)) {
+            params.addValue("ids", chunk);
+            namedJdbcTemplate.update("DELETE FROM attendance_monthly_staff "
+                    + "WHERE month_start = :monthStart AND staff_id IN (:ids)", params);
+            namedJdbcTemplate.update(INSERT_MONTHLY + "AND a.staff_id IN (:ids) GROUP BY a.staff_id", params);
+        }
+    }
+
+    /**
+     * Find the daily department totals of a date range.
+     *
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive
+     * @param departmentId only this department (may be null)
+     * @return the totals, in (date, department ID) order
+     */
+    public List<DailyAttendanceDTO> findDailyTotals(LocalDate from, LocalDate to, Long departmentId) {
+        StringBuilder sql = new StringBuilder("SELECT g.attendance_date, g.department_id, d.dpmt_name, "
+                + "g.present_count, g.late_count, g.worked_minutes, g.first_arrival, g.last_departure "
+                + "FROM attendance_daily_department g "
+                + "LEFT JOIN departments d ON d.dpmt_id = g.department_id "
+                + "WHERE g.attendance_date >= :from AND g.attendance_date <= :to ");
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("from", from).addValue("to", to);
+        if (departmentId != null) {
+            sql.append("AND g.department_id = :departmentId ");
+            params.addValue("departmentId", departmentId);
+        }
+        sql.append("ORDER BY g.attendance_date, g.department_id");
+        return namedJdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            long department = rs.getLong("department_id");
+            return DailyAttendanceDTO.builder()
+                    .attendanceDate(rs.getObject("attendance_date", LocalDate.class))
+                    .departmentId(department != 0 ? department : null)
+                    .departmentName(rs.getString("dpmt_name"))
+                    .presentCount(rs.getInt("present_count"))
+                    .lateCount(rs.getInt("late_count"))
+                    .workedMinutes(rs.getLong("worked_minutes"))
+                    .firstArrival(rs.getObject("first_arrival", LocalDateTime.class))
+                    .lastDeparture(rs.getObject("last_departure", LocalDateTime.class))
+                    .build();
+        });
+    }
+
+    /**
+     * Find the monthly totals of every staff, including inactive staff and staff without attendance.
+     *
+     * @param monthStart first day of the month
+     * @param departmentId only staff of this department (may be null)
+     * @return the totals of each staff, in staff ID order
+     */
+    public List<StaffAttendanceTotals> findMonthlyStaffTotals(LocalDate monthStart, Long departmentId) {
+        StringBuilder sql = new StringBuilder("SELECT u.user_id, u.name, u.surname, u.active, d.dpmt_name, "
+                + "m.present_count, m.late_count "
+                + "FROM staff s "
+                + "JOIN users u ON u.user_id = s.user_id "
+                + "LEFT JOIN departments d ON d.dpmt_id = s.department_id "
+                + "LEFT JOIN attendance_monthly_staff m ON m.staff_id = s.user_id AND m.month_start = :monthStart ");
+        MapSqlParameterSource params = new MapSqlParameterSource("monthStart", monthStart);
+        if (departmentId != null) {
+            sql.append("WHERE s.department_id = :departmentId ");
+            params.addValue("departmentId", departmentId);
+        }
+        sql.append("ORDER BY u.user_id");
+        // getInt returns 0 for the staff without a monthly row
+        return namedJdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> new StaffAttendanceTotals(
+                rs.getLong("user_id"),
+                rs.getString("name"),
+                rs.getString("surname"),
+                !Boolean.FALSE.equals(rs.getObject("active", Boolean.class)),
+                rs.getString("dpmt_name"),
+                rs.getInt("present_count"),
+                rs.getInt("late_count")));
+    }
+
+    /**
+     * Find the days on which the given staff have an attendance.
+     *
+     * @param staffIds the staff user IDs
+     * @return one entry per attendance
+     */
+    public List<StaffDay> findStaffDays(Collection<Long> staffIds) {
+        List<StaffDay> days = new ArrayList<>();
+        for (List<Long> chunk : chunk(staffIds)) {
+            days.addAll(namedJdbcTemplate.query(
+                    "SELECT staff_id, attendance_date FROM attendances WHERE staff_id IN (:ids)",
+                    new MapSqlParameterSource("ids", chunk),
+                    (rs, rowNum) -> new StaffDay(rs.getLong("staff_id"), rs.getObject("attendance_date", LocalDate.class))));
+        }
+        return days;
+    }
+
+    /**
+     * @return the date of the oldest attendance, if any
+     */
+    public Optional<LocalDate> findFirstAttendanceDate() {
+        return Optional.ofNullable(namedJdbcTemplate.queryForObject(
+                "SELECT MIN(attendance_date) FROM attendances", new MapSqlParameterSource(), LocalDate.class));
+    }
+
+    /**
+     * @return true if no monthly staff totals were computed yet
+     */
+    public boolean isMonthlyEmpty() {
+        return namedJdbcTemplate.queryForList(
+                "SELECT staff_id FROM attendance_monthly_staff LIMIT 1", new MapSqlParameterSource(), Long.class).isEmpty();
+    }
+
+    private static MapSqlParameterSource totalsParams() {
+        return new MapSqlParameterSource()
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()), Types.TIMESTAMP);
+    }
+
+    private static <T> List<List<T>> chunk(Collection<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> current = new ArrayList<>(Math.min(values.size(), IN_CLAUSE_CHUNK));
+        for (T value : values) {
+            current.add(value);
+            if (current.size() == IN_CLAUSE_CHUNK) {
+                chunks.add(current);
+                current = new ArrayList<>(IN_CLAUSE_CHUNK);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * Attendance totals of a staff over a month.
+     *
+     * @param daysPresent attendances with an arrival time
+     * @param lateArrivals attendances with a late arrival time
+     */
+    public record StaffAttendanceTotals(long staffId, String name, String surname, boolean active,
+                                        String departmentName, int daysPresent, int lateArrivals) {
+    }
+
+    /**
+     * A staff and the date of one of their attendances.
+     */
+    public record StaffDay(long staffId, LocalDate attendanceDate) {
+    }
+}
@@ -0,0 +1,566 @@
+package isj.group4.fingerprintmanagement.repository;
+
+import isj.group4.fingerprintmanagement.entity.Attendance.Punctuality;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to the attendances table.
+ * Used by the ingestion paths that need set-based reads and batched writes
+ * instead of loading the full Staff/Attendance entity graph through Hibernate.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceJdbcRepo {
+
+    /** Upper bound for the number of values bound into a single IN (...) list. */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    /** Rows fetched per round trip when reading a date range. */
+    private static final int RANGE_FETCH_SIZE = 1000;
+
+    /**
+     * Arrival set, departure not set, and the punch is not a retry of the arrival.
+     */
+    private static final String OPEN_ARRIVAL = "(arrival_time IS NOT NULL AND departure_time IS NULL "
+            + "AND (:key IS NULL OR arrival_key IS NULL OR arrival_key <> :key))";
+
+    private static final String ATTENDANCE_COLUMNS = "SELECT attendance_id, staff_id, attendance_date, "
+            + "arrival_time, departure_time, arrival_key, departure_key, "
+            + "arrival_status, late_minutes, departure_status, departure_minutes FROM attendances ";
+
+    private static final String ALIASED_ATTENDANCE_COLUMNS = "SELECT a.attendance_id, a.staff_id, a.attendance_date, "
+            + "a.arrival_time, a.departure_time, a.arrival_key, a.departure_key, "
+            + "a.arrival_status, a.late_minutes, a.departure_status, a.departure_minutes FROM attendances a ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Find the existing attendance rows for the given staff IDs on the given dates.
+     *
+     * @param staffIds the staff user IDs
+     * @param dates the attendance dates
+     * @return the matching attendance rows
+     */
+    public List<AttendanceRow> findAttendanceRows(Collection<Long> staffIds, Collection<LocalDate> dates) {
+        List<AttendanceRow> rows = new ArrayList<>();
+        if (dates.isEmpty()) {
+            return rows;
+        }
+        for (List<Long> chunk : chunk(staffIds)) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("ids", chunk)
+                    .addValue("dates", dates);
+            rows.addAll(namedJdbcTemplate.query(
+                    ATTENDANCE_COLUMNS
+                            + "WHERE staff_id IN (:ids) AND attendance_date IN (:dates) "
+                            + "ORDER BY attendance_id",
+                    params,
+                    (rs, rowNum) -> toAttendanceRow(rs)));
+        }
+        return rows;
+    }
+
+    /**
+     * Find all attendance rows of a date.
+     *
+     * @param attendanceDate the attendance date
+     * @return the attendance rows of that date
+     */
+    public List<AttendanceRow> findAttendanceRowsByDate(LocalDate attendanceDate) {
+        return jdbcTemplate.query(
+                ATTENDANCE_COLUMNS + "WHERE attendance_date = ? ORDER BY attendance_id",
+                (rs, rowNum) -> toAttendanceRow(rs),
+                attendanceDate);
+    }
+
+    /**
+     * Find a page of attendance rows, newest first (attendance date, then attendance ID, descending).
+     * Keyset pagination: the page starts right after the given (date, ID) position, so a deep page
+     * costs the same index range scan as the first one.
+     *
+     * @param staffId only attendances of this staff (may be null)
+     * @param departmentId only attendances of staff of this department (may be null)
+     * @param afterDate attendance date of the last row of the previous page (null for the first page)
+     * @param afterId attendance ID of the last row of the previous page (null for the first page)
+     * @param limit maximum number of rows
+     * @return the attendance rows of the page
+     */
+    public List<AttendanceRow> findAttendancePage(Long staffId, Long departmentId,
+                                                 LocalDate afterDate, Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(ALIASED_ATTENDANCE_COLUMNS);
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        if (departmentId != null) {
+            sql.append("JOIN staff s ON s.user_id = a.staff_id AND s.department_id = :departmentId ");
+            params.addValue("departmentId", departmentId);
+        }
+        sql.append("WHERE 1 = 1 ");
+        if (staffId != null) {
+            sql.append("AND a.staff_id = :staffId ");
+            params.addValue("staffId", staffId);
+        }
+        if (afterDate != null && afterId != null) {
+            // Written as a range on attendance_date so the index can seek to the position
+            sql.append("AND a.attendance_date <= :afterDate "
+                    + "AND (a.attendance_date < :afterDate OR a.attendance_id < :afterId) ");
+            params.addValue("afterDate", afterDate).addValue("afterId", afterId);
+        }
+        sql.append("ORDER BY a.attendance_date DESC, a.attendance_id DESC LIMIT :limit");
+        return namedJdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> toAttendanceRow(rs));
+    }
+
+    /**
+     * Find the attendance rows of a date range in (attendance date, attendance ID) order.
+     * An index range scan on uk_attendance_staff_date (staff) or idx_attendance_date_staff (otherwise).
+     *
+     * @param staffId only attendances of this staff (may be null)
+     * @param departmentId only attendances of staff of this department (may be null)
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive
+     * @return the attendance rows of the range
+     */
+    public List<AttendanceRow> findAttendanceRowsInRange(Long staffId, Long departmentId, LocalDate from, LocalDate to) {
+        return findAttendanceRowsInRange(staffId, departmentId, from, to, null);
+    }
+
+    /**
+     * Find the attendance rows of a date range with a given punctuality, in (attendance date, attendance ID) order.
+     * LATE filters on the arrival, EARLY_DEPARTURE and OVERTIME on the departure, both served by their
+     * (status, attendance_date) index.
+     *
+     * @param staffId only attendances of this staff (may be null)
+     * @param departmentId only attendances of staff of this department (may be null)
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive
+     * @param punctuality only attendances with this punctuality (may be null; ON_TIME is not supported)
+     * @return the attendance rows of the range
+     */
+    public List<AttendanceRow> findAttendanceRowsInRange(Long staffId, Long departmentId, LocalDate from, LocalDate to,
+                                                       Punctuality punctuality) {
+        List<AttendanceRow> rows = new ArrayList<>();
+        streamAttendanceRows(staffId, departmentId, from, to, punctuality, RANGE_FETCH_SIZE, rows::add);
+        return rows;
+    }
+
+    /**
+     * Stream attendance rows in (attendance date, attendance ID) order to a callback, without
+     * materializing them: the result set is read forward-only and row by row (MySQL streaming
+     * result set, or the given fetch size on other databases).
+     * Must not be called inside a transaction that issues other statements while it streams.
+     *
+     * @param staffId only attendances of this staff (may be null)
+     * @param departmentId only attendances of staff of this department (may be null)
+     * @param from first attendance date, inclusive (may be null)
+     * @param to last attendance date, inclusive (may be null)
+     * @param fetchSize rows fetched per round trip on databases other than MySQL
+     * @param consumer called once per row, in order
+     */
+    public void streamAttendanceRows(Long staffId, Long departmentId, LocalDate from, LocalDate to,
+                                     int fetchSize, Consumer<AttendanceRow> consumer) {
+        streamAttendanceRows(staffId, departmentId, from, to, null, fetchSize, consumer);
+    }
+
+    private void streamAttendanceRows(Long staffId, Long departmentId, LocalDate from, LocalDate to,
+                                      Punctuality punctuality, int fetchSize, Consumer<AttendanceRow> consumer) {
+        StringBuilder sql = new StringBuilder(ALIASED_ATTENDANCE_COLUMNS);
+        List<Object> args = new ArrayList<>();
+        if (departmentId != null) {
+            sql.append("JOIN staff s ON s.user_id = a.staff_id AND s.department_id = ? ");
+            args.add(departmentId);
+        }
+        sql.append("WHERE 1 = 1 ");
+        if (staffId != null) {
+            sql.append("AND a.staff_id = ? ");
+            args.add(staffId);
+        }
+        if (from != null) {
+            sql.append("AND a.attendance_date >= ? ");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append("AND a.attendance_date <= ? ");
+            args.add(to);
+        }
+        if (punctuality == Punctuality.LATE) {
+            sql.append("AND a.arrival_status = ? ");
+            args.add(punctuality.name());
+        } else if (punctuality != null) {
+            sql.append("AND a.departure_status = ? ");
+            args.add(punctuality.name());
+        }
+        sql.append("ORDER BY a.attendance_date, a.attendance_id");
+
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(sql.toString(),
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    // Connector/J only streams (instead of buffering the whole result) with MIN_VALUE
+                    boolean mysql = con.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+                    ps.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+                    for (int i = 0; i < args.size(); i++) {
+                        ps.setObject(i + 1, args.get(i));
+                    }
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(toAttendanceRow(rs)));
+    }
+
+    /**
+     * Set the departure of an open attendance, unless the punch is a retry of its arrival.
+     *
+     * @param attendanceId the attendance ID
+     * @param departureTime the punch time
+     * @param idempotencyKey the idempotency key of the punch (may be null)
+     * @param departureStatus the punctuality of the departure
+     * @param departureMinutes minutes before or after the contract end
+     * @return false if the attendance was not open any more (or the punch is a retry)
+     */
+    public boolean updateOpenDeparture(Long attendanceId, LocalDateTime departureTime, String idempotencyKey,
+                                       Punctuality departureStatus, Integer departureMinutes) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", attendanceId)
+                .addValue("time", toTimestamp(departureTime), Types.TIMESTAMP)
+                .addValue("key", idempotencyKey, Types.VARCHAR)
+                .addValue("status", nameOf(departureStatus), Types.VARCHAR)
+                .addValue("minutes", departureMinutes, Types.INTEGER);
+        return namedJdbcTemplate.update(
+                "UPDATE attendances SET departure_time = :time, departure_key = :key, "
+                        + "departure_status = :status, departure_minutes = :minutes "
+                        + "WHERE attendance_id = :id AND " + OPEN_ARRIVAL,
+                params) == 1;
+    }
+
+    /**
+     * Insert new attendance rows in a single JDBC batch and assign their generated IDs.
+     *
+     * @param rows the rows to insert (attendanceId must be null)
+     */
+    public void batchInsert(List<AttendanceRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(
+                        "INSERT INTO attendances (staff_id, attendance_date, arrival_time, departure_time, "
+                                + "arrival_key, departure_key, arrival_status, late_minutes, departure_status, "
+                                + "departure_minutes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        AttendanceRow row = rows.get(i);
+                        ps.setLong(1, row.getStaffId());
+                        ps.setObject(2, row.getAttendanceDate());
+                        ps.setTimestamp(3, toTimestamp(row.getArrivalTime()));
+                        ps.setTimestamp(4, toTimestamp(row.getDepartureTime()));
+                        ps.setString(5, row.getArrivalKey());
+                        ps.setString(6, row.getDepartureKey());
+                        setPunctuality(ps, 7, row);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < rows.size() && i < keys.size(); i++) {
+            Object key = keys.get(i).values().iterator().next();
+            rows.get(i).setAttendanceId(((Number) key).longValue());
+        }
+    }
+
+    /**
+     * Update the arrival and departure times (with their idempotency keys and punctuality) of existing
+     * attendance rows in a single JDBC batch.
+     * Rows are read without departure before they are updated: a row that got a departure meanwhile
+     * (written by another punch path or instance) is left unchanged.
+     *
+     * @param rows the rows to update (attendanceId must be set)
+     * @return false if a row was left unchanged
+     */
+    public boolean batchUpdateTimes(List<AttendanceRow> rows) {
+        if (rows.isEmpty()) {
+            return true;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+                "UPDATE attendances SET arrival_time = ?, departure_time = ?, arrival_key = ?, departure_key = ?, "
+                        + "arrival_status = ?, late_minutes = ?, departure_status = ?, departure_minutes = ? "
+                        + "WHERE attendance_id = ? AND departure_time IS NULL",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        AttendanceRow row = rows.get(i);
+                        ps.setTimestamp(1, toTimestamp(row.getArrivalTime()));
+                        ps.setTimestamp(2, toTimestamp(row.getDepartureTime()));
+                        ps.setString(3, row.getArrivalKey());
+                        ps.setString(4, row.getDepartureKey());
+                        setPunctuality(ps, 5, row);
+                        ps.setLong(9, row.getAttendanceId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+        // Drivers rewriting the batch report SUCCESS_NO_INFO instead of a count
+        return Arrays.stream(counts).allMatch(count -> count == 1 || count == Statement.SUCCESS_NO_INFO);
+    }
+
+    /**
+     * Apply a punch in a single statement, relying on the unique (staff_id, attendance_date) key:
+     * - no attendance for the day: insert it with the punch as arrival
+     * - arrival set, departure not set: set the punch as departure
+     * - otherwise (attendance complete, or the same key already recorded as arrival): no change
+     * The caller reads the row back to find out which transition happened.
+     *
+     * @param staffId the staff user ID
+     * @param attendanceDate the attendance date
+     * @param attendanceTime the punch time
+     * @param idempotencyKey the idempotency key of the punch (may be null)
+     * @param asArrival punctuality of the punch if it is recorded as the arrival
+     * @param asDeparture punctuality of the punch if it is recorded as the departure
+     */
+    public void upsertPunch(Long staffId, LocalDate attendanceDate, LocalDateTime attendanceTime,
+                            String idempotencyKey, PunchPunctuality asArrival, PunchPunctuality asDeparture) {
+        // departure_time is assigned last, so every condition still sees the old departure_time
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("staffId", staffId)
+                .addValue("date", attendanceDate)
+                .addValue("time", toTimestamp(attendanceTime), Types.TIMESTAMP)
+                .addValue("key", idempotencyKey, Types.VARCHAR)
+                .addValue("arrivalStatus", nameOf(asArrival.status()), Types.VARCHAR)
+                .addValue("lateMinutes", asArrival.minutes(), Types.INTEGER)
+                .addValue("departureStatus", nameOf(asDeparture.status()), Types.VARCHAR)
+                .addValue("departureMinutes", asDeparture.minutes(), Types.INTEGER);
+        namedJdbcTemplate.update(
+                "INSERT INTO attendances (staff_id, attendance_date, arrival_time, arrival_key, "
+                        + "arrival_status, late_minutes) "
+                        + "VALUES (:staffId, :date, :time, :key, :arrivalStatus, :lateMinutes) "
+                        + "ON DUPLICATE KEY UPDATE "
+                        + "departure_key = CASE WHEN " + OPEN_ARRIVAL + " THEN :key ELSE departure_key END, "
+                        + "departure_status = CASE WHEN " + OPEN_ARRIVAL
+                        + " THEN :departureStatus ELSE departure_status END, "
+                        + "departure_minutes = CASE WHEN " + OPEN_ARRIVAL
+                        + " THEN :departureMinutes ELSE departure_minutes END, "
+                        + "departure_time = CASE WHEN " + OPEN_ARRIVAL + " THEN :time ELSE departure_time END",
+                params);
+    }
+
+    /**
+     * Find the attendance rows with a punch that has no punctuality yet, in attendance ID order.
+     *
+     * @param afterId only rows with a greater attendance ID
+     * @param limit maximum number of rows
+     * @return the unclassified rows
+     */
+    public List<AttendanceRow> findUnclassifiedRows(long afterId, int limit) {
+        return jdbcTemplate.query(
+                ATTENDANCE_COLUMNS + "WHERE attendance_id > ? "
+                        + "AND ((arrival_time IS NOT NULL AND arrival_status IS NULL) "
+                        + "OR (departure_time IS NOT NULL AND departure_status IS NULL)) "
+                        + "ORDER BY attendance_id LIMIT ?",
+                (rs, rowNum) -> toAttendanceRow(rs),
+                afterId, limit);
+    }
+
+    /**
+     * Store the punctuality of attendance rows in a single JDBC batch, only where it is still missing:
+     * a punctuality written meanwhile by a punch is kept.
+     *
+     * @param rows the classified rows (attendanceId must be set)
+     */
+    public void batchFillPunctuality(List<AttendanceRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        // The minutes are assigned before their status, which MySQL would otherwise already see updated
+        jdbcTemplate.batchUpdate(
+                "UPDATE attendances SET "
+                        + "late_minutes = CASE WHEN arrival_status IS NULL THEN ? ELSE late_minutes END, "
+                        + "arrival_status = COALESCE(arrival_status, ?), "
+                        + "departure_minutes = CASE WHEN departure_status IS NULL THEN ? ELSE departure_minutes END, "
+                        + "departure_status = COALESCE(departure_status, ?) "
+                        + "WHERE attendance_id = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        AttendanceRow row = rows.get(i);
+                        ps.setObject(1, row.getLateMinutes(), Types.INTEGER);
+                        ps.setString(2, nameOf(row.getArrivalStatus()));
+                        ps.setObject(3, row.getDepartureMinutes(), Types.INTEGER);
+                        ps.setString(4, nameOf(row.getDepartureStatus()));
+                        ps.setLong(5, row.getAttendanceId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+    }
+
+    /**
+     * Find the attendance of a staff on a date.
+     *
+     * @param staffId the staff user ID
+     * @param attendanceDate the attendance date
+     * @return the attendance row, if present
+     */
+    public Optional<AttendanceRow> findAttendanceRow(Long staffId, LocalDate attendanceDate) {
+        return jdbcTemplate.query(
+                ATTENDANCE_COLUMNS + "WHERE staff_id = ? AND attendance_date = ? ORDER BY attendance_id",
+                (rs, rowNum) -> toAttendanceRow(rs),
+                staffId, attendanceDate).stream().findFirst();
+    }
+
+    /**
+     * Find the attendance rows on which punches with the given idempotency keys were recorded
+     * (as arrival or departure).
+     *
+     * @param idempotencyKeys the idempotency keys
+     * @return the matching attendance rows
+     */
+    public List<AttendanceRow> findAttendanceRowsByKeys(Collection<String> idempotencyKeys) {
+        List<AttendanceRow> rows = new ArrayList<>();
+        for (List<String> chunk : chunk(idempotencyKeys)) {
+            rows.addAll(namedJdbcTemplate.query(
+                    ATTENDANCE_COLUMNS + "WHERE arrival_key IN (:keys) OR departure_key IN (:keys)",
+                    new MapSqlParameterSource("keys", chunk),
+                    (rs, rowNum) -> toAttendanceRow(rs)));
+        }
+        return rows;
+    }
+
+    /**
+     * Find the attendance on which a punch with the given idempotency key was recorded.
+     *
+     * @param idempotencyKey the idempotency key
+     * @return the attendance row, if present
+     */
+    public Optional<AttendanceRow> findAttendanceRowByKey(String idempotencyKey) {
+        return jdbcTemplate.query(
+                ATTENDANCE_COLUMNS + "WHERE arrival_key = ? OR departure_key = ?",
+                (rs, rowNum) -> toAttendanceRow(rs),
+                idempotencyKey, idempotencyKey).stream().findFirst();
+    }
+
+    private static AttendanceRow toAttendanceRow(ResultSet rs) throws SQLException {
+        return new AttendanceRow(
+                rs.getLong("attendance_id"),
+                rs.getLong("staff_id"),
+                rs.getObject("attendance_date", LocalDate.class),
+                rs.getObject("arrival_time", LocalDateTime.class),
+                rs.getObject("departure_time", LocalDateTime.class),
+                rs.getString("arrival_key"),
+                rs.getString("departure_key"),
+                toPunctuality(rs.getString("arrival_status")),
+                rs.getObject("late_minutes", Integer.class),
+                toPunctuality(rs.getString("departure_status")),
+                rs.getObject("departure_minutes", Integer.class));
+    }
+
+    private static void setPunctuality(PreparedStatement ps, int index, AttendanceRow row) throws SQLException {
+        ps.setString(index, nameOf(row.getArrivalStatus()));
+        ps.setObject(index + 1, row.getLateMinutes(), Types.INTEGER);
+        ps.setString(index + 2, nameOf(row.getDepartureStatus()));
+        ps.setObject(index + 3, row.getDepartureMinutes(), Types.INTEGER);
+    }
+
+    private static Punctuality toPunctuality(String name) {
+        return name != null ? Punctuality.valueOf(name) : null;
+    }
+
+    private static String nameOf(Punctuality punctuality) {
+        return punctuality != null ? punctuality.name() : null;
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+
+    private static <T> List<List<T>> chunk(Collection<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> current = new ArrayList<>(Math.min(values.size(), IN_CLAUSE_CHUNK));
+        for (T value : values) {
+            current.add(value);
+            if (current.size() == IN_CLAUSE_CHUNK) {
+                chunks.add(current);
+                current = new ArrayList<>(IN_CLAUSE_CHUNK);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * Mutable view of a single attendance row.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AttendanceRow {
+        private Long attendanceId;
+        private Long staffId;
+        private LocalDate attendanceDate;
+        private LocalDateTime arrivalTime;
+        private LocalDateTime departureTime;
+        private String arrivalKey;
+        private String departureKey;
+        private Punctuality arrivalStatus;
+        private Integer lateMinutes;
+        private Punctuality departureStatus;
+        private Integer departureMinutes;
+
+        /**
+         * A row without punctuality (set by PunctualityClassifier before it is written).
+         */
+        public AttendanceRow(Long attendanceId, Long staffId, LocalDate attendanceDate, LocalDateTime arrivalTime,
+                             LocalDateTime departureTime, String arrivalKey, String departureKey) {
+            this(attendanceId, staffId, attendanceDate, arrivalTime, departureTime, arrivalKey, departureKey,
+                    null, null, null, null);
+        }
+    }
+
+    /**
+     * Punctuality of a punch: its status and minutes late, early or in overtime.
+     */
+    public record PunchPunctuality(Punctuality status, Integer minutes) {
+
+        /** No punch, nothing to classify. */
+        public static final PunchPunctuality NONE = new PunchPunctuality(null, null);
+    }
+}
@@ -1,15 +1,34 @@
 package isj.group4.fingerprintmanagement.repository;
 
+import isj.group4.fingerprintmanagement.dto.AttendanceResponseDTO;
 import isj.group4.fingerprintmanagement.entity.Attendance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AttendanceRepo extends JpaRepository<Attendance,Long> {
+
+    /**
+     * Select clause of the AttendanceResponseDTO projections: one join of attendances, users/staff
+     * and departments, reading only the columns of the DTO, with the status computed by the database.
+     * No Attendance or Staff entity (nor their eager associations) is loaded.
+     */
+    String RESPONSE_DTO = "SELECT new isj.group4.fingerprintmanagement.dto.AttendanceResponseDTO("
+            + "a.attendanceId, a.attendanceDate, a.arrivalTime, a.departureTime, "
+            + "s.userId, s.name, s.surname, s.email, d.dpmtId, d.dpmtName, "
+            + "CASE WHEN a.arrivalTime IS NOT NULL AND a.departureTime IS NOT NULL THEN 'COMPLETE' "
+            + "WHEN a.arrivalTime IS NOT NULL THEN 'ARRIVAL_RECORDED' "
+            + "ELSE 'INCOMPLETE' END, "
+            + "a.arrivalStatus, a.lateMinutes, a.departureStatus, a.departureMinutes) "
+            + "FROM Attendance a JOIN a.staff s LEFT JOIN s.department d ";
+
     List<Attendance> findAttendancesByStaffUserId(Long staffUserId);
 
     List<Attendance> findAttendancesByAttendanceDate(LocalDate attendanceDate);
@@ -23,4 +42,43 @@ public interface AttendanceRepo extends JpaRepository<Attendance,Long> {
     List<Attendance> findAttendancesByStaff_Department_DpmtId(Long staffDepartmentDpmtId);
 
     Attendance findByAttendanceId(Long attendanceId);
+
+    Optional<Attendance> findFirstByArrivalKeyOrDepartureKey(String arrivalKey, String departureKey);
+
+    /**
+     * Find attendance by ID, as a response DTO.
+     */
+    @Query(RESPONSE_DTO + "WHERE a.attendanceId = :attendanceId")
+    Optional<AttendanceResponseDTO> findResponseById(@Param("attendanceId") Long attendanceId);
+
+    /**
+     * Find all attendances, as response DTOs.
+     */
+    @Query(RESPONSE_DTO + "ORDER BY a.attendanceId")
+    List<AttendanceResponseDTO> findAllResponses();
+
+    /**
+     * Find the attendances of a date, as response DTOs.
+     */
+    @Query(RESPONSE_DTO + "WHERE a.attendanceDate = :attendanceDate ORDER BY a.attendanceId")
+    List<AttendanceResponseDTO> findResponsesByDate(@Param("attendanceDate") LocalDate attendanceDate);
+
+    /**
+     * Find the attendances of a staff, as response DTOs.
+     */
+    @Query(RESPONSE_DTO + "WHERE s.userId = :staffId ORDER BY a.attendanceId")
+    List<AttendanceResponseDTO> findResponsesByStaff(@Param("staffId") Long staffId);
+
+    /**
+     * Find the attendance of a staff on a date, as response DTOs.
+     */
+    @Query(RESPONSE_DTO + "WHERE s.userId = :staffId AND a.attendanceDate = :attendanceDate ORDER BY a.attendanceId")
+    List<AttendanceResponseDTO> findResponsesByStaffAndDate(@Param("staffId") Long staffId,
+                                                            @Param("attendanceDate") LocalDate attendanceDate);
+
+    /**
+     * Find the attendances of the staff of a department, as response DTOs.
+     */
+    @Query(RESPONSE_DTO + "WHERE d.dpmtId = :departmentId ORDER BY a.attendanceId")
+    List<AttendanceResponseDTO> findResponsesByDepartment(@Param("departmentId") Long departmentId);
 }
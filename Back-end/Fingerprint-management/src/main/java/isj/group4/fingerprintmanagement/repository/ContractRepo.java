@@ -1,7 +1,10 @@
 package isj.group4.fingerprintmanagement.repository;
 
 import isj.group4.fingerprintmanagement.entity.Contract;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -9,10 +12,12 @@ import java.util.List;
 
 @Repository
 public interface ContractRepo extends JpaRepository<Contract,Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Contract findByContractId(Long contractId);
 
     List<Contract> findContractsByNoDaysPerWeek(Integer noDaysPerWeek);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Contract findContractByStaff_UserId(Long staffUserId);
 
     List<Contract> findContractsByStaff_Department_DpmtId(Long staffDepartmentDpmtId);
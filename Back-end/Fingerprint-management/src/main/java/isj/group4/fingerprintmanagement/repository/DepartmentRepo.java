@@ -1,8 +1,12 @@
 package isj.group4.fingerprintmanagement.repository;
 
+import isj.group4.fingerprintmanagement.dto.DepartmentResponseDTO;
 import isj.group4.fingerprintmanagement.entity.Department;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,6 +16,19 @@ import java.util.Optional;
 @Repository
 public interface DepartmentRepo extends JpaRepository<Department, Long> {
 
+    /**
+     * Select clause of the DepartmentResponseDTO projections: the staff counts of each department
+     * in one grouped join (active staff by conditional aggregation) and the report count from a
+     * correlated subquery, without loading any staff or report.
+     */
+    String RESPONSE_DTO = "SELECT new isj.group4.fingerprintmanagement.dto.DepartmentResponseDTO("
+            + "d.dpmtId, d.dpmtName, CAST(COUNT(s) AS Integer), "
+            + "CAST(SUM(CASE WHEN s.active = true THEN 1 ELSE 0 END) AS Integer), "
+            + "CAST((SELECT COUNT(r) FROM Report r WHERE r.department = d) AS Integer)) "
+            + "FROM Department d LEFT JOIN d.staff s ";
+
+    String GROUP_BY = "GROUP BY d.dpmtId, d.dpmtName ";
+
     /**
      * Find all departments.
      */
@@ -19,13 +36,15 @@ public interface DepartmentRepo extends JpaRepository<Department, Long> {
     List<Department> findAll();
 
     /**
-     * Find department by ID.
+     * Find department by ID, cached in the query cache.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Department> findByDpmtId(Long dpmtId);
 
     /**
-     * Find department by name.
+     * Find department by name, cached in the query cache.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Department> findByDpmtName(String dpmtName);
 
     /**
@@ -49,4 +68,41 @@ public interface DepartmentRepo extends JpaRepository<Department, Long> {
      */
     @Query("SELECT d FROM Department d WHERE d.staff IS EMPTY")
     List<Department> findEmptyDepartments();
+
+    /**
+     * Find department by ID, as a response DTO with statistics.
+     */
+    @Query(RESPONSE_DTO + "WHERE d.dpmtId = :dpmtId " + GROUP_BY)
+    Optional<DepartmentResponseDTO> findResponseByDpmtId(@Param("dpmtId") Long dpmtId);
+
+    /**
+     * Find department by name, as a response DTO with statistics.
+     */
+    @Query(RESPONSE_DTO + "WHERE d.dpmtName = :dpmtName " + GROUP_BY)
+    Optional<DepartmentResponseDTO> findResponseByDpmtName(@Param("dpmtName") String dpmtName);
+
+    /**
+     * Find all departments, as response DTOs with statistics.
+     */
+    @Query(RESPONSE_DTO + GROUP_BY + "ORDER BY d.dpmtId")
+    List<DepartmentResponseDTO> findAllResponses();
+
+    /**
+     * Find departments by name containing (case-insensitive search), as response DTOs with statistics.
+     */
+    @Query(RESPONSE_DTO + "WHERE LOWER(d.dpmtName) LIKE LOWER(CONCAT('%', :namePart, '%')) "
+            + GROUP_BY + "ORDER BY d.dpmtId")
+    List<DepartmentResponseDTO> findResponsesByDpmtNameContaining(@Param("namePart") String namePart);
+
+    /**
+     * Find departments with staff, as response DTOs with statistics.
+     */
+    @Query(RESPONSE_DTO + GROUP_BY + "HAVING COUNT(s) > 0 ORDER BY d.dpmtId")
+    List<DepartmentResponseDTO> findResponsesWithStaff();
+
+    /**
+     * Find empty departments (no staff), as response DTOs with statistics.
+     */
+    @Query(RESPONSE_DTO + GROUP_BY + "HAVING COUNT(s) = 0 ORDER BY d.dpmtId")
+    List<DepartmentResponseDTO> findEmptyResponses();
 }
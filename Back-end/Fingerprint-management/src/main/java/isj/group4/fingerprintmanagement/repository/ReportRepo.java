@@ -11,4 +11,6 @@ public interface ReportRepo extends JpaRepository<Report,Long> {
     Report findByReportId(Long reportId);
 
     List<Report> findReportsByDepartment_DpmtId(Long departmentDpmtId);
+
+    long countByDepartment_DpmtId(Long departmentDpmtId);
 }
@@ -0,0 +1,25 @@
+package isj.group4.fingerprintmanagement.repository;
+
+import isj.group4.fingerprintmanagement.entity.RosterTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RosterTombstoneRepo extends JpaRepository<RosterTombstone, Long> {
+
+    /**
+     * Find the IDs of staff deleted in a revision range.
+     */
+    @Query("SELECT t.staffId FROM RosterTombstone t WHERE t.revision > :since AND t.revision <= :upTo")
+    List<Long> findStaffIdsDeletedBetween(@Param("since") long since, @Param("upTo") long upTo);
+
+    /**
+     * Find the highest revision of a deletion.
+     */
+    @Query("SELECT MAX(t.revision) FROM RosterTombstone t")
+    Long findMaxRevision();
+}
@@ -0,0 +1,81 @@
+package isj.group4.fingerprintmanagement.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access to the staff roster (users, staff, departments and contracts in one row).
+ * Used to keep the in-memory roster of the punch path without hydrating Staff entities.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StaffJdbcRepo {
+
+    private static final String ROSTER = "SELECT u.user_id, u.name, u.surname, u.email, u.active, "
+            + "d.dpmt_id, d.dpmt_name, c.start_time, c.end_time "
+            + "FROM staff s "
+            + "JOIN users u ON u.user_id = s.user_id "
+            + "LEFT JOIN departments d ON d.dpmt_id = s.department_id "
+            + "LEFT JOIN contracts c ON c.staff_id = s.user_id ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the roster row of every staff
+     */
+    public List<RosterRow> findAllRosterRows() {
+        return jdbcTemplate.query(ROSTER, (rs, rowNum) -> toRosterRow(rs));
+    }
+
+    /**
+     * @param staffId the staff user ID
+     * @return the roster row of the staff, if it exists
+     */
+    public Optional<RosterRow> findRosterRow(Long staffId) {
+        return jdbcTemplate.query(ROSTER + "WHERE s.user_id = ?", (rs, rowNum) -> toRosterRow(rs), staffId)
+                .stream().findFirst();
+    }
+
+    /**
+     * @param departmentId the department ID
+     * @return the roster rows of the staff of the department
+     */
+    public List<RosterRow> findRosterRowsByDepartment(Long departmentId) {
+        return jdbcTemplate.query(ROSTER + "WHERE s.department_id = ?", (rs, rowNum) -> toRosterRow(rs),
+                departmentId);
+    }
+
+    private static RosterRow toRosterRow(ResultSet rs) throws SQLException {
+        Timestamp start = rs.getTimestamp("start_time");
+        Timestamp end = rs.getTimestamp("end_time");
+        return new RosterRow(
+                rs.getLong("user_id"),
+                rs.getString("name"),
+                rs.getString("surname"),
+                rs.getString("email"),
+                !Boolean.FALSE.equals(rs.getObject("active", Boolean.class)),
+                rs.getObject("dpmt_id", Long.class),
+                rs.getString("dpmt_name"),
+                start != null ? start.toLocalDateTime().toLocalTime() : null,
+                end != null ? end.toLocalDateTime().toLocalTime() : null);
+    }
+
+    /**
+     * Immutable roster entry of a staff: what the punch path needs to validate a punch and build its response.
+     *
+     * @param contractStart contract start time of day (null without contract)
+     * @param contractEnd contract end time of day (null without contract)
+     */
+    public record RosterRow(long staffId, String name, String surname, String email, boolean active,
+                            Long departmentId, String departmentName,
+                            LocalTime contractStart, LocalTime contractEnd) {
+    }
+}
@@ -1,18 +1,37 @@
 package isj.group4.fingerprintmanagement.repository;
 
+import isj.group4.fingerprintmanagement.dto.RosterEntryDTO;
+import isj.group4.fingerprintmanagement.dto.StaffResponseDTO;
 import isj.group4.fingerprintmanagement.entity.Staff;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface StaffRepo extends JpaRepository<Staff, Long> {
-    
+
+    /**
+     * Select clause of the StaffResponseDTO projections: staff, department and contract in one join,
+     * without loading any attendance or the other associations of the staff.
+     * The attendance count is the sum of the staff's monthly totals (attendance_monthly_staff, one row
+     * per month with attendances) rather than a count of the attendances: every attendance has an
+     * arrival, so both are equal once the changes are flushed, i.e. the count can be up to
+     * attendance.aggregates.flush-interval-ms behind a punch.
+     */
+    String RESPONSE_DTO = "SELECT new isj.group4.fingerprintmanagement.dto.StaffResponseDTO("
+            + "s.userId, s.name, s.surname, s.email, s.role, s.active, s.noAbsence, d.dpmtId, d.dpmtName, "
+            + "c.contractId, CASE WHEN c.contractId IS NOT NULL THEN 'Active' ELSE 'No Contract' END, "
+            + "CAST(COALESCE((SELECT SUM(m.presentCount) FROM MonthlyStaffAttendance m "
+            + "WHERE m.staffId = s.userId), 0) AS Integer)) "
+            + "FROM Staff s LEFT JOIN s.department d LEFT JOIN s.contract c ";
+
     /**
      * Find all staff members.
      */
@@ -66,4 +85,78 @@ public interface StaffRepo extends JpaRepository<Staff, Long> {
     long countByDepartment_DpmtId(Long departmentId);
 
     List<Staff> findStaffByContract_ContractDate(LocalDate contractContractDate);
+
+    /**
+     * Find the compact roster entries of staff changed in a revision range.
+     */
+    @Query("SELECT new isj.group4.fingerprintmanagement.dto.RosterEntryDTO("
+            + "s.userId, s.name, s.surname, d.dpmtId, d.dpmtName, s.active, f.fingerCode, s.rosterRevision) "
+            + "FROM Staff s LEFT JOIN s.department d LEFT JOIN s.fingerprint f "
+            + "WHERE s.rosterRevision > :since AND s.rosterRevision <= :upTo "
+            + "AND (:activeOnly = false OR s.active = true) "
+            + "ORDER BY s.rosterRevision, s.userId")
+    List<RosterEntryDTO> findRosterEntries(@Param("since") long since, @Param("upTo") long upTo,
+                                           @Param("activeOnly") boolean activeOnly);
+
+    /**
+     * Find the highest roster revision.
+     */
+    @Query("SELECT MAX(s.rosterRevision) FROM Staff s")
+    Long findMaxRosterRevision();
+
+    /**
+     * Give a roster revision to staff that have none (created before roster sync existed).
+     */
+    @Modifying
+    @Query("UPDATE Staff s SET s.rosterRevision = :revision WHERE s.rosterRevision IS NULL")
+    int assignMissingRosterRevision(@Param("revision") long revision);
+
+    /**
+     * Mark all staff of a department as changed.
+     */
+    @Modifying
+    @Query("UPDATE Staff s SET s.rosterRevision = :revision WHERE s.department.dpmtId = :departmentId")
+    int updateRosterRevisionByDepartment(@Param("departmentId") Long departmentId, @Param("revision") long revision);
+
+    /**
+     * Find staff by user ID, as a response DTO.
+     */
+    @Query(RESPONSE_DTO + "WHERE s.userId = :userId")
+    Optional<StaffResponseDTO> findResponseByUserId(@Param("userId") Long userId);
+
+    /**
+     * Find staff by email, as a response DTO.
+     */
+    @Query(RESPONSE_DTO + "WHERE s.email = :email")
+    Optional<StaffResponseDTO> findResponseByEmail(@Param("email") String email);
+
+    /**
+     * Find all staff members, as response DTOs.
+     */
+    @Query(RESPONSE_DTO + "ORDER BY s.userId")
+    List<StaffResponseDTO> findAllResponses();
+
+    /**
+     * Find the given staff members, as response DTOs.
+     */
+    @Query(RESPONSE_DTO + "WHERE s.userId IN :userIds ORDER BY s.userId")
+    List<StaffResponseDTO> findResponsesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Find active staff members only, as response DTOs.
+     */
+    @Query(RESPONSE_DTO + "WHERE s.active = true ORDER BY s.userId")
+    List<StaffResponseDTO> findActiveResponses();
+
+    /**
+     * Find all staff in a specific department, as response DTOs.
+     */
+    @Query(RESPONSE_DTO + "WHERE d.dpmtId = :deptId ORDER BY s.userId")
+    List<StaffResponseDTO> findResponsesByDepartment(@Param("deptId") Long departmentId);
+
+    /**
+     * Find active staff in a specific department, as response DTOs.
+     */
+    @Query(RESPONSE_DTO + "WHERE d.dpmtId = :deptId AND s.active = true ORDER BY s.userId")
+    List<StaffResponseDTO> findActiveResponsesByDepartment(@Param("deptId") Long departmentId);
 }
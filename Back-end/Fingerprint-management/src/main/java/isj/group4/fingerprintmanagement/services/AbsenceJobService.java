@@ -0,0 +1,254 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.AbsenceJobRunDTO;
+import isj.group4.fingerprintmanagement.entity.AbsenceJobRun.JobType;
+import isj.group4.fingerprintmanagement.repository.AbsenceJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.AbsenceJdbcRepo.AbsenceCandidate;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains Staff.noAbsence, the absence count of the current month.
+ *
+ * Every night the absence detection of the previous day adds one absence to each active staff
+ * who had to work that day and has no arrival. A staff works the first noDaysPerWeek days of the
+ * week (Monday first) of its contract, or attendance.absence.default-days-per-week days without
+ * contract. On the first night of a month the counts are reset (before the days of the new month
+ * are checked).
+ *
+ * Both jobs read the staff to change with one query and update them set-based, one UPDATE per
+ * batch of staff IDs, in a single transaction with their row in the absence_job_runs ledger:
+ * a job runs at most once per date, and a failed run leaves nothing behind and can run again.
+ */
+@Service
+@Log4j2
+public class AbsenceJobService {
+
+    private final AbsenceJdbcRepo absenceJdbcRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final DirectoryCache directoryCache;
+    private final int defaultDaysPerWeek;
+    private final int catchUpDays;
+
+    public AbsenceJobService(AbsenceJdbcRepo absenceJdbcRepo, TransactionTemplate transactionTemplate,
+                             DirectoryCache directoryCache,
+                             @Value("${attendance.absence.default-days-per-week:5}") int defaultDaysPerWeek,
+                             @Value("${attendance.absence.catch-up-days:7}") int catchUpDays) {
+        this.absenceJdbcRepo = absenceJdbcRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.directoryCache = directoryCache;
+        this.defaultDaysPerWeek = Math.max(1, Math.min(7, defaultDaysPerWeek));
+        this.catchUpDays = Math.max(1, catchUpDays);
+    }
+
+    /**
+     * Detect the absences of the days not checked yet (at most attendance.absence.catch-up-days
+     * days back, up to yesterday), resetting the counts when a new month starts.
+     */
+    @Scheduled(cron = "${attendance.absence.cron:0 30 0 * * *}")
+    public void runNightly() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        try {
+            LocalDate from = yesterday.minusDays(catchUpDays - 1L);
+            LocalDate lastChecked = absenceJdbcRepo.findLatestRunDate(JobType.DETECTION).orElse(null);
+            if (lastChecked == null) {
+                from = yesterday;
+            } else if (!lastChecked.isBefore(from)) {
+                from = lastChecked.plusDays(1);
+            }
+            for (LocalDate date = from; !date.isAfter(yesterday); date = date.plusDays(1)) {
+                resetIfNewMonth(YearMonth.from(date));
+                try {
+                    detectAbsences(date);
+                } catch (IllegalStateException e) {
+                    log.warn("Absences of {} not detected: {}", date, e.getMessage());
+                }
+            }
+            resetIfNewMonth(YearMonth.now());
+        } catch (DataAccessException e) {
+            log.error("Nightly absence job failed, it runs again next night: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reset the counts for a month if the current period (since the last reset, or the first
+     * detection if the counts were never reset) started in an earlier month. Counts found when
+     * the job first runs belong to the current month: they are kept until the next one.
+     */
+    private void resetIfNewMonth(YearMonth month) {
+        LocalDate periodStart = absenceJdbcRepo.findLatestRunDate(JobType.RESET)
+                .or(() -> absenceJdbcRepo.findLatestRunDate(JobType.DETECTION))
+                .orElse(null);
+        if (periodStart != null && YearMonth.from(periodStart).isBefore(month)) {
+            resetAbsences(month);
+        }
+    }
+
+    /**
+     * Detect the absences of a day (from a request).
+     *
+     * @param date the day (yyyy-MM-dd, null for yesterday)
+     * @return the outcome of the detection
+     * @throws IllegalArgumentException if the date is invalid, today or in the future
+     * @throws IllegalStateException if the month of the date was already closed by a reset
+     */
+    public AbsenceJobRunDTO detectAbsences(String date) {
+        return detectAbsences(date != null ? parseDate(date) : LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Add one absence to each active staff who had to work on a day and has no arrival.
+     * Nothing is changed if the absences of that day were already detected.
+     *
+     * @param date the day
+     * @return the outcome of the detection
+     * @throws IllegalArgumentException if the date is today or in the future
+     * @throws IllegalStateException if the month of the date was already closed by a reset
+     */
+    public AbsenceJobRunDTO detectAbsences(LocalDate date) {
+        if (!date.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Absences can only be detected for a past day");
+        }
+        LocalDate periodStart = absenceJdbcRepo.findLatestRunDate(JobType.RESET).orElse(null);
+        if (periodStart != null && date.isBefore(periodStart)) {
+            throw new IllegalStateException("Absence counts were reset on " + periodStart
+                    + ", absences of " + date + " can no longer be counted");
+        }
+
+        long start = System.nanoTime();
+        int[] expected = new int[1];
+        Integer absent = transactionTemplate.execute(status -> {
+            if (!absenceJdbcRepo.claimRun(JobType.DETECTION, date)) {
+                return null;
+            }
+            List<Long> absentStaff = new ArrayList<>();
+            for (AbsenceCandidate candidate : absenceJdbcRepo.findActiveStaffWithoutArrival(date)) {
+                if (isWorkingDay(candidate, date)) {
+                    absentStaff.add(candidate.staffId());
+                }
+            }
+            expected[0] = absentStaff.size();
+            int updated = absenceJdbcRepo.incrementAbsences(absentStaff);
+            directoryCache.absencesChanged(absentStaff);
+            absenceJdbcRepo.completeRun(JobType.DETECTION, date, updated, LocalDateTime.now());
+            return updated;
+        });
+        if (absent == null) {
+            log.info("Absences of {} already detected", date);
+            return alreadyRun(JobType.DETECTION, date);
+        }
+        log.info("Absences of {} detected: {} staff absent in {} ms", date, absent,
+                (System.nanoTime() - start) / 1_000_000);
+        return AbsenceJobRunDTO.builder()
+                .jobType(JobType.DETECTION.name())
+                .runDate(date)
+                .affectedStaff(absent)
+                .expectedStaff(expected[0])
+                .executed(true)
+                .completedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Reset the absence counts for a month (from a request).
+     *
+     * @param month the month (yyyy-MM, null for the current month)
+     * @return the outcome of the reset
+     * @throws IllegalArgumentException if the month is invalid or in the future
+     * @throws IllegalStateException if a later month was already reset
+     */
+    public AbsenceJobRunDTO resetAbsences(String month) {
+        if (month == null) {
+            return resetAbsences(YearMonth.now());
+        }
+        try {
+            return resetAbsences(YearMonth.parse(month));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid month format. Use yyyy-MM");
+        }
+    }
+
+    /**
+     * Reset the absence count of every staff at the start of a month.
+     * Nothing is changed if the month was already reset.
+     *
+     * @param month the month starting
+     * @return the outcome of the reset
+     * @throws IllegalArgumentException if the month is in the future
+     * @throws IllegalStateException if a later month was already reset
+     */
+    public AbsenceJobRunDTO resetAbsences(YearMonth month) {
+        if (month.isAfter(YearMonth.now())) {
+            throw new IllegalArgumentException("Cannot reset absences for a future month");
+        }
+        LocalDate monthStart = month.atDay(1);
+        LocalDate lastReset = absenceJdbcRepo.findLatestRunDate(JobType.RESET).orElse(null);
+        if (lastReset != null && lastReset.isAfter(monthStart)) {
+            throw new IllegalStateException("Absence counts were already reset for a later month (" + lastReset + ")");
+        }
+
+        Integer reset = transactionTemplate.execute(status -> {
+            if (!absenceJdbcRepo.claimRun(JobType.RESET, monthStart)) {
+                return null;
+            }
+            List<Long> staffWithAbsences = absenceJdbcRepo.findStaffWithAbsences();
+            int updated = absenceJdbcRepo.resetAbsences(staffWithAbsences);
+            directoryCache.absencesChanged(staffWithAbsences);
+            absenceJdbcRepo.completeRun(JobType.RESET, monthStart, updated, LocalDateTime.now());
+            return updated;
+        });
+        if (reset == null) {
+            log.debug("Absences already reset for {}", month);
+            return alreadyRun(JobType.RESET, monthStart);
+        }
+        log.info("Absences reset for {}: {} staff", month, reset);
+        return AbsenceJobRunDTO.builder()
+                .jobType(JobType.RESET.name())
+                .runDate(monthStart)
+                .affectedStaff(reset)
+                .executed(true)
+                .completedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private boolean isWorkingDay(AbsenceCandidate candidate, LocalDate date) {
+        if (candidate.contractDate() != null && candidate.contractDate().isAfter(date)) {
+            // Contract not started yet
+            return false;
+        }
+        int daysPerWeek = candidate.daysPerWeek() != null
+                ? Math.max(0, Math.min(7, candidate.daysPerWeek()))
+                : defaultDaysPerWeek;
+        return date.getDayOfWeek().getValue() <= daysPerWeek;
+    }
+
+    private AbsenceJobRunDTO alreadyRun(JobType jobType, LocalDate runDate) {
+        AbsenceJobRunDTO.AbsenceJobRunDTOBuilder result = AbsenceJobRunDTO.builder()
+                .jobType(jobType.name())
+                .runDate(runDate)
+                .executed(false);
+        absenceJdbcRepo.findRun(jobType, runDate).ifPresent(run -> result
+                .affectedStaff(run.affectedStaff())
+                .completedAt(run.completedAt()));
+        return result.build();
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format. Use yyyy-MM-dd");
+        }
+    }
+}
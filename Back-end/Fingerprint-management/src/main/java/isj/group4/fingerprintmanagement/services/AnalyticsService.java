@@ -0,0 +1,145 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.AttendanceAnalyticsDTO;
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo.RosterRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service layer for the attendance analytics.
+ * Queries are answered by the in-memory AttendanceCube, without reading the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class AnalyticsService {
+
+    private final AttendanceCube attendanceCube;
+    private final StaffRoster staffRoster;
+
+    /**
+     * Aggregate the attendances of a period, grouped by one dimension.
+     *
+     * @param groupBy department, staff, weekday, arrival_hour, date or month (null for department)
+     * @param from first attendance date, inclusive (null for the start of the cube)
+     * @param to last attendance date, inclusive (null for today)
+     * @param departmentId only attendances of this department (may be null)
+     * @param staffId only attendances of this staff (may be null)
+     * @return the totals of each group
+     * @throws IllegalArgumentException if the dimension or a date is invalid, from is after to,
+     *         or from is before the start of the cube
+     * @throws IllegalStateException if the cube is disabled or not loaded yet
+     */
+    public AttendanceAnalyticsDTO getAttendanceAnalytics(String groupBy, String from, String to,
+                                                         Long departmentId, Long staffId) {
+        LocalDate windowStart = attendanceCube.getWindowStart();
+        if (windowStart == null) {
+            throw new IllegalStateException("Attendance analytics are not available (cube disabled or loading)");
+        }
+        AttendanceCube.Dimension dimension = parseDimension(groupBy);
+        LocalDate fromDate = from != null ? parseDate(from) : windowStart;
+        LocalDate toDate = to != null ? parseDate(to) : LocalDate.now();
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (fromDate.isBefore(windowStart)) {
+            throw new IllegalArgumentException("Analytics cover the attendances from " + windowStart
+                    + ", use /api/attendance/export for older periods");
+        }
+
+        long start = System.nanoTime();
+        Map<Long, long[]> totals = attendanceCube.query(fromDate, toDate, departmentId, staffId, dimension);
+        double queryMillis = Math.round((System.nanoTime() - start) / 10_000.0) / 100.0;
+        log.debug("Attendance analytics by {} from {} to {}: {} groups in {} ms", dimension, fromDate, toDate,
+                totals.size(), queryMillis);
+
+        List<AttendanceAnalyticsDTO.GroupDTO> groups = new ArrayList<>(totals.size());
+        new TreeMap<>(totals).forEach((key, group) -> groups.add(toGroupDTO(dimension, key, group)));
+        return AttendanceAnalyticsDTO.builder()
+                .groupBy(dimension.name().toLowerCase(Locale.ROOT))
+                .from(fromDate)
+                .to(toDate)
+                .queryMillis(queryMillis)
+                .groups(groups)
+                .build();
+    }
+
+    private AttendanceAnalyticsDTO.GroupDTO toGroupDTO(AttendanceCube.Dimension dimension, long key, long[] totals) {
+        long present = totals[AttendanceCube.PRESENT];
+        long complete = totals[AttendanceCube.COMPLETE];
+        long workedMinutes = totals[AttendanceCube.WORKED_MINUTES];
+        String averageArrival = null;
+        if (present > 0) {
+            long minutes = Math.round((double) totals[AttendanceCube.ARRIVAL_MINUTES] / present);
+            averageArrival = String.format("%02d:%02d", minutes / 60, minutes % 60);
+        }
+        return AttendanceAnalyticsDTO.GroupDTO.builder()
+                .key(keyOf(dimension, key))
+                .label(labelOf(dimension, key))
+                .attendances(totals[AttendanceCube.ATTENDANCES])
+                .present(present)
+                .lateArrivals(totals[AttendanceCube.LATE])
+                .lateArrivalRate(present > 0 ? Math.round(totals[AttendanceCube.LATE] * 1000.0 / present) / 10.0 : 0)
+                .averageArrival(averageArrival)
+                .workedMinutes(workedMinutes)
+                .averageWorkedMinutes(complete > 0 ? Math.round((double) workedMinutes / complete) : null)
+                .build();
+    }
+
+    private static String keyOf(AttendanceCube.Dimension dimension, long key) {
+        return switch (dimension) {
+            case WEEKDAY -> DayOfWeek.of((int) key).name();
+            case ARRIVAL_HOUR -> key >= 0 ? String.format("%02d", key) : "none";
+            case DATE -> LocalDate.ofEpochDay(key).toString();
+            case MONTH -> String.format("%d-%02d", key / 100, key % 100);
+            case DEPARTMENT, STAFF -> String.valueOf(key);
+        };
+    }
+
+    private String labelOf(AttendanceCube.Dimension dimension, long key) {
+        return switch (dimension) {
+            case DEPARTMENT -> key == 0 ? "No department" : attendanceCube.departmentName(key);
+            case STAFF -> staffRoster.find(key)
+                    .map(AnalyticsService::fullName)
+                    .orElse("Unknown");
+            default -> null;
+        };
+    }
+
+    private static String fullName(RosterRow staff) {
+        if (staff.name() == null) {
+            return "Unknown";
+        }
+        return (staff.name() + " " + (staff.surname() != null ? staff.surname() : "")).trim();
+    }
+
+    private static AttendanceCube.Dimension parseDimension(String groupBy) {
+        if (groupBy == null) {
+            return AttendanceCube.Dimension.DEPARTMENT;
+        }
+        try {
+            return AttendanceCube.Dimension.valueOf(groupBy.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported groupBy: " + groupBy
+                    + " (use department, staff, weekday, arrival_hour, date or month)");
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format. Use yyyy-MM-dd");
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.repository.AttendanceAggregateJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.AttendanceAggregateJdbcRepo.StaffDay;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the attendance summary tables: the totals of each department per day
+ * (attendance_daily_department) and of each staff per month (attendance_monthly_staff).
+ *
+ * Every attendance write marks its (staff, date) as changed once its transaction has committed.
+ * A scheduled flush recomputes the daily rows of the changed dates and the monthly rows of the
+ * changed staff from the attendances table, so the reports read a few summary rows instead of
+ * scanning the attendances, and are at most one flush interval behind.
+ * The same changes are then applied to the analytics cube (AttendanceCube).
+ * Changed keys are only kept in memory: the current month is rebuilt at startup, and older
+ * periods can be rebuilt on demand (e.g. after attendances were changed directly in the database).
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class AttendanceAggregateService {
+
+    private final AttendanceAggregateJdbcRepo aggregateRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final AttendanceCube attendanceCube;
+    private final PresenceBitmaps presenceBitmaps;
+    private final DirectoryCache directoryCache;
+    private final ResourceVersions resourceVersions;
+
+    // Serializes the recomputations, so two of them never rewrite the same summary rows
+    private final ReentrantLock recomputeLock = new ReentrantLock();
+    private final Set<StaffDay> changed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Mark an attendance as changed once the current transaction has committed.
+     * Its staff is marked present on that day at once (see PresenceBitmaps) and the ETag versions
+     * of the attendances are bumped. The cached response DTO of the staff (with the attendance count,
+     * read from the monthly totals) is evicted by the flush that updates those totals.
+     *
+     * @param staffId the staff user ID
+     * @param attendanceDate the attendance date
+     */
+    public void attendanceChanged(Long staffId, LocalDate attendanceDate) {
+        if (staffId == null || attendanceDate == null) {
+            return;
+        }
+        StaffDay key = new StaffDay(staffId, attendanceDate);
+        afterCommit(() -> {
+            changed.add(key);
+            presenceBitmaps.markPresent(staffId, attendanceDate);
+            resourceVersions.attendanceChanged(attendanceDate);
+        });
+    }
+
+    /**
+     * Mark the attendances of staff about to be deleted as changed once the current transaction
+     * has committed. Must be called before the delete, while the attendances can still be read.
+     *
+     * @param staffIds the staff user IDs
+     */
+    public void staffRemoved(Collection<Long> staffIds) {
+        if (staffIds.isEmpty()) {
+            return;
+        }
+        List<StaffDay> keys = aggregateRepo.findStaffDays(staffIds);
+        afterCommit(() -> changed.addAll(keys));
+    }
+
+    /**
+     * Recompute the summary rows of the attendances changed since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${attendance.aggregates.flush-interval-ms:5000}")
+    public void flush() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        // Keys marked from now on are left for the next flush
+        List<StaffDay> keys = new ArrayList<>();
+        for (Iterator<StaffDay> it = changed.iterator(); it.hasNext(); ) {
+            keys.add(it.next());
+            it.remove();
+        }
+        Set<LocalDate> dates = new TreeSet<>();
+        Set<Long> staffIds = new TreeSet<>();
+        Map<LocalDate, Set<Long>> staffByMonth = new TreeMap<>();
+        for (StaffDay key : keys) {
+            dates.add(key.attendanceDate());
+            staffIds.add(key.staffId());
+            staffByMonth.computeIfAbsent(key.attendanceDate().withDayOfMonth(1), month -> new TreeSet<>())
+                    .add(key.staffId());
+        }
+
+        recomputeLock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                aggregateRepo.recomputeDaily(dates);
+                staffByMonth.forEach((monthStart, monthStaffIds) ->
+                        aggregateRepo.recomputeMonthly(monthStart, monthStaffIds));
+            });
+            log.debug("Attendance aggregates updated: {} dates, {} months", dates.size(), staffByMonth.size());
+        } catch (RuntimeException e) {
+            // Recomputing is idempotent - try again on the next flush. Not only DataAccessException:
+            // a failed commit or connection (TransactionException) must not lose the keys either
+            changed.addAll(keys);
+            log.warn("Attendance aggregates not updated, {} changes kept for the next flush: {}",
+                    keys.size(), e.getMessage());
+            return;
+        } finally {
+            recomputeLock.unlock();
+        }
+        directoryCache.attendanceTotalsChanged(staffIds);
+        attendanceCube.refresh(keys);
+    }
+
+    /**
+     * Rebuild the summary rows of a date range from the attendances table, one month per transaction.
+     * Monthly rows are rebuilt for every month the range touches.
+     *
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive
+     * @return number of months rebuilt
+     * @throws IllegalArgumentException if from is after to
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        int months = 0;
+        recomputeLock.lock();
+        try {
+            for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+                LocalDate monthStart = month.atDay(1);
+                LocalDate dailyFrom = from.isAfter(monthStart) ? from : monthStart;
+                LocalDate dailyTo = to.isBefore(month.atEndOfMonth()) ? to : month.atEndOfMonth();
+                transactionTemplate.executeWithoutResult(status -> {
+                    aggregateRepo.recomputeDaily(dailyFrom, dailyTo);
+                    aggregateRepo.recomputeMonthly(monthStart, null);
+                });
+                months++;
+            }
+        } finally {
+            recomputeLock.unlock();
+            if (months > 0) {
+                directoryCache.attendanceTotalsChanged(null);
+            }
+        }
+        log.info("Attendance aggregates rebuilt from {} to {} ({} months)", from, to, months);
+        return months;
+    }
+
+    /**
+     * Fill the summary tables on first start (from the oldest attendance), otherwise rebuild
+     * the current month, whose changes not flushed before the last shutdown would be missing.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDate today = LocalDate.now();
+        try {
+            LocalDate from = aggregateRepo.isMonthlyEmpty()
+                    ? aggregateRepo.findFirstAttendanceDate().orElse(today)
+                    : today.withDayOfMonth(1);
+            rebuild(from.isAfter(today) ? today : from, today);
+        } catch (DataAccessException | TransactionException e) {
+            log.error("Cannot rebuild the attendance aggregates: {}", e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
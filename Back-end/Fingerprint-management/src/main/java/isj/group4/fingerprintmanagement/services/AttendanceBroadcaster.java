@@ -0,0 +1,323 @@
+package isj.group4.fingerprintmanagement.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import isj.group4.fingerprintmanagement.dto.AttendanceResponseDTO;
+import isj.group4.fingerprintmanagement.dto.StreamStatsDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live feed of recorded punches, sent as Server-Sent Events to the subscribers of
+ * GET /api/attendance/stream (optionally only the punches of one department).
+ *
+ * Each recorded attendance is serialized once, after its transaction has committed, and offered
+ * to the buffer of every matching subscriber (at most attendance.stream.buffer-size events, which
+ * must hold the largest batch of punches). Buffers are written to the clients by a small pool of
+ * sender threads, at most one per subscriber at a time, so the punch itself never waits for a client.
+ * A subscriber whose buffer is full is too slow (or stalled): it is evicted, its stream ends and the
+ * client must reconnect and reload. Heartbeat comments keep idle streams open through proxies, and
+ * find the clients that went away.
+ */
+@Component
+@Log4j2
+public class AttendanceBroadcaster {
+
+    public static final String EVENT_NAME = "attendance";
+
+    private final ObjectMapper objectMapper;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final ExecutorService senders;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberSlots = new AtomicInteger();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final AtomicLong subscribedTotal = new AtomicLong();
+    private final AtomicLong rejectedTotal = new AtomicLong();
+    private final AtomicLong publishedTotal = new AtomicLong();
+    private final AtomicLong deliveredTotal = new AtomicLong();
+    private final AtomicLong evictedTotal = new AtomicLong();
+
+    public AttendanceBroadcaster(ObjectMapper objectMapper,
+                                 @Value("${attendance.stream.max-subscribers:1000}") int maxSubscribers,
+                                 @Value("${attendance.stream.buffer-size:10000}") int bufferSize,
+                                 @Value("${attendance.stream.sender-threads:4}") int senderThreads,
+                                 @Value("${attendance.stream.timeout-ms:1800000}") long timeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.maxSubscribers = Math.max(1, maxSubscribers);
+        this.bufferSize = Math.max(1, bufferSize);
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, senderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "attendance-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open a stream of the punches recorded from now on.
+     *
+     * @param departmentId only the punches of this department (null for all)
+     * @return the stream
+     * @throws IllegalStateException if attendance.stream.max-subscribers streams are already open
+     */
+    public SseEmitter subscribe(Long departmentId) {
+        if (subscriberSlots.incrementAndGet() > maxSubscribers) {
+            subscriberSlots.decrementAndGet();
+            rejectedTotal.incrementAndGet();
+            throw new IllegalStateException("Too many open attendance streams (" + maxSubscribers + ")");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, departmentId);
+        emitter.onCompletion(() -> subscriber.close(false));
+        emitter.onError(e -> subscriber.close(false));
+        emitter.onTimeout(() -> {
+            subscriber.close(false);
+            emitter.complete();
+        });
+        subscribers.add(subscriber);
+        subscribedTotal.incrementAndGet();
+        // Sent at once, so the client knows the stream is open
+        subscriber.offer(List.of(Event.comment("connected")));
+        log.debug("Attendance stream opened (department: {}), {} open", departmentId, subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Send a recorded attendance to the subscribers once the current transaction has committed.
+     *
+     * @param attendance the recorded attendance
+     */
+    public void publish(AttendanceResponseDTO attendance) {
+        publish(List.of(attendance));
+    }
+
+    /**
+     * Send recorded attendances to the subscribers, in order, once the current transaction has committed.
+     *
+     * @param attendances the recorded attendances
+     */
+    public void publish(List<AttendanceResponseDTO> attendances) {
+        if (attendances.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> broadcast(attendances));
+    }
+
+    /**
+     * Send a heartbeat comment to every subscriber, so idle streams stay open through proxies
+     * and the streams of clients that went away are closed.
+     */
+    @Scheduled(fixedDelayString = "${attendance.stream.heartbeat-ms:30000}")
+    public void heartbeat() {
+        List<Event> heartbeat = List.of(Event.comment("heartbeat"));
+        subscribers.forEach(subscriber -> subscriber.offer(heartbeat));
+    }
+
+    /**
+     * @return the subscribers and counters of the stream
+     */
+    public StreamStatsDTO getStats() {
+        return StreamStatsDTO.builder()
+                .subscribers(subscribers.size())
+                .maxSubscribers(maxSubscribers)
+                .bufferSize(bufferSize)
+                .subscribedTotal(subscribedTotal.get())
+                .rejectedTotal(rejectedTotal.get())
+                .publishedTotal(publishedTotal.get())
+                .deliveredTotal(deliveredTotal.get())
+                .evictedTotal(evictedTotal.get())
+                .build();
+    }
+
+    /**
+     * End every stream before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.close(true));
+        senders.shutdown();
+    }
+
+    private void broadcast(List<AttendanceResponseDTO> attendances) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        List<Event> events = new ArrayList<>(attendances.size());
+        List<Long> departmentIds = new ArrayList<>(attendances.size());
+        for (AttendanceResponseDTO attendance : attendances) {
+            try {
+                events.add(new Event(EVENT_NAME, Long.toString(eventIds.incrementAndGet()),
+                        objectMapper.writeValueAsString(attendance)));
+                departmentIds.add(attendance.getDepartmentId());
+            } catch (JsonProcessingException e) {
+                log.error("Cannot serialize attendance {} for the stream: {}",
+                        attendance.getAttendanceId(), e.getMessage());
+            }
+        }
+        publishedTotal.addAndGet(events.size());
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.departmentId == null) {
+                subscriber.offer(events);
+                continue;
+            }
+            List<Event> matching = new ArrayList<>();
+            for (int i = 0; i < events.size(); i++) {
+                if (subscriber.departmentId.equals(departmentIds.get(i))) {
+                    matching.add(events.get(i));
+                }
+            }
+            subscriber.offer(matching);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * An event, serialized once for all subscribers (a comment if it has no name).
+     */
+    private record Event(String name, String id, String data) {
+
+        static Event comment(String text) {
+            return new Event(null, null, text);
+        }
+
+        SseEmitter.SseEventBuilder toSse() {
+            return name == null
+                    ? SseEmitter.event().comment(data)
+                    : SseEmitter.event().name(name).id(id).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * An open stream and its buffer. Only one sender drains the buffer at a time.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long departmentId;
+        // Allocated as events come in: most buffers hold a few events at most
+        private final BlockingQueue<Event> buffer = new LinkedBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completePending = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Long departmentId) {
+            this.emitter = emitter;
+            this.departmentId = departmentId;
+        }
+
+        void offer(List<Event> events) {
+            if (events.isEmpty() || closed.get()) {
+                return;
+            }
+            for (Event event : events) {
+                if (!buffer.offer(event)) {
+                    evictedTotal.incrementAndGet();
+                    log.warn("Attendance stream evicted: {} events not read (department: {})",
+                            bufferSize, departmentId);
+                    close(true);
+                    return;
+                }
+            }
+            scheduleDrain();
+        }
+
+        /**
+         * Stop sending to this subscriber.
+         *
+         * @param complete end the stream (false if it already ended)
+         */
+        void close(boolean complete) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.remove(this);
+            subscriberSlots.decrementAndGet();
+            buffer.clear();
+            if (complete) {
+                // Completed by a sender: a send in progress would make the caller wait
+                completePending.set(true);
+                scheduleDrain();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                send();
+                draining.set(false);
+                // Events offered (or a close) after the last check would otherwise wait for the next offer
+            } while (hasWork() && draining.compareAndSet(false, true));
+        }
+
+        private boolean hasWork() {
+            return closed.get() ? completePending.get() : !buffer.isEmpty();
+        }
+
+        private void send() {
+            try {
+                Event event;
+                while (!closed.get() && (event = buffer.poll()) != null) {
+                    emitter.send(event.toSse());
+                    if (event.name() != null) {
+                        deliveredTotal.incrementAndGet();
+                    }
+                }
+                if (closed.get() && completePending.getAndSet(false)) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone, or the stream already completed
+                log.debug("Attendance stream closed: {}", e.getMessage());
+                completePending.set(false);
+                close(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,631 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.entity.Attendance.Punctuality;
+import isj.group4.fingerprintmanagement.repository.AttendanceAggregateJdbcRepo.StaffDay;
+import isj.group4.fingerprintmanagement.repository.AttendanceJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.AttendanceJdbcRepo.AttendanceRow;
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo.RosterRow;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory columnar copy of the recent attendances, for the analytics queries.
+ *
+ * Attendances are held in one partition per month, as chunks of parallel primitive columns
+ * (staff ID, department ID, day of month, arrival minute, departure minute, late flag - about
+ * 24 bytes per attendance). A query scans the chunks of the partitions of its period on the
+ * common fork/join pool and merges the per-chunk totals, so it never reads the database.
+ *
+ * Published rows never change: reads take no lock, and every change publishes new partitions,
+ * copying only the chunks whose rows it changes.
+ * The cube is loaded at startup with the last attendance.cube.months months and kept current
+ * by AttendanceAggregateService, which passes on the attendances changed at each flush.
+ * The window moves at the start of each month, dropping the oldest partition.
+ * The department of an attendance is the department of its staff when it was loaded.
+ */
+@Component
+@Log4j2
+public class AttendanceCube {
+
+    /** Group-by dimensions of a query. */
+    public enum Dimension { DEPARTMENT, STAFF, WEEKDAY, ARRIVAL_HOUR, DATE, MONTH }
+
+    /** Measures accumulated per group (indexes into the totals array). */
+    public static final int ATTENDANCES = 0;
+    public static final int PRESENT = 1;
+    public static final int LATE = 2;
+    public static final int COMPLETE = 3;
+    public static final int WORKED_MINUTES = 4;
+    public static final int ARRIVAL_MINUTES = 5;
+    private static final int MEASURES = 6;
+
+    /** Rows of a column chunk, scanned by one fork/join task. */
+    private static final int SEGMENT_SIZE = 8192;
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(SEGMENT_SIZE);
+    private static final int CHUNK_MASK = SEGMENT_SIZE - 1;
+    private static final int MIN_CHUNK_CAPACITY = 256;
+    private static final int FETCH_SIZE = 1000;
+    private static final short NO_TIME = -1;
+
+    private final AttendanceJdbcRepo attendanceJdbcRepo;
+    private final StaffJdbcRepo staffJdbcRepo;
+    private final StaffRoster staffRoster;
+    private final boolean enabled;
+    private final int months;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile Map<YearMonth, Partition> partitions = Map.of();
+    private volatile Map<Long, String> departmentNames = Map.of();
+    // First day covered by the cube, null until it is loaded
+    private volatile LocalDate windowStart;
+
+    public AttendanceCube(AttendanceJdbcRepo attendanceJdbcRepo, StaffJdbcRepo staffJdbcRepo, StaffRoster staffRoster,
+                          @Value("${attendance.cube.enabled:true}") boolean enabled,
+                          @Value("${attendance.cube.months:24}") int months) {
+        this.attendanceJdbcRepo = attendanceJdbcRepo;
+        this.staffJdbcRepo = staffJdbcRepo;
+        this.staffRoster = staffRoster;
+        this.enabled = enabled;
+        this.months = Math.max(1, months);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * Load the attendances of the last attendance.cube.months months from the database.
+     */
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            LocalDate start = firstDay();
+            Map<Long, Long> departments = new HashMap<>();
+            Map<Long, String> names = new HashMap<>();
+            for (RosterRow staff : staffJdbcRepo.findAllRosterRows()) {
+                if (staff.departmentId() != null) {
+                    departments.put(staff.staffId(), staff.departmentId());
+                    if (staff.departmentName() != null) {
+                        names.put(staff.departmentId(), staff.departmentName());
+                    }
+                }
+            }
+            Map<YearMonth, Partition.Writer> writers = new TreeMap<>();
+            long[] loaded = new long[1];
+            attendanceJdbcRepo.streamAttendanceRows(null, null, start, null, FETCH_SIZE, row -> {
+                writers.computeIfAbsent(YearMonth.from(row.getAttendanceDate()), Partition.Writer::new)
+                        .append(row, departments.getOrDefault(row.getStaffId(), 0L));
+                loaded[0]++;
+            });
+            Map<YearMonth, Partition> next = new TreeMap<>();
+            writers.forEach((month, writer) -> next.put(month, writer.publish()));
+            partitions = Collections.unmodifiableMap(next);
+            departmentNames = Collections.unmodifiableMap(names);
+            windowStart = start;
+            log.info("Attendance cube loaded with {} attendances from {}", loaded[0], start);
+        } catch (DataAccessException e) {
+            log.error("Cannot load the attendance cube: {}", e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Move the window to the last attendance.cube.months months once a new month has started,
+     * dropping the partitions that fell out of it. The partition of the new month is created
+     * by its first refresh.
+     */
+    @Scheduled(cron = "${attendance.cube.roll-cron:0 0 0 * * *}")
+    public void roll() {
+        if (!enabled) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            LocalDate start = firstDay();
+            if (windowStart == null || !start.isAfter(windowStart)) {
+                return;
+            }
+            YearMonth first = YearMonth.from(start);
+            Map<YearMonth, Partition> next = new TreeMap<>(partitions);
+            int dropped = next.size();
+            next.keySet().removeIf(month -> month.isBefore(first));
+            dropped -= next.size();
+            partitions = Collections.unmodifiableMap(next);
+            windowStart = start;
+            log.info("Attendance cube window moved to {}, {} months dropped", start, dropped);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Apply changed attendances: read their current rows and replace (or drop) them in the cube.
+     * Only the rows of the changed attendances are written (see Partition.Writer).
+     *
+     * @param keys the staff and dates of the changed attendances
+     */
+    public void refresh(Collection<StaffDay> keys) {
+        if (!enabled || keys.isEmpty()) {
+            return;
+        }
+        // Read under the lock, so a concurrent reload or roll cannot be overwritten with older rows
+        writeLock.lock();
+        try {
+            LocalDate start = windowStart;
+            if (start == null) {
+                return;
+            }
+            Set<Long> staffIds = new HashSet<>();
+            Set<LocalDate> dates = new HashSet<>();
+            for (StaffDay key : keys) {
+                if (!key.attendanceDate().isBefore(start)) {
+                    staffIds.add(key.staffId());
+                    dates.add(key.attendanceDate());
+                }
+            }
+            if (dates.isEmpty()) {
+                return;
+            }
+            Map<StaffDay, AttendanceRow> current = new HashMap<>();
+            for (AttendanceRow row : attendanceJdbcRepo.findAttendanceRows(staffIds, dates)) {
+                current.putIfAbsent(new StaffDay(row.getStaffId(), row.getAttendanceDate()), row);
+            }
+            // Resolved before any partition is written, as it may read the database
+            Map<Long, String> names = new HashMap<>(departmentNames);
+            Map<Long, Long> departments = new HashMap<>();
+            for (AttendanceRow row : current.values()) {
+                departments.computeIfAbsent(row.getStaffId(), staffId -> departmentOf(staffId, names));
+            }
+
+            Map<YearMonth, Partition.Writer> writers = new TreeMap<>();
+            for (StaffDay key : keys) {
+                if (key.attendanceDate().isBefore(start)) {
+                    continue;
+                }
+                Partition.Writer writer = writers.computeIfAbsent(YearMonth.from(key.attendanceDate()), month -> {
+                    Partition partition = partitions.get(month);
+                    return partition != null ? new Partition.Writer(partition) : new Partition.Writer(month);
+                });
+                AttendanceRow row = current.get(key);
+                if (row != null) {
+                    writer.put(row, departments.get(row.getStaffId()));
+                } else {
+                    writer.remove(key.staffId(), key.attendanceDate().getDayOfMonth());
+                }
+            }
+            Map<YearMonth, Partition> next = new TreeMap<>(partitions);
+            writers.forEach((month, writer) -> next.put(month, writer.publish()));
+            partitions = Collections.unmodifiableMap(next);
+            departmentNames = Collections.unmodifiableMap(names);
+        } catch (DataAccessException e) {
+            log.warn("Attendance cube not refreshed ({} changes), it is stale until the next reload: {}",
+                    keys.size(), e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Aggregate the attendances of a period, grouped by one dimension.
+     * Staff without department have department ID 0; attendances without arrival have arrival hour -1.
+     *
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive
+     * @param departmentId only attendances of this department (may be null)
+     * @param staffId only attendances of this staff (may be null)
+     * @param groupBy the group-by dimension
+     * @return the totals of each group (see the measure constants), by group key
+     */
+    public Map<Long, long[]> query(LocalDate from, LocalDate to, Long departmentId, Long staffId, Dimension groupBy) {
+        List<Segment> segments = new ArrayList<>();
+        for (Partition partition : partitions.values()) {
+            LocalDate first = partition.month.atDay(1);
+            LocalDate last = partition.month.atEndOfMonth();
+            if (last.isBefore(from) || first.isAfter(to)) {
+                continue;
+            }
+            int dayFrom = from.isAfter(first) ? from.getDayOfMonth() : 1;
+            int dayTo = to.isBefore(last) ? to.getDayOfMonth() : last.getDayOfMonth();
+            for (int chunk = 0; chunk * SEGMENT_SIZE < partition.size; chunk++) {
+                segments.add(new Segment(partition, partition.chunks[chunk],
+                        Math.min(SEGMENT_SIZE, partition.size - chunk * SEGMENT_SIZE), dayFrom, dayTo));
+            }
+        }
+        long department = departmentId != null ? departmentId : -1;
+        long staff = staffId != null ? staffId : -1;
+        return segments.parallelStream()
+                .map(segment -> segment.scan(department, staff, groupBy))
+                .collect(HashMap::new, AttendanceCube::merge, AttendanceCube::merge);
+    }
+
+    /**
+     * @return the first day covered by the cube, or null if it is disabled or not loaded yet
+     */
+    public LocalDate getWindowStart() {
+        return enabled ? windowStart : null;
+    }
+
+    /**
+     * @return the name of a department seen by the cube, if known
+     */
+    public String departmentName(long departmentId) {
+        return departmentNames.get(departmentId);
+    }
+
+    /**
+     * @return number of attendances in the cube
+     */
+    public int size() {
+        return partitions.values().stream().mapToInt(partition -> partition.live).sum();
+    }
+
+    private LocalDate firstDay() {
+        return YearMonth.now().minusMonths(months - 1L).atDay(1);
+    }
+
+    private long departmentOf(long staffId, Map<Long, String> names) {
+        return staffRoster.find(staffId)
+                .filter(staff -> staff.departmentId() != null)
+                .map(staff -> {
+                    if (staff.departmentName() != null) {
+                        names.put(staff.departmentId(), staff.departmentName());
+                    }
+                    return staff.departmentId();
+                })
+                .orElse(0L);
+    }
+
+    private static void merge(Map<Long, long[]> into, Map<Long, long[]> from) {
+        from.forEach((key, totals) -> {
+            long[] target = into.putIfAbsent(key, totals);
+            if (target != null) {
+                for (int i = 0; i < MEASURES; i++) {
+                    target[i] += totals[i];
+                }
+            }
+        });
+    }
+
+    /**
+     * The rows of a chunk, scanned by one task.
+     */
+    private record Segment(Partition partition, Chunk chunk, int end, int dayFrom, int dayTo) {
+
+        Map<Long, long[]> scan(long departmentId, long staffId, Dimension groupBy) {
+            Partition p = partition;
+            Chunk c = chunk;
+            Map<Long, long[]> groups = new HashMap<>();
+            for (int i = 0; i < end; i++) {
+                long staff = c.staffIds[i];
+                int day = c.days[i];
+                if (staff == 0 || day < dayFrom || day > dayTo
+                        || (staffId >= 0 && staff != staffId)
+                        || (departmentId >= 0 && c.departmentIds[i] != departmentId)) {
+                    continue;
+                }
+                short arrival = c.arrivals[i];
+                short departure = c.departures[i];
+                long key = switch (groupBy) {
+                    case DEPARTMENT -> c.departmentIds[i];
+                    case STAFF -> staff;
+                    case WEEKDAY -> p.weekdays[day];
+                    case ARRIVAL_HOUR -> arrival != NO_TIME ? arrival / 60 : -1;
+                    case DATE -> p.firstEpochDay + day - 1;
+                    case MONTH -> p.month.getYear() * 100L + p.month.getMonthValue();
+                };
+                long[] totals = groups.computeIfAbsent(key, k -> new long[MEASURES]);
+                totals[ATTENDANCES]++;
+                if (arrival != NO_TIME) {
+                    totals[PRESENT]++;
+                    totals[ARRIVAL_MINUTES] += arrival;
+                    if (c.late[i]) {
+                        totals[LATE]++;
+                    }
+                    if (departure != NO_TIME && departure >= arrival) {
+                        totals[COMPLETE]++;
+                        totals[WORKED_MINUTES] += departure - arrival;
+                    }
+                }
+            }
+            return groups;
+        }
+    }
+
+    /**
+     * The attendances of one month: rows 0 to size - 1 of its chunks. Row i is row i % SEGMENT_SIZE
+     * of chunk i / SEGMENT_SIZE, and is removed when its staff ID is 0.
+     * Readers only scan the first size rows, which never change once published (see Writer).
+     */
+    private static final class Partition {
+        final YearMonth month;
+        final long firstEpochDay;
+        // Day of week (1 = Monday) of each day of the month, by day of month
+        final byte[] weekdays;
+        final Chunk[] chunks;
+        final int size;
+        final int live;
+        // Row of each (staff, day), built by the first refresh of the month and shared by its later partitions
+        final RowIndex index;
+
+        private Partition(Writer writer) {
+            this.month = writer.month;
+            this.firstEpochDay = month.atDay(1).toEpochDay();
+            this.weekdays = new byte[32];
+            for (int day = 1; day <= month.lengthOfMonth(); day++) {
+                weekdays[day] = (byte) month.atDay(day).getDayOfWeek().getValue();
+            }
+            this.chunks = writer.chunks;
+            this.size = writer.size;
+            this.live = writer.live;
+            this.index = writer.index;
+        }
+
+        /**
+         * Changes to a partition, published as a new partition (writeLock held).
+         * Rows are appended past the published size, which no reader scans, so appending copies nothing
+         * but a chunk outgrowing its arrays. A chunk is copied before one of its published rows is
+         * updated or removed, once per publish: a refresh writes the changed rows only, instead of
+         * copying the month.
+         */
+        static final class Writer {
+            final YearMonth month;
+            Chunk[] chunks;
+            // Chunks copied by this writer, written in place
+            boolean[] owned;
+            int size;
+            int live;
+            RowIndex index;
+
+            Writer(YearMonth month) {
+                this.month = month;
+                this.chunks = new Chunk[0];
+                this.owned = new boolean[0];
+            }
+
+            Writer(Partition partition) {
+                this.month = partition.month;
+                this.chunks = partition.chunks.clone();
+                this.owned = new boolean[chunks.length];
+                this.size = partition.size;
+                this.live = partition.live;
+                this.index = partition.index;
+            }
+
+            /**
+             * Append an attendance, even if its staff and day are already in the partition (loading only:
+             * the index is not maintained).
+             */
+            void append(AttendanceRow row, long departmentId) {
+                write(appendable(size), size & CHUNK_MASK, row, departmentId);
+                size++;
+                live++;
+            }
+
+            /**
+             * Add or update the attendance of a staff and day. An updated attendance keeps its department.
+             */
+            void put(AttendanceRow row, long departmentId) {
+                int day = row.getAttendanceDate().getDayOfMonth();
+                RowIndex index = index();
+                int i = index.get(row.getStaffId(), day);
+                if (i < 0) {
+                    i = size++;
+                    index.put(row.getStaffId(), day, i);
+                    write(appendable(i), i & CHUNK_MASK, row, departmentId);
+                    live++;
+                    return;
+                }
+                Chunk chunk = writable(i);
+                int j = i & CHUNK_MASK;
+                if (chunk.staffIds[j] == 0) {
+                    write(chunk, j, row, departmentId);
+                    live++;
+                } else {
+                    write(chunk, j, row, chunk.departmentIds[j]);
+                }
+            }
+
+            /**
+             * Remove the attendance of a staff and day, if any. Its row is kept for a later put.
+             */
+            void remove(long staffId, int day) {
+                int i = index().get(staffId, day);
+                if (i >= 0 && chunks[i >> CHUNK_SHIFT].staffIds[i & CHUNK_MASK] != 0) {
+                    writable(i).staffIds[i & CHUNK_MASK] = 0;
+                    live--;
+                }
+            }
+
+            Partition publish() {
+                return new Partition(this);
+            }
+
+            private RowIndex index() {
+                if (index == null) {
+                    index = RowIndex.of(chunks, size);
+                }
+                return index;
+            }
+
+            private Chunk appendable(int i) {
+                int c = i >> CHUNK_SHIFT;
+                if (c == chunks.length) {
+                    chunks = Arrays.copyOf(chunks, c + 1);
+                    owned = Arrays.copyOf(owned, c + 1);
+                    chunks[c] = new Chunk(MIN_CHUNK_CAPACITY);
+                    owned[c] = true;
+                } else if ((i & CHUNK_MASK) == chunks[c].capacity()) {
+                    chunks[c] = chunks[c].copy(chunks[c].capacity() * 2);
+                    owned[c] = true;
+                }
+                return chunks[c];
+            }
+
+            private Chunk writable(int i) {
+                int c = i >> CHUNK_SHIFT;
+                if (!owned[c]) {
+                    chunks[c] = chunks[c].copy(chunks[c].capacity());
+                    owned[c] = true;
+                }
+                return chunks[c];
+            }
+
+            private static void write(Chunk chunk, int j, AttendanceRow row, long departmentId) {
+                LocalDate date = row.getAttendanceDate();
+                chunk.staffIds[j] = row.getStaffId();
+                chunk.departmentIds[j] = departmentId;
+                chunk.days[j] = (byte) date.getDayOfMonth();
+                chunk.arrivals[j] = minutes(date, row.getArrivalTime());
+                chunk.departures[j] = minutes(date, row.getDepartureTime());
+                chunk.late[j] = row.getArrivalStatus() == Punctuality.LATE;
+            }
+
+            private static short minutes(LocalDate date, LocalDateTime time) {
+                if (time == null) {
+                    return NO_TIME;
+                }
+                long minutes = ChronoUnit.MINUTES.between(date.atStartOfDay(), time);
+                return (short) Math.max(0, Math.min(Short.MAX_VALUE, minutes));
+            }
+        }
+    }
+
+    /**
+     * Parallel primitive columns of up to SEGMENT_SIZE rows, grown by doubling.
+     */
+    private static final class Chunk {
+        final long[] staffIds;
+        final long[] departmentIds;
+        final byte[] days;
+        // Minutes since the start of the attendance date, NO_TIME if not set
+        final short[] arrivals;
+        final short[] departures;
+        // Arrival classified LATE when it was recorded (see PunctualityClassifier)
+        final boolean[] late;
+
+        Chunk(int capacity) {
+            this.staffIds = new long[capacity];
+            this.departmentIds = new long[capacity];
+            this.days = new byte[capacity];
+            this.arrivals = new short[capacity];
+            this.departures = new short[capacity];
+            this.late = new boolean[capacity];
+        }
+
+        int capacity() {
+            return staffIds.length;
+        }
+
+        Chunk copy(int capacity) {
+            Chunk copy = new Chunk(capacity);
+            int length = Math.min(capacity, capacity());
+            System.arraycopy(staffIds, 0, copy.staffIds, 0, length);
+            System.arraycopy(departmentIds, 0, copy.departmentIds, 0, length);
+            System.arraycopy(days, 0, copy.days, 0, length);
+            System.arraycopy(arrivals, 0, copy.arrivals, 0, length);
+            System.arraycopy(departures, 0, copy.departures, 0, length);
+            System.arraycopy(late, 0, copy.late, 0, length);
+            return copy;
+        }
+    }
+
+    /**
+     * Row of each (staff, day) of a partition: open addressing over a primitive long[] of keys
+     * (staff ID and day of month, never 0), at a load factor of at most 0.5.
+     * Only used by writers (writeLock held); a removed attendance keeps its row.
+     */
+    private static final class RowIndex {
+        private long[] keys = new long[64];
+        private int[] rows = new int[64];
+        private int count;
+
+        /**
+         * Index the live rows of a partition (the first row of a staff and day loaded twice).
+         */
+        static RowIndex of(Chunk[] chunks, int size) {
+            RowIndex index = new RowIndex();
+            for (int i = 0; i < size; i++) {
+                Chunk chunk = chunks[i >> CHUNK_SHIFT];
+                int j = i & CHUNK_MASK;
+                if (chunk.staffIds[j] != 0 && index.get(chunk.staffIds[j], chunk.days[j]) < 0) {
+                    index.put(chunk.staffIds[j], chunk.days[j], i);
+                }
+            }
+            return index;
+        }
+
+        int get(long staffId, int day) {
+            long key = key(staffId, day);
+            int slot = slot(keys, key);
+            return keys[slot] == key ? rows[slot] : -1;
+        }
+
+        void put(long staffId, int day, int row) {
+            if ((count + 1) * 2 > keys.length) {
+                resize();
+            }
+            long key = key(staffId, day);
+            int slot = slot(keys, key);
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                count++;
+            }
+            rows[slot] = row;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldRows = rows;
+            keys = new long[oldKeys.length * 2];
+            rows = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    rows[slot] = oldRows[i];
+                }
+            }
+        }
+
+        private static long key(long staffId, int day) {
+            return staffId << 5 | day;
+        }
+
+        private static int slot(long[] keys, long key) {
+            int mask = keys.length - 1;
+            long h = key * 0x9E3779B97F4A7C15L;
+            int i = (int) (h ^ (h >>> 32)) & mask;
+            while (keys[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package isj.group4.fingerprintmanagement.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import isj.group4.fingerprintmanagement.dto.AttendanceResponseDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams attendance history (e.g. for payroll) as NDJSON or CSV.
+ * Rows are read from the database one at a time and written straight to the output,
+ * so memory stays constant whatever the number of exported attendances.
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class AttendanceExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Same format as the JSON responses
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final String CSV_HEADER = "attendanceId,attendanceDate,staffId,staffName,staffSurname,staffEmail,"
+            + "departmentId,departmentName,arrivalTime,departureTime,status,"
+            + "arrivalStatus,lateMinutes,departureStatus,departureMinutes";
+
+    private final AttendanceService attendanceService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Check the export parameters before the response is committed.
+     *
+     * @throws IllegalArgumentException if the format is unknown or from is after to
+     */
+    public void validate(String format, LocalDate from, LocalDate to) {
+        if (!FORMAT_NDJSON.equals(format) && !FORMAT_CSV.equals(format)) {
+            throw new IllegalArgumentException("Unsupported format: " + format + " (use ndjson or csv)");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+    }
+
+    /**
+     * Write the matching attendances, in date order, to the output.
+     *
+     * @param format ndjson (one JSON object per line, same fields as the listings) or csv
+     * @param from first attendance date, inclusive (may be null)
+     * @param to last attendance date, inclusive (may be null)
+     * @param departmentId only attendances of this department (may be null)
+     * @param staffId only attendances of this staff (may be null)
+     * @param out the response body
+     * @return number of exported attendances
+     */
+    public long export(String format, LocalDate from, LocalDate to, Long departmentId, Long staffId,
+                       OutputStream out) throws IOException {
+        long[] count = new long[1];
+        try {
+            if (FORMAT_CSV.equals(format)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                attendanceService.streamAttendances(from, to, departmentId, staffId, dto -> {
+                    writeCsvRow(writer, dto);
+                    count[0]++;
+                });
+                writer.flush();
+            } else {
+                // One flush per buffer instead of one per row
+                ObjectWriter jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                JsonGenerator generator = objectMapper.getFactory()
+                        .createGenerator(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+                generator.setRootValueSeparator(null);
+                attendanceService.streamAttendances(from, to, departmentId, staffId, dto -> {
+                    try {
+                        jsonWriter.writeValue(generator, dto);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            // Typically the client went away - stop reading the database
+            log.warn("Attendance export aborted after {} rows: {}", count[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        log.info("Exported {} attendances as {}", count[0], format);
+        return count[0];
+    }
+
+    private static void writeCsvRow(Writer writer, AttendanceResponseDTO dto) {
+        try {
+            writer.write(String.valueOf(dto.getAttendanceId()));
+            writer.write(',');
+            writer.write(String.valueOf(dto.getAttendanceDate()));
+            writer.write(',');
+            writer.write(String.valueOf(dto.getStaffId()));
+            writer.write(',');
+            writer.write(csv(dto.getStaffName()));
+            writer.write(',');
+            writer.write(csv(dto.getStaffSurname()));
+            writer.write(',');
+            writer.write(csv(dto.getStaffEmail()));
+            writer.write(',');
+            writer.write(dto.getDepartmentId() != null ? String.valueOf(dto.getDepartmentId()) : "");
+            writer.write(',');
+            writer.write(csv(dto.getDepartmentName()));
+            writer.write(',');
+            writer.write(dto.getArrivalTime() != null ? DATE_TIME.format(dto.getArrivalTime()) : "");
+            writer.write(',');
+            writer.write(dto.getDepartureTime() != null ? DATE_TIME.format(dto.getDepartureTime()) : "");
+            writer.write(',');
+            writer.write(dto.getStatus());
+            writer.write(',');
+            writer.write(dto.getArrivalStatus() != null ? dto.getArrivalStatus().name() : "");
+            writer.write(',');
+            writer.write(dto.getLateMinutes() != null ? String.valueOf(dto.getLateMinutes()) : "");
+            writer.write(',');
+            writer.write(dto.getDepartureStatus() != null ? dto.getDepartureStatus().name() : "");
+            writer.write(',');
+            writer.write(dto.getDepartureMinutes() != null ? String.valueOf(dto.getDepartureMinutes()) : "");
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Quote a CSV field if it contains a separator, a quote or a line break.
+     */
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
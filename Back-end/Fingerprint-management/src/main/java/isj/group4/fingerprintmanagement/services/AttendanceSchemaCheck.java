@@ -0,0 +1,77 @@
+package isj.group4.fingerprintmanagement.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks at startup that the attendances table has its unique (staff_id, attendance_date) key.
+ *
+ * The upsert of attendance.record.fast-path and the NONE answers of the in-memory attendance index
+ * rely on it to never insert a second attendance for a day. spring.jpa.hibernate.ddl-auto=update
+ * only logs its failure to add the key (duplicate days already stored), so both are kept disabled
+ * until fix_attendance_duplicates.sql has been run.
+ */
+@Component
+// Hibernate creates or updates the schema first
+@DependsOn("entityManagerFactory")
+@Log4j2
+public class AttendanceSchemaCheck {
+
+    private static final String TABLE = "attendances";
+    private static final Set<String> STAFF_DATE_COLUMNS = Set.of("staff_id", "attendance_date");
+
+    private final boolean staffDateKeyPresent;
+
+    public AttendanceSchemaCheck(DataSource dataSource) {
+        this.staffDateKeyPresent = findStaffDateKey(dataSource);
+        if (!staffDateKeyPresent) {
+            log.error("The attendances table has no unique (staff_id, attendance_date) key: the fast path and "
+                    + "the attendance index are disabled until fix_attendance_duplicates.sql has been run");
+        }
+    }
+
+    /**
+     * @return true if the attendances table has a unique key on exactly (staff_id, attendance_date)
+     */
+    public boolean hasStaffDateKey() {
+        return staffDateKeyPresent;
+    }
+
+    private static boolean findStaffDateKey(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Table names are stored upper-case by some databases
+            for (String table : new String[] {TABLE, TABLE.toUpperCase()}) {
+                Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+                try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(),
+                        table, true, false)) {
+                    while (rs.next()) {
+                        String index = rs.getString("INDEX_NAME");
+                        String column = rs.getString("COLUMN_NAME");
+                        if (index != null && column != null) {
+                            uniqueIndexes.computeIfAbsent(index, name -> new HashSet<>()).add(column.toLowerCase());
+                        }
+                    }
+                }
+                if (uniqueIndexes.containsValue(STAFF_DATE_COLUMNS)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (SQLException e) {
+            log.error("Cannot read the indexes of the attendances table: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,47 +1,261 @@
 package isj.group4.fingerprintmanagement.services;
 
+import isj.group4.fingerprintmanagement.dto.AttendanceBatchResponseDTO;
+import isj.group4.fingerprintmanagement.dto.AttendancePageDTO;
 import isj.group4.fingerprintmanagement.dto.AttendanceRequestDTO;
 import isj.group4.fingerprintmanagement.dto.AttendanceResponseDTO;
 import isj.group4.fingerprintmanagement.entity.Attendance;
-import isj.group4.fingerprintmanagement.entity.Staff;
+import isj.group4.fingerprintmanagement.repository.AttendanceJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.AttendanceJdbcRepo.AttendanceRow;
 import isj.group4.fingerprintmanagement.repository.AttendanceRepo;
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo.RosterRow;
 import isj.group4.fingerprintmanagement.repository.StaffRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.*;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Log4j2
 public class AttendanceService {
 
+    /** Page size of the attendance listings when no limit is given, and the largest allowed. */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /** Longest period served by the range listing (in days, a leap year). */
+    public static final int MAX_RANGE_DAYS = 366;
+
     private final AttendanceRepo attendanceRepo;
     private final StaffRepo staffRepo;
+    private final AttendanceJdbcRepo attendanceJdbcRepo;
+    private final IdempotencyCache idempotencyCache;
+    private final StaffLockStripes staffLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final DailyAttendanceIndex attendanceIndex;
+    private final StaffRoster staffRoster;
+    private final AttendanceAggregateService attendanceAggregates;
+    private final PunctualityClassifier punctualityClassifier;
+    private final AttendanceBroadcaster attendanceBroadcaster;
+    private final Validator validator;
+    private final AttendanceSchemaCheck attendanceSchema;
+
+    /** Record single punches with one JDBC upsert instead of the Hibernate read-modify-write. */
+    @Value("${attendance.record.fast-path:false}")
+    private boolean fastPath;
+
+    /** Distinct staff of a batch recorded per transaction, so a batch only holds a few lock stripes at a time. */
+    @Value("${attendance.batch.staff-per-transaction:32}")
+    private int staffPerTransaction;
+
+    /** Rows fetched per round trip by exports (MySQL always streams row by row). */
+    @Value("${attendance.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    /**
+     * Keep the fast path disabled while the unique (staff_id, attendance_date) key its upsert relies on is missing.
+     */
+    @PostConstruct
+    void checkFastPath() {
+        if (fastPath && !attendanceSchema.hasStaffDateKey()) {
+            log.error("attendance.record.fast-path is ignored: the attendances table has no unique "
+                    + "(staff_id, attendance_date) key (run fix_attendance_duplicates.sql)");
+            fastPath = false;
+        }
+    }
 
     /**
      * Record attendance based on the request.
      * If no attendance exists for the staff on the given date, create a new one with arrival time.
      * If attendance exists and arrival time is set but departure time is null, set departure time.
      *
+     * Punches of the same staff are serialized (also on the fast path, against the batches),
+     * so two near-simultaneous punches cannot both see no attendance and insert two rows.
+     *
      * @param requestDTO the attendance request containing staffId, attendanceDate, and attendanceTime
      * @return AttendanceResponseDTO with the recorded attendance details
      */
     public AttendanceResponseDTO recordAttendance(AttendanceRequestDTO requestDTO) {
+        if (fastPath) {
+            return staffLocks.withLock(requestDTO.getStaffId(), () -> recordAttendanceFast(requestDTO));
+        }
+        return staffLocks.withLock(requestDTO.getStaffId(), () -> recordAttendanceLocked(requestDTO));
+    }
+
+    /**
+     * Record the departure of an attendance the index knows to be open, with a single guarded UPDATE.
+     *
+     * @return the response, or null if the attendance was not open any more or the punch is a retry
+     *         of the arrival (the caller then reads the database)
+     */
+    private AttendanceResponseDTO recordIndexedDeparture(RosterRow staff, AttendanceRequestDTO requestDTO,
+                                                         DailyAttendanceIndex.Slot indexed, String idempotencyKey) {
+        AttendanceRow row = new AttendanceRow(indexed.attendanceId(), staff.staffId(),
+                requestDTO.getAttendanceDate(), indexed.arrivalTime(), requestDTO.getAttendanceTime(),
+                null, idempotencyKey);
+        punctualityClassifier.classifyArrival(row, staff);
+        punctualityClassifier.classifyDeparture(row, staff);
+        if (!attendanceJdbcRepo.updateOpenDeparture(indexed.attendanceId(), requestDTO.getAttendanceTime(),
+                idempotencyKey, row.getDepartureStatus(), row.getDepartureMinutes())) {
+            return null;
+        }
+        attendanceIndex.record(row);
+        attendanceAggregates.attendanceChanged(staff.staffId(), row.getAttendanceDate());
+        log.info("Updating attendance record with departure time for staff ID: {}", staff.staffId());
+
+        AttendanceResponseDTO response = convertToResponseDTO(row, staff, "DEPARTURE_RECORDED");
+        idempotencyCache.put(idempotencyKey, response);
+        attendanceBroadcaster.publish(response);
+        return response;
+    }
+
+    /**
+     * JDBC fast path of {@link #recordAttendance} (attendance.record.fast-path=true).
+     * A single upsert on the unique (staff_id, attendance_date) key applies the arrival/departure
+     * transition atomically in the database, and one query in the same transaction reads the row
+     * back to tell which transition happened; the staff details come from the roster. The row lock of the
+     * upsert serializes concurrent punches of the same staff; the staff's lock stripe is still held
+     * (see recordAttendance), as the batch path reads and then writes the attendances of its staff.
+     */
+    private AttendanceResponseDTO recordAttendanceFast(AttendanceRequestDTO requestDTO) {
+        Long staffId = requestDTO.getStaffId();
+        String idempotencyKey = IdempotencyCache.keyOf(requestDTO);
+        AttendanceResponseDTO cached = getRecordedResponse(idempotencyKey);
+        if (cached != null) {
+            log.info("Returning original response for retried punch of staff ID: {}", staffId);
+            return cached;
+        }
+
+        RosterRow staff = staffRoster.find(staffId)
+                .orElseThrow(() -> new IllegalArgumentException("Staff not found with ID: " + staffId));
+
+        AttendanceRow row;
+        try {
+            // One transaction, so the row locked by the upsert cannot change before it is read back
+            row = transactionTemplate.execute(status -> {
+                attendanceJdbcRepo.upsertPunch(staffId, requestDTO.getAttendanceDate(),
+                        requestDTO.getAttendanceTime(), idempotencyKey,
+                        punctualityClassifier.classifyArrival(
+                                staff, requestDTO.getAttendanceDate(), requestDTO.getAttendanceTime()),
+                        punctualityClassifier.classifyDeparture(
+                                staff, requestDTO.getAttendanceDate(), requestDTO.getAttendanceTime()));
+                return attendanceJdbcRepo
+                        .findAttendanceRow(staffId, requestDTO.getAttendanceDate())
+                        .orElse(null);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Staff deleted meanwhile (foreign key), or the key was already recorded as a departure
+            AttendanceResponseDTO replayed = replayedByKey(idempotencyKey);
+            if (replayed != null) {
+                return replayed;
+            }
+            throw e;
+        }
+
+        if (row == null) {
+            // The key collided with a punch recorded on another day
+            AttendanceResponseDTO replayed = replayedByKey(idempotencyKey);
+            if (replayed != null) {
+                return replayed;
+            }
+            throw new IllegalStateException("Idempotency key already used: " + idempotencyKey);
+        }
+
+        attendanceIndex.record(row);
+        attendanceAggregates.attendanceChanged(staffId, row.getAttendanceDate());
+        AttendanceResponseDTO response = replayedResponse(row, staff, idempotencyKey);
+        if (response == null && idempotencyKey == null) {
+            if (requestDTO.getAttendanceTime().equals(row.getDepartureTime())) {
+                response = convertToResponseDTO(row, staff, "DEPARTURE_RECORDED");
+            } else if (requestDTO.getAttendanceTime().equals(row.getArrivalTime()) && row.getDepartureTime() == null) {
+                response = convertToResponseDTO(row, staff, "ARRIVAL_RECORDED");
+            }
+        }
+        if (response == null) {
+            // The upsert left the row unchanged
+            throw new IllegalStateException(
+                    "Attendance already complete for staff ID: " + staffId
+                    + " on date: " + requestDTO.getAttendanceDate());
+        }
+        log.info("Recorded {} for staff ID: {} (fast path)", response.getStatus(), staffId);
+        idempotencyCache.put(idempotencyKey, response);
+        attendanceBroadcaster.publish(response);
+        return response;
+    }
+
+    private AttendanceResponseDTO replayedByKey(String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        AttendanceResponseDTO replayed = attendanceJdbcRepo.findAttendanceRowByKey(idempotencyKey)
+                .flatMap(found -> staffRoster.find(found.getStaffId())
+                        .map(staff -> replayedResponse(found, staff, idempotencyKey)))
+                .orElse(null);
+        if (replayed != null) {
+            idempotencyCache.put(idempotencyKey, replayed);
+        }
+        return replayed;
+    }
+
+    private AttendanceResponseDTO recordAttendanceLocked(AttendanceRequestDTO requestDTO) {
         log.info("Recording attendance for staff ID: {} on date: {}",
                 requestDTO.getStaffId(), requestDTO.getAttendanceDate());
 
-        // Validate and retrieve staff
-        Staff staff = staffRepo.findByUserId(requestDTO.getStaffId())
+        // A retried punch gets its original response back
+        String idempotencyKey = IdempotencyCache.keyOf(requestDTO);
+        AttendanceResponseDTO cached = getRecordedResponse(idempotencyKey);
+        if (cached != null) {
+            log.info("Returning original response for retried punch of staff ID: {}", requestDTO.getStaffId());
+            return cached;
+        }
+
+        // Validate staff against the in-memory roster
+        RosterRow staff = staffRoster.find(requestDTO.getStaffId())
                 .orElseThrow(() -> new IllegalArgumentException(
                         "Staff not found with ID: " + requestDTO.getStaffId()));
 
+        // Today's attendances are known from the in-memory index, the database is only read on a miss
+        DailyAttendanceIndex.Slot indexed = attendanceIndex.lookup(
+                requestDTO.getStaffId(), requestDTO.getAttendanceDate());
+        if (indexed.state() == DailyAttendanceIndex.OPEN) {
+            AttendanceResponseDTO response = recordIndexedDeparture(staff, requestDTO, indexed, idempotencyKey);
+            if (response != null) {
+                return response;
+            }
+        }
+
         // Check if attendance already exists for this staff on this date
-        List<Attendance> existingAttendances = attendanceRepo
-                .findAttendancesByStaffUserIdAndAttendanceDate(
+        List<Attendance> existingAttendances = indexed.state() == DailyAttendanceIndex.NONE
+                ? List.of()
+                : attendanceRepo.findAttendancesByStaffUserIdAndAttendanceDate(
                         requestDTO.getStaffId(),
                         requestDTO.getAttendanceDate());
 
@@ -51,11 +265,13 @@ public class AttendanceService {
         if (existingAttendances.isEmpty()) {
             // No attendance record exists - create new one with arrival time
             attendance = Attendance.builder()
-                    .staff(staff)
+                    .staff(staffRepo.getReferenceById(staff.staffId()))
                     .attendanceDate(requestDTO.getAttendanceDate())
                     .arrivalTime(requestDTO.getAttendanceTime())
                     .departureTime(null)
+                    .arrivalKey(idempotencyKey)
                     .build();
+            punctualityClassifier.classifyArrival(attendance, staff);
             status = "ARRIVAL_RECORDED";
             log.info("Creating new attendance record with arrival time for staff ID: {}",
                     requestDTO.getStaffId());
@@ -63,9 +279,19 @@ public class AttendanceService {
             // Attendance record exists - update departure time if arrival is already set
             attendance = existingAttendances.get(0);
 
+            AttendanceResponseDTO replayed = replayedResponse(attendance, idempotencyKey);
+            if (replayed != null) {
+                log.info("Punch already recorded for staff ID: {}, returning original response",
+                        requestDTO.getStaffId());
+                idempotencyCache.put(idempotencyKey, replayed);
+                return replayed;
+            }
+
             if (attendance.getArrivalTime() != null && attendance.getDepartureTime() == null) {
                 // Arrival time is set, departure is null - set departure time
                 attendance.setDepartureTime(requestDTO.getAttendanceTime());
+                attendance.setDepartureKey(idempotencyKey);
+                punctualityClassifier.classifyDeparture(attendance, staff);
                 status = "DEPARTURE_RECORDED";
                 log.info("Updating attendance record with departure time for staff ID: {}",
                         requestDTO.getStaffId());
@@ -77,6 +303,8 @@ public class AttendanceService {
             } else {
                 // Arrival time is null (shouldn't normally happen) - set arrival time
                 attendance.setArrivalTime(requestDTO.getAttendanceTime());
+                attendance.setArrivalKey(idempotencyKey);
+                punctualityClassifier.classifyArrival(attendance, staff);
                 status = "ARRIVAL_RECORDED";
                 log.warn("Setting arrival time for existing attendance record (unusual case) for staff ID: {}",
                         requestDTO.getStaffId());
@@ -84,10 +312,379 @@ public class AttendanceService {
         }
 
         // Save the attendance record
-        Attendance savedAttendance = attendanceRepo.save(attendance);
+        Attendance savedAttendance;
+        try {
+            savedAttendance = attendanceRepo.save(attendance);
+        } catch (DataIntegrityViolationException e) {
+            // The same key was recorded concurrently - return what the other request recorded
+            AttendanceResponseDTO replayed = idempotencyKey == null ? null : attendanceRepo
+                    .findFirstByArrivalKeyOrDepartureKey(idempotencyKey, idempotencyKey)
+                    .map(existing -> replayedResponse(existing, idempotencyKey))
+                    .orElse(null);
+            if (replayed == null) {
+                // Written by someone else than this instance - the index cannot be trusted
+                attendanceIndex.invalidate(requestDTO.getStaffId());
+                throw e;
+            }
+            idempotencyCache.put(idempotencyKey, replayed);
+            return replayed;
+        }
+        attendanceIndex.record(new AttendanceRow(savedAttendance.getAttendanceId(), requestDTO.getStaffId(),
+                savedAttendance.getAttendanceDate(), savedAttendance.getArrivalTime(),
+                savedAttendance.getDepartureTime(), savedAttendance.getArrivalKey(),
+                savedAttendance.getDepartureKey()));
+        attendanceAggregates.attendanceChanged(requestDTO.getStaffId(), savedAttendance.getAttendanceDate());
 
         // Convert to response DTO
-        return convertToResponseDTO(savedAttendance, status);
+        AttendanceResponseDTO response = convertToResponseDTO(savedAttendance, status);
+        idempotencyCache.put(idempotencyKey, response);
+        attendanceBroadcaster.publish(response);
+        return response;
+    }
+
+    /**
+     * Get the response already returned for a retried punch, without touching the database.
+     *
+     * @param requestDTO the attendance request
+     * @return the original response, or null if the punch has no key or is not in the cache
+     */
+    public AttendanceResponseDTO getCachedResponse(AttendanceRequestDTO requestDTO) {
+        String idempotencyKey = IdempotencyCache.keyOf(requestDTO);
+        return idempotencyKey != null ? idempotencyCache.get(idempotencyKey) : null;
+    }
+
+    /**
+     * Get the cached response of a punch that has already been written to the database.
+     * Acknowledgements of punches still waiting in the journal (no attendance ID) are ignored,
+     * so the punch itself is still recorded when it is drained.
+     */
+    private AttendanceResponseDTO getRecordedResponse(String idempotencyKey) {
+        AttendanceResponseDTO cached = idempotencyKey != null ? idempotencyCache.get(idempotencyKey) : null;
+        return cached != null && cached.getAttendanceId() != null ? cached : null;
+    }
+
+    /**
+     * Remember the response returned for a punch, so that retries get it back.
+     *
+     * @param requestDTO the attendance request
+     * @param response the response returned to the terminal
+     */
+    public void rememberResponse(AttendanceRequestDTO requestDTO, AttendanceResponseDTO response) {
+        idempotencyCache.put(IdempotencyCache.keyOf(requestDTO), response);
+    }
+
+    /**
+     * Record a batch of attendance punches (arrival or departure) in request order.
+     * Staff and existing same-day attendances are resolved with set-based queries,
+     * the arrival/departure logic of {@link #recordAttendance} is applied in memory
+     * and the resulting rows are written with JDBC batches.
+     * A punch that fails validation (the constraints of AttendanceRequestDTO) or conflicts
+     * never fails the rest of the batch.
+     *
+     * The batch is recorded in consecutive runs of punches of at most attendance.batch.staff-per-transaction
+     * staff, one transaction each, holding only the locks of those staff until it has committed: single
+     * punches of the other staff are not kept waiting behind a large batch. If a run fails after earlier runs
+     * have committed, its punches and the following ones are reported as ERROR, to be sent again;
+     * if the first run fails, nothing was recorded and the error is thrown.
+     *
+     * @param requests the attendance requests, in the order they were punched
+     * @return AttendanceBatchResponseDTO with one result per request
+     */
+    public AttendanceBatchResponseDTO recordAttendanceBatch(List<AttendanceRequestDTO> requests) {
+        List<AttendanceBatchResponseDTO.ItemResultDTO> results = new ArrayList<>(requests.size());
+        int recorded = 0;
+        int conflicts = 0;
+        int errors = 0;
+        int from = 0;
+        while (from < requests.size()) {
+            List<AttendanceRequestDTO> run = requests.subList(from, from + firstTransactionSize(
+                    requests.subList(from, requests.size())));
+            Set<Long> staffIds = run.stream()
+                    .filter(request -> request != null && request.getStaffId() != null)
+                    .map(AttendanceRequestDTO::getStaffId)
+                    .collect(Collectors.toSet());
+            AttendanceBatchResponseDTO runResult;
+            try {
+                runResult = recordRun(run, from, staffIds);
+            } catch (RuntimeException e) {
+                if (from == 0) {
+                    throw e;
+                }
+                log.error("Attendance batch interrupted after {} of {} punches: {}", from, requests.size(),
+                        e.getMessage());
+                for (int i = from; i < requests.size(); i++) {
+                    AttendanceRequestDTO request = requests.get(i);
+                    results.add(AttendanceBatchResponseDTO.ItemResultDTO.builder()
+                            .index(i)
+                            .staffId(request != null ? request.getStaffId() : null)
+                            .status(AttendanceBatchResponseDTO.STATUS_ERROR)
+                            .message("Not recorded, send the punch again: " + e.getMessage())
+                            .build());
+                    errors++;
+                }
+                break;
+            }
+            results.addAll(runResult.getResults());
+            recorded += runResult.getRecorded();
+            conflicts += runResult.getConflicts();
+            errors += runResult.getErrors();
+            from += run.size();
+        }
+        return AttendanceBatchResponseDTO.builder()
+                .total(requests.size())
+                .recorded(recorded)
+                .conflicts(conflicts)
+                .errors(errors)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Record a run of a batch in one transaction, holding the locks of its staff. Another instance may
+     * still have written one of its attendances between the reads and the writes of the run (duplicate
+     * arrival, or departure already set): the run is then rolled back and recorded once more, reading
+     * the attendances again.
+     */
+    private AttendanceBatchResponseDTO recordRun(List<AttendanceRequestDTO> run, int offset, Set<Long> staffIds) {
+        try {
+            return staffLocks.withLocks(staffIds,
+                    () -> transactionTemplate.execute(status -> recordAttendanceBatchLocked(run, offset)));
+        } catch (DuplicateKeyException | OptimisticLockingFailureException e) {
+            log.warn("Attendances of a batch run changed meanwhile, recording it again: {}", e.getMessage());
+            return staffLocks.withLocks(staffIds,
+                    () -> transactionTemplate.execute(status -> recordAttendanceBatchLocked(run, offset)));
+        }
+    }
+
+    /**
+     * @param requests the attendance requests, in the order they were punched
+     * @return number of leading requests that {@link #recordAttendanceBatch} records in its first
+     *         transaction (at most attendance.batch.staff-per-transaction distinct staff)
+     */
+    public int firstTransactionSize(List<AttendanceRequestDTO> requests) {
+        Set<Long> staffIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            AttendanceRequestDTO request = requests.get(i);
+            if (request != null && request.getStaffId() != null && staffIds.add(request.getStaffId())
+                    && staffIds.size() > Math.max(1, staffPerTransaction)) {
+                return i;
+            }
+        }
+        return requests.size();
+    }
+
+    /**
+     * @param offset position of the first request in the whole batch
+     */
+    private AttendanceBatchResponseDTO recordAttendanceBatchLocked(List<AttendanceRequestDTO> requests, int offset) {
+        log.info("Recording attendance batch of {} punches", requests.size());
+
+        List<AttendanceBatchResponseDTO.ItemResultDTO> results = new ArrayList<>(requests.size());
+        String[] invalid = new String[requests.size()];
+        Set<Long> staffIds = new LinkedHashSet<>();
+        Set<LocalDate> dates = new LinkedHashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            AttendanceRequestDTO request = requests.get(i);
+            invalid[i] = validationError(request);
+            if (invalid[i] == null) {
+                staffIds.add(request.getStaffId());
+                dates.add(request.getAttendanceDate());
+            }
+        }
+
+        // Resolve all staff and all existing same-day attendances up front
+        Map<Long, RosterRow> staffRows = new HashMap<>();
+        for (Long staffId : staffIds) {
+            staffRoster.find(staffId).ifPresent(staff -> staffRows.put(staffId, staff));
+        }
+        Map<PunchKey, AttendanceRow> rowsByKey = new HashMap<>();
+        for (AttendanceRow row : attendanceJdbcRepo.findAttendanceRows(staffIds, dates)) {
+            rowsByKey.putIfAbsent(new PunchKey(row.getStaffId(), row.getAttendanceDate()), row);
+        }
+        // Punches already recorded on any attendance, so a reused key never reaches the unique index
+        Set<String> idempotencyKeys = new LinkedHashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String idempotencyKey = invalid[i] == null ? IdempotencyCache.keyOf(requests.get(i)) : null;
+            if (idempotencyKey != null) {
+                idempotencyKeys.add(idempotencyKey);
+            }
+        }
+        Map<String, AttendanceRow> rowsByIdempotencyKey = new HashMap<>();
+        for (AttendanceRow row : attendanceJdbcRepo.findAttendanceRowsByKeys(idempotencyKeys)) {
+            if (row.getArrivalKey() != null) {
+                rowsByIdempotencyKey.putIfAbsent(row.getArrivalKey(), row);
+            }
+            if (row.getDepartureKey() != null) {
+                rowsByIdempotencyKey.putIfAbsent(row.getDepartureKey(), row);
+            }
+        }
+
+        List<AttendanceRow> inserts = new ArrayList<>();
+        Set<AttendanceRow> updates = new LinkedHashSet<>();
+        Map<AttendanceBatchResponseDTO.ItemResultDTO, AttendanceRow> recordedRows = new IdentityHashMap<>();
+        Map<AttendanceBatchResponseDTO.ItemResultDTO, String> keysByItem = new IdentityHashMap<>();
+        Map<String, AttendanceBatchResponseDTO.ItemResultDTO> itemsByIdempotencyKey = new HashMap<>();
+        int replays = 0;
+
+        for (int i = 0; i < requests.size(); i++) {
+            AttendanceRequestDTO request = requests.get(i);
+            AttendanceBatchResponseDTO.ItemResultDTO.ItemResultDTOBuilder result =
+                    AttendanceBatchResponseDTO.ItemResultDTO.builder()
+                            .index(offset + i)
+                            .staffId(request != null ? request.getStaffId() : null);
+
+            if (invalid[i] != null) {
+                results.add(result.status(AttendanceBatchResponseDTO.STATUS_ERROR)
+                        .message(invalid[i])
+                        .build());
+                continue;
+            }
+
+            RosterRow staff = staffRows.get(request.getStaffId());
+            if (staff == null) {
+                results.add(result.status(AttendanceBatchResponseDTO.STATUS_ERROR)
+                        .message("Staff not found with ID: " + request.getStaffId())
+                        .build());
+                continue;
+            }
+
+            String idempotencyKey = IdempotencyCache.keyOf(request);
+            AttendanceResponseDTO cached = getRecordedResponse(idempotencyKey);
+            if (cached != null) {
+                results.add(result.status(cached.getStatus()).attendance(cached).build());
+                replays++;
+                continue;
+            }
+
+            PunchKey key = new PunchKey(request.getStaffId(), request.getAttendanceDate());
+            AttendanceRow row = rowsByKey.get(key);
+            String status;
+
+            if (row != null && idempotencyKey != null
+                    && (idempotencyKey.equals(row.getArrivalKey()) || idempotencyKey.equals(row.getDepartureKey()))) {
+                // Punch already recorded (retry) - report it again without writing
+                status = idempotencyKey.equals(row.getArrivalKey()) ? "ARRIVAL_RECORDED" : "DEPARTURE_RECORDED";
+                boolean departed = "DEPARTURE_RECORDED".equals(status);
+                AttendanceRow original = new AttendanceRow(row.getAttendanceId(), row.getStaffId(),
+                        row.getAttendanceDate(), row.getArrivalTime(), departed ? row.getDepartureTime() : null,
+                        row.getArrivalKey(), row.getDepartureKey(), row.getArrivalStatus(), row.getLateMinutes(),
+                        departed ? row.getDepartureStatus() : null, departed ? row.getDepartureMinutes() : null);
+                AttendanceBatchResponseDTO.ItemResultDTO item = result
+                        .status(status)
+                        .attendance(convertToResponseDTO(original, staff, status))
+                        .build();
+                if (row.getAttendanceId() == null) {
+                    recordedRows.put(item, row);
+                }
+                results.add(item);
+                replays++;
+                continue;
+            }
+
+            if (idempotencyKey != null && rowsByIdempotencyKey.containsKey(idempotencyKey)) {
+                // The key was recorded on another attendance (another day, or another staff)
+                AttendanceRow recorded = rowsByIdempotencyKey.get(idempotencyKey);
+                AttendanceResponseDTO replayed = staffRoster.find(recorded.getStaffId())
+                        .map(owner -> replayedResponse(recorded, owner, idempotencyKey))
+                        .orElse(null);
+                if (replayed == null) {
+                    results.add(result.status(AttendanceBatchResponseDTO.STATUS_CONFLICT)
+                            .message("Idempotency key already used: " + idempotencyKey)
+                            .build());
+                    continue;
+                }
+                results.add(result.status(replayed.getStatus()).attendance(replayed).build());
+                replays++;
+                continue;
+            }
+            AttendanceBatchResponseDTO.ItemResultDTO earlier = idempotencyKey != null
+                    ? itemsByIdempotencyKey.get(idempotencyKey) : null;
+            if (earlier != null) {
+                // The key was recorded by an earlier punch of this batch, on another attendance
+                results.add(result.status(earlier.getStatus()).attendance(earlier.getAttendance()).build());
+                replays++;
+                continue;
+            }
+
+            if (row == null) {
+                // No attendance record exists - create new one with arrival time
+                row = new AttendanceRow(null, request.getStaffId(), request.getAttendanceDate(),
+                        request.getAttendanceTime(), null, idempotencyKey, null);
+                punctualityClassifier.classifyArrival(row, staff);
+                rowsByKey.put(key, row);
+                inserts.add(row);
+                status = "ARRIVAL_RECORDED";
+            } else if (row.getArrivalTime() != null && row.getDepartureTime() == null) {
+                // Arrival time is set, departure is null - set departure time
+                row.setDepartureTime(request.getAttendanceTime());
+                row.setDepartureKey(idempotencyKey);
+                punctualityClassifier.classifyDeparture(row, staff);
+                status = "DEPARTURE_RECORDED";
+            } else if (row.getDepartureTime() != null) {
+                // Both times already set
+                results.add(result.status(AttendanceBatchResponseDTO.STATUS_CONFLICT)
+                        .message("Attendance already complete for staff ID: " + request.getStaffId()
+                                + " on date: " + request.getAttendanceDate())
+                        .build());
+                continue;
+            } else {
+                // Arrival time is null (shouldn't normally happen) - set arrival time
+                row.setArrivalTime(request.getAttendanceTime());
+                row.setArrivalKey(idempotencyKey);
+                punctualityClassifier.classifyArrival(row, staff);
+                status = "ARRIVAL_RECORDED";
+            }
+            if (row.getAttendanceId() != null) {
+                updates.add(row);
+            }
+
+            AttendanceBatchResponseDTO.ItemResultDTO item = result
+                    .status(status)
+                    .attendance(convertToResponseDTO(row, staff, status))
+                    .build();
+            recordedRows.put(item, row);
+            keysByItem.put(item, idempotencyKey);
+            if (idempotencyKey != null) {
+                itemsByIdempotencyKey.put(idempotencyKey, item);
+            }
+            results.add(item);
+        }
+
+        attendanceJdbcRepo.batchInsert(inserts);
+        if (!attendanceJdbcRepo.batchUpdateTimes(new ArrayList<>(updates))) {
+            throw new OptimisticLockingFailureException("An attendance of the batch got its departure meanwhile");
+        }
+        // Only once committed: a retry must not be answered, nor the index report, an attendance that was rolled back
+        afterCommit(() -> {
+            inserts.forEach(attendanceIndex::record);
+            updates.forEach(attendanceIndex::record);
+            // Generated IDs are only known once the inserts have been executed
+            recordedRows.forEach((item, row) -> item.getAttendance().setAttendanceId(row.getAttendanceId()));
+            keysByItem.forEach((item, key) -> idempotencyCache.put(key, item.getAttendance()));
+        });
+        // Marked once the batch transaction has committed
+        inserts.forEach(row -> attendanceAggregates.attendanceChanged(row.getStaffId(), row.getAttendanceDate()));
+        updates.forEach(row -> attendanceAggregates.attendanceChanged(row.getStaffId(), row.getAttendanceDate()));
+        // Streamed in punch order once the batch transaction has committed (after the IDs are set)
+        attendanceBroadcaster.publish(results.stream()
+                .filter(keysByItem::containsKey)
+                .map(AttendanceBatchResponseDTO.ItemResultDTO::getAttendance)
+                .toList());
+
+        int recorded = keysByItem.size() + replays;
+        int conflicts = (int) results.stream()
+                .filter(r -> AttendanceBatchResponseDTO.STATUS_CONFLICT.equals(r.getStatus()))
+                .count();
+        log.info("Attendance batch recorded: {} inserted, {} updated, {} retries, {} conflicts, {} errors",
+                inserts.size(), updates.size(), replays, conflicts, requests.size() - recorded - conflicts);
+
+        return AttendanceBatchResponseDTO.builder()
+                .total(requests.size())
+                .recorded(recorded)
+                .conflicts(conflicts)
+                .errors(requests.size() - recorded - conflicts)
+                .results(results)
+                .build();
     }
 
     public Attendance saveAttendance(Attendance attendance){
@@ -138,86 +735,332 @@ public class AttendanceService {
      * Get attendance by ID and return as DTO
      */
     public AttendanceResponseDTO getAttendanceByIdAsDTO(Long id) {
-        Attendance attendance = attendanceRepo.findByAttendanceId(id);
-        if (attendance == null) {
-            throw new IllegalArgumentException("Attendance not found with ID: " + id);
-        }
-        return convertToResponseDTO(attendance, determineStatus(attendance));
+        return attendanceRepo.findResponseById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Attendance not found with ID: " + id));
     }
 
     /**
      * Get all attendances by date and return as DTOs
      */
     public List<AttendanceResponseDTO> getAttendancesByDateAsDTO(String date) {
-        List<Attendance> attendances = attendanceRepo.findAttendancesByAttendanceDate(
-                java.time.LocalDate.parse(date));
-        return attendances.stream()
-                .map(att -> convertToResponseDTO(att, determineStatus(att)))
-                .collect(Collectors.toList());
+        return attendanceRepo.findResponsesByDate(java.time.LocalDate.parse(date));
     }
 
     /**
      * Get all attendances for a staff and return as DTOs
      */
     public List<AttendanceResponseDTO> getStaffAttendancesAsDTO(Long staffId) {
-        List<Attendance> attendances = attendanceRepo.findAttendancesByStaffUserId(staffId);
-        return attendances.stream()
-                .map(att -> convertToResponseDTO(att, determineStatus(att)))
-                .collect(Collectors.toList());
+        return attendanceRepo.findResponsesByStaff(staffId);
+    }
+
+    /**
+     * Get the attendances of a staff on a date and return as DTOs
+     */
+    public List<AttendanceResponseDTO> getStaffAttendancesByDateAsDTO(Long staffId, String date) {
+        return attendanceRepo.findResponsesByStaffAndDate(staffId, java.time.LocalDate.parse(date));
     }
 
     /**
      * Get all attendances and return as DTOs
      */
     public List<AttendanceResponseDTO> getAllAttendancesAsDTO() {
-        List<Attendance> attendances = attendanceRepo.findAll();
-        return attendances.stream()
-                .map(att -> convertToResponseDTO(att, determineStatus(att)))
-                .collect(Collectors.toList());
+        return attendanceRepo.findAllResponses();
     }
 
     /**
      * Get all attendances by department and return as DTOs
      */
     public List<AttendanceResponseDTO> getAllAttendancesByDepartmentAsDTO(Long departmentId) {
-        List<Attendance> attendances = attendanceRepo
-                .findAttendancesByStaff_Department_DpmtId(departmentId);
-        return attendances.stream()
-                .map(att -> convertToResponseDTO(att, determineStatus(att)))
-                .collect(Collectors.toList());
+        return attendanceRepo.findResponsesByDepartment(departmentId);
+    }
+
+    /**
+     * Get one page of attendances, newest first, optionally of a single staff or department.
+     *
+     * @param staffId only attendances of this staff (may be null)
+     * @param departmentId only attendances of this department (may be null)
+     * @param cursor nextCursor of the previous page (null for the first page)
+     * @param limit page size (null for the default, capped at MAX_PAGE_SIZE)
+     * @return the page and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor or the limit is invalid
+     */
+    public AttendancePageDTO getAttendancePage(Long staffId, Long departmentId, String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+
+        LocalDate afterDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split(":");
+                afterDate = LocalDate.parse(position[0]);
+                afterId = Long.parseLong(position[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        // One row more than the page tells whether there is a next page
+        List<AttendanceRow> rows = attendanceJdbcRepo.findAttendancePage(
+                staffId, departmentId, afterDate, afterId, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        List<AttendanceResponseDTO> items = new ArrayList<>(rows.size());
+        for (AttendanceRow row : rows) {
+            items.add(convertToResponseDTO(row, rosterRowOf(row.getStaffId()),
+                    determineStatus(row.getArrivalTime(), row.getDepartureTime())));
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            AttendanceRow last = rows.get(rows.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getAttendanceDate() + ":" + last.getAttendanceId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return AttendancePageDTO.builder()
+                .items(items)
+                .limit(pageSize)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Get the attendances of a date range, optionally of a single staff or department, in date order.
+     *
+     * @param from first attendance date, inclusive (format: yyyy-MM-dd)
+     * @param to last attendance date, inclusive (format: yyyy-MM-dd)
+     * @param staffId only attendances of this staff (may be null)
+     * @param departmentId only attendances of this department (may be null)
+     * @param punctuality only LATE, EARLY_DEPARTURE or OVERTIME attendances (may be null)
+     * @return the attendances of the range
+     * @throws IllegalArgumentException if a date is missing or invalid, from is after to,
+     *         the range is longer than MAX_RANGE_DAYS, or the punctuality is not supported
+     */
+    public List<AttendanceResponseDTO> getAttendancesInRange(String from, String to, Long staffId, Long departmentId,
+                                                             String punctuality) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Both 'from' and 'to' are required (format: yyyy-MM-dd)");
+        }
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = LocalDate.parse(from);
+            toDate = LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format. Use yyyy-MM-dd");
+        }
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_RANGE_DAYS
+                    + " days, use /api/attendance/export for longer periods");
+        }
+
+        List<AttendanceRow> rows = attendanceJdbcRepo.findAttendanceRowsInRange(staffId, departmentId, fromDate, toDate,
+                parsePunctuality(punctuality));
+        List<AttendanceResponseDTO> attendances = new ArrayList<>(rows.size());
+        for (AttendanceRow row : rows) {
+            attendances.add(convertToResponseDTO(row, rosterRowOf(row.getStaffId()),
+                    determineStatus(row.getArrivalTime(), row.getDepartureTime())));
+        }
+        return attendances;
+    }
+
+    /**
+     * Stream attendances in date order, one DTO at a time, without holding them in memory.
+     *
+     * @param from first attendance date, inclusive (may be null)
+     * @param to last attendance date, inclusive (may be null)
+     * @param departmentId only attendances of this department (may be null)
+     * @param staffId only attendances of this staff (may be null)
+     * @param consumer called once per attendance, in order
+     * @throws IllegalArgumentException if from is after to
+     */
+    public void streamAttendances(LocalDate from, LocalDate to, Long departmentId, Long staffId,
+                                  Consumer<AttendanceResponseDTO> consumer) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        attendanceJdbcRepo.streamAttendanceRows(staffId, departmentId, from, to, exportFetchSize, row -> {
+            consumer.accept(convertToResponseDTO(row, rosterRowOf(row.getStaffId()),
+                    determineStatus(row.getArrivalTime(), row.getDepartureTime())));
+        });
+    }
+
+    /**
+     * Roster entry of the staff of a listed attendance (only the ID if the staff is unknown)
+     */
+    private RosterRow rosterRowOf(Long staffId) {
+        return staffRoster.find(staffId)
+                .orElseGet(() -> new RosterRow(staffId, null, null, null, false, null, null, null, null));
     }
 
     /**
      * Convert Attendance entity to AttendanceResponseDTO
      */
     private AttendanceResponseDTO convertToResponseDTO(Attendance attendance, String status) {
-        Staff staff = attendance.getStaff();
+        // Staff details come from the roster; only the ID of the lazy staff reference is read
+        RosterRow rosterRow = rosterRowOf(attendance.getStaff().getUserId());
 
         return AttendanceResponseDTO.builder()
                 .attendanceId(attendance.getAttendanceId())
                 .attendanceDate(attendance.getAttendanceDate())
                 .arrivalTime(attendance.getArrivalTime())
                 .departureTime(attendance.getDepartureTime())
-                .staffId(staff.getUserId())
-                .staffName(staff.getName())
-                .staffSurname(staff.getSurname())
-                .staffEmail(staff.getEmail())
-                .departmentId(staff.getDepartment() != null ? staff.getDepartment().getDpmtId() : null)
-                .departmentName(staff.getDepartment() != null ? staff.getDepartment().getDpmtName() : null)
+                .staffId(rosterRow.staffId())
+                .staffName(rosterRow.name())
+                .staffSurname(rosterRow.surname())
+                .staffEmail(rosterRow.email())
+                .departmentId(rosterRow.departmentId())
+                .departmentName(rosterRow.departmentName())
                 .status(status)
+                .arrivalStatus(attendance.getArrivalStatus())
+                .lateMinutes(attendance.getLateMinutes())
+                .departureStatus(attendance.getDepartureStatus())
+                .departureMinutes(attendance.getDepartureMinutes())
                 .build();
     }
 
     /**
-     * Determine the status of an attendance record
+     * Rebuild the response originally returned for a punch that is being retried.
+     *
+     * @return the original response, or null if the key does not belong to this attendance
+     */
+    private AttendanceResponseDTO replayedResponse(Attendance attendance, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        if (idempotencyKey.equals(attendance.getDepartureKey())) {
+            return convertToResponseDTO(attendance, "DEPARTURE_RECORDED");
+        }
+        if (idempotencyKey.equals(attendance.getArrivalKey())) {
+            AttendanceResponseDTO response = convertToResponseDTO(attendance, "ARRIVAL_RECORDED");
+            response.setDepartureTime(null);
+            response.setDepartureStatus(null);
+            response.setDepartureMinutes(null);
+            return response;
+        }
+        return null;
+    }
+
+    /**
+     * Convert a JDBC attendance row to AttendanceResponseDTO
+     */
+    private AttendanceResponseDTO convertToResponseDTO(AttendanceRow row, RosterRow staff, String status) {
+        return AttendanceResponseDTO.builder()
+                .attendanceId(row.getAttendanceId())
+                .attendanceDate(row.getAttendanceDate())
+                .arrivalTime(row.getArrivalTime())
+                .departureTime(row.getDepartureTime())
+                .staffId(staff.staffId())
+                .staffName(staff.name())
+                .staffSurname(staff.surname())
+                .staffEmail(staff.email())
+                .departmentId(staff.departmentId())
+                .departmentName(staff.departmentName())
+                .status(status)
+                .arrivalStatus(row.getArrivalStatus())
+                .lateMinutes(row.getLateMinutes())
+                .departureStatus(row.getDepartureStatus())
+                .departureMinutes(row.getDepartureMinutes())
+                .build();
+    }
+
+    /**
+     * Rebuild the response originally returned for a punch that is being retried.
+     *
+     * @return the original response, or null if the key does not belong to this attendance
+     */
+    private AttendanceResponseDTO replayedResponse(AttendanceRow row, RosterRow staff, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        if (idempotencyKey.equals(row.getDepartureKey())) {
+            return convertToResponseDTO(row, staff, "DEPARTURE_RECORDED");
+        }
+        if (idempotencyKey.equals(row.getArrivalKey())) {
+            AttendanceResponseDTO response = convertToResponseDTO(row, staff, "ARRIVAL_RECORDED");
+            response.setDepartureTime(null);
+            response.setDepartureStatus(null);
+            response.setDepartureMinutes(null);
+            return response;
+        }
+        return null;
+    }
+
+    private static Attendance.Punctuality parsePunctuality(String punctuality) {
+        if (punctuality == null) {
+            return null;
+        }
+        try {
+            Attendance.Punctuality parsed = Attendance.Punctuality.valueOf(punctuality.trim().toUpperCase(Locale.ROOT));
+            if (parsed != Attendance.Punctuality.ON_TIME) {
+                return parsed;
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Unsupported punctuality: " + punctuality
+                + " (use late, early_departure or overtime)");
+    }
+
+    /**
+     * Validate a punch of a batch against the constraints of AttendanceRequestDTO, which @Valid
+     * only applies to single punches.
+     *
+     * @return the violation messages, or null if the punch is valid
      */
-    private String determineStatus(Attendance attendance) {
-        if (attendance.getArrivalTime() != null && attendance.getDepartureTime() != null) {
+    private String validationError(AttendanceRequestDTO request) {
+        if (request == null) {
+            return "Staff ID, attendance date and attendance time are required";
+        }
+        Set<ConstraintViolation<AttendanceRequestDTO>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Determine the status of an attendance record (the projection queries compute the same in SQL)
+     */
+    private static String determineStatus(LocalDateTime arrivalTime, LocalDateTime departureTime) {
+        if (arrivalTime != null && departureTime != null) {
             return "COMPLETE";
-        } else if (attendance.getArrivalTime() != null) {
+        } else if (arrivalTime != null) {
             return "ARRIVAL_RECORDED";
         } else {
             return "INCOMPLETE";
         }
     }
+
+    /**
+     * Staff/date pair identifying a single attendance record
+     */
+    private record PunchKey(Long staffId, LocalDate attendanceDate) {
+    }
 }
@@ -0,0 +1,256 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.CacheStatsDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, time-evicted cache with hit/miss counters, for the response DTOs of DirectoryCache.
+ * Entries expire ttl after they were loaded; beyond maxEntries the oldest entry is evicted.
+ *
+ * Values are loaded outside the lock. A value loaded while its key was invalidated may be stale
+ * (read before the change committed): it is returned to its caller but not stored.
+ */
+public final class BoundedCache<K, V> {
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // Loads in progress, and the invalidations they must not overwrite: generation of each invalidated
+    // key, and of the last invalidation of every key. Only kept while a load is in progress.
+    private int loading;
+    private long generation;
+    private long allInvalidatedAt;
+    private final Map<K, Long> invalidatedWhileLoading = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public BoundedCache(String name, int maxEntries, long ttlMillis) {
+        this.name = name;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlMillis;
+        // Insertion order: the eldest entry is always the first to expire
+        this.entries = new LinkedHashMap<>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get a value, loading it if it is not cached.
+     *
+     * @param key the key
+     * @param loader loads the value of the key (null if there is none, which is not cached)
+     * @return the value, or null if there is none
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long token = beginLoad();
+        V loaded = null;
+        try {
+            loaded = loader.apply(key);
+            return loaded;
+        } finally {
+            endLoad(token, loaded != null ? Map.of(key, loaded) : Map.of());
+        }
+    }
+
+    /**
+     * Get the values of several keys, loading the missing ones with a single call.
+     *
+     * @param keys the keys
+     * @param loader loads the values of the missing keys (keys without value are left out)
+     * @return the values found, by key
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>(keys.size() * 2);
+        List<K> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            evictExpired(now);
+            for (K key : keys) {
+                Entry<V> entry = entries.get(key);
+                if (entry != null) {
+                    found.put(key, entry.value());
+                } else {
+                    missing.add(key);
+                }
+            }
+            hits += found.size();
+            misses += missing.size();
+        } finally {
+            lock.unlock();
+        }
+        if (!missing.isEmpty()) {
+            long token = beginLoad();
+            Map<K, V> loaded = Map.of();
+            try {
+                loaded = loader.apply(missing);
+            } finally {
+                endLoad(token, loaded);
+            }
+            found.putAll(loaded);
+        }
+        return found;
+    }
+
+    /**
+     * @return the cached value of a key, or null if it is not cached (counted as a miss)
+     */
+    public V getIfPresent(K key) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            evictExpired(now);
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start loading values: call endLoad with the returned token once loaded, even if loading failed.
+     *
+     * @return the load token
+     */
+    public long beginLoad() {
+        lock.lock();
+        try {
+            loading++;
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Store loaded values, except those invalidated since the load began.
+     *
+     * @param token the token returned by beginLoad
+     * @param loaded the loaded values
+     */
+    public void endLoad(long token, Map<K, V> loaded) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        lock.lock();
+        try {
+            if (allInvalidatedAt <= token) {
+                loaded.forEach((key, value) -> {
+                    Long invalidatedAt = invalidatedWhileLoading.get(key);
+                    if (value != null && (invalidatedAt == null || invalidatedAt <= token)) {
+                        // Re-insert so a reloaded entry moves to the end of the expiry order
+                        entries.remove(key);
+                        entries.put(key, new Entry<>(value, expiresAt));
+                    }
+                });
+            }
+            if (--loading == 0) {
+                invalidatedWhileLoading.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a key, and keep the loads in progress from storing it again.
+     */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            generation++;
+            invalidations++;
+            entries.remove(key);
+            if (loading > 0) {
+                invalidatedWhileLoading.put(key, generation);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the entries whose value matches, and keep the loads in progress from storing anything.
+     */
+    public void invalidateIf(Predicate<? super V> invalidated) {
+        lock.lock();
+        try {
+            generation++;
+            invalidations++;
+            entries.values().removeIf(entry -> invalidated.test(entry.value()));
+            allInvalidatedAt = generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove every entry, and keep the loads in progress from storing anything.
+     */
+    public void invalidateAll() {
+        invalidateIf(value -> true);
+    }
+
+    /**
+     * @return the size and counters of the cache
+     */
+    public CacheStatsDTO getStats() {
+        lock.lock();
+        try {
+            long requests = hits + misses;
+            return CacheStatsDTO.builder()
+                    .name(name)
+                    .size(entries.size())
+                    .maxSize(maxEntries)
+                    .ttlSeconds(ttlMillis / 1000)
+                    .hits(hits)
+                    .misses(misses)
+                    .hitRate(requests > 0 ? Math.round(hits * 1000.0 / requests) / 10.0 : 0.0)
+                    .evictions(evictions)
+                    .invalidations(invalidations)
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictExpired(long now) {
+        var iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAt() <= now) {
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -15,9 +15,17 @@ import java.util.List;
 public class ContractService {
 
     private final ContractRepo contractRepo;
+    private final StaffRoster staffRoster;
+    private final DirectoryCache directoryCache;
 
     public Contract saveContract(Contract contract){
-        return contractRepo.save(contract);
+        Contract saved = contractRepo.save(contract);
+        if (saved.getStaff() != null) {
+            // Contract hours are part of the staff roster
+            staffRoster.staffChanged(saved.getStaff().getUserId());
+            directoryCache.contractChanged(saved.getStaff().getUserId());
+        }
+        return saved;
     }
 
     public Contract getContractById(Long id){
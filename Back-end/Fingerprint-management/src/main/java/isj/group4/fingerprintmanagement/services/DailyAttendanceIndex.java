@@ -0,0 +1,338 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.repository.AttendanceJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.AttendanceJdbcRepo.AttendanceRow;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of today's attendances, keyed by staff ID.
+ * Answers "does this staff already have an attendance today, and is it open?" without a SELECT.
+ *
+ * The index is an open-addressing hash table over parallel primitive arrays (no boxing,
+ * about 25 bytes per slot), warmed from the database at startup and at every day rollover,
+ * and kept current by every attendance write of this instance. Until it is warmed, and for
+ * any other date than today, lookups return UNKNOWN and the caller reads the database.
+ *
+ * It assumes this instance is the only writer of attendances
+ * (disable with attendance.index.enabled=false when running several instances), and is only
+ * enabled when the attendances table has its unique (staff_id, attendance_date) key.
+ */
+@Component
+@Log4j2
+public class DailyAttendanceIndex {
+
+    /** Lookup results. */
+    public static final byte UNKNOWN = -1;
+    public static final byte NONE = 0;
+    public static final byte OPEN = 1;
+    public static final byte COMPLETE = 2;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int WARM_ATTEMPTS = 3;
+
+    private final AttendanceJdbcRepo attendanceJdbcRepo;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock warmLock = new ReentrantLock();
+
+    // Slot i is used when staffIds[i] != 0 (staff IDs start at 1)
+    private long[] staffIds;
+    private long[] attendanceIds;
+    private long[] arrivalEpochSeconds;
+    private byte[] states;
+    private int size;
+
+    private LocalDate date;
+    private boolean warm;
+    private long modifications;
+
+    public DailyAttendanceIndex(AttendanceJdbcRepo attendanceJdbcRepo, AttendanceSchemaCheck attendanceSchema,
+                                @Value("${attendance.index.enabled:true}") boolean enabled) {
+        this.attendanceJdbcRepo = attendanceJdbcRepo;
+        // A NONE answer lets the caller insert without reading: only safe with the unique (staff, date) key
+        this.enabled = enabled && attendanceSchema.hasStaffDateKey();
+        if (enabled && !this.enabled) {
+            log.error("attendance.index.enabled is ignored: the attendances table has no unique "
+                    + "(staff_id, attendance_date) key (run fix_attendance_duplicates.sql)");
+        }
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Look up the attendance of a staff on a date.
+     *
+     * @param staffId the staff user ID
+     * @param attendanceDate the attendance date
+     * @return the indexed attendance; its state is UNKNOWN if the database must be consulted
+     */
+    public Slot lookup(Long staffId, LocalDate attendanceDate) {
+        if (!enabled || staffId == null) {
+            return Slot.UNKNOWN_SLOT;
+        }
+        rollOverIfStale();
+        lock.readLock().lock();
+        try {
+            if (!warm || !attendanceDate.equals(date)) {
+                return Slot.UNKNOWN_SLOT;
+            }
+            int i = indexOf(staffId);
+            if (staffIds[i] == 0) {
+                return Slot.NONE_SLOT;
+            }
+            return new Slot(states[i], attendanceIds[i],
+                    LocalDateTime.ofEpochSecond(arrivalEpochSeconds[i], 0, ZoneOffset.UTC));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Record the state of an attendance after it has been written. Ignored for other dates than today.
+     *
+     * @param row the attendance row as written to the database
+     */
+    public void record(AttendanceRow row) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            modifications++;
+            if (!row.getAttendanceDate().equals(date) || row.getAttendanceId() == null) {
+                return;
+            }
+            put(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stop trusting the index after it disagreed with the database for a staff.
+     * Lookups read the database until the index has been reloaded by {@link #retryWarmUp}.
+     *
+     * @param staffId the staff user ID
+     */
+    public void invalidate(Long staffId) {
+        lock.writeLock().lock();
+        try {
+            modifications++;
+            if (warm) {
+                // Removing from an open-addressing table would break probe chains - stop trusting it instead
+                warm = false;
+                log.warn("Attendance index invalidated by staff ID: {}, it will be rebuilt", staffId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Load today's attendances once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rollOver();
+    }
+
+    /**
+     * Switch the index to the new day at midnight.
+     */
+    @Scheduled(cron = "${attendance.index.rollover-cron:0 0 0 * * *}")
+    public void rollOver() {
+        if (!enabled) {
+            return;
+        }
+        warmLock.lock();
+        try {
+            load();
+        } finally {
+            warmLock.unlock();
+        }
+    }
+
+    private void load() {
+        LocalDate today = LocalDate.now();
+        for (int attempt = 1; attempt <= WARM_ATTEMPTS; attempt++) {
+            long start;
+            lock.readLock().lock();
+            try {
+                start = modifications;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            List<AttendanceRow> rows;
+            try {
+                rows = attendanceJdbcRepo.findAttendanceRowsByDate(today);
+            } catch (Exception e) {
+                log.error("Cannot load attendances of {} into the index: {}", today, e.getMessage());
+                break;
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (modifications != start) {
+                    // A punch was written while loading - the snapshot may be stale, load again
+                    continue;
+                }
+                allocate(capacityFor(rows.size()));
+                rows.forEach(this::put);
+                date = today;
+                warm = true;
+                log.info("Attendance index warmed for {} with {} attendances", today, rows.size());
+                return;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        // Stay cold for today (lookups read the database) until retryWarmUp succeeds
+        lock.writeLock().lock();
+        try {
+            date = today;
+            warm = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.warn("Attendance index for {} not warmed, will retry", today);
+    }
+
+    /**
+     * Retry loading the index after a failed warm-up.
+     */
+    @Scheduled(fixedDelayString = "${attendance.index.retry-interval-ms:60000}",
+            initialDelayString = "${attendance.index.retry-interval-ms:60000}")
+    public void retryWarmUp() {
+        boolean cold;
+        lock.readLock().lock();
+        try {
+            cold = !warm;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (cold) {
+            rollOver();
+        }
+    }
+
+    /**
+     * @return number of indexed attendances
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rollOverIfStale() {
+        LocalDate today = LocalDate.now();
+        lock.readLock().lock();
+        try {
+            if (today.equals(date)) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Only one caller reloads, the others read the database meanwhile
+        if (warmLock.tryLock()) {
+            try {
+                load();
+            } finally {
+                warmLock.unlock();
+            }
+        }
+    }
+
+    private void put(AttendanceRow row) {
+        if (row.getArrivalTime() == null) {
+            return;
+        }
+        if ((size + 1) * 2 > staffIds.length) {
+            resize();
+        }
+        int i = indexOf(row.getStaffId());
+        if (staffIds[i] == 0) {
+            staffIds[i] = row.getStaffId();
+            size++;
+        }
+        attendanceIds[i] = row.getAttendanceId();
+        arrivalEpochSeconds[i] = row.getArrivalTime().toEpochSecond(ZoneOffset.UTC);
+        states[i] = row.getDepartureTime() == null ? OPEN : COMPLETE;
+    }
+
+    /**
+     * @return the slot of the staff, or the empty slot where it would be inserted
+     */
+    private int indexOf(long staffId) {
+        int mask = staffIds.length - 1;
+        int i = hash(staffId) & mask;
+        while (staffIds[i] != 0 && staffIds[i] != staffId) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void resize() {
+        long[] oldStaffIds = staffIds;
+        long[] oldAttendanceIds = attendanceIds;
+        long[] oldArrivals = arrivalEpochSeconds;
+        byte[] oldStates = states;
+        allocate(oldStaffIds.length * 2);
+        for (int j = 0; j < oldStaffIds.length; j++) {
+            if (oldStaffIds[j] != 0) {
+                int i = indexOf(oldStaffIds[j]);
+                staffIds[i] = oldStaffIds[j];
+                attendanceIds[i] = oldAttendanceIds[j];
+                arrivalEpochSeconds[i] = oldArrivals[j];
+                states[i] = oldStates[j];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        staffIds = new long[capacity];
+        attendanceIds = new long[capacity];
+        arrivalEpochSeconds = new long[capacity];
+        states = new byte[capacity];
+        size = 0;
+    }
+
+    private static int capacityFor(int entries) {
+        // Keep the load factor at or below 0.5
+        return Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, entries * 2 - 1)) << 1);
+    }
+
+    private static int hash(long staffId) {
+        long h = staffId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Indexed state of a staff's attendance.
+     *
+     * @param state UNKNOWN, NONE, OPEN or COMPLETE
+     * @param attendanceId the attendance ID (OPEN and COMPLETE only)
+     * @param arrivalTime the arrival time (OPEN and COMPLETE only)
+     */
+    public record Slot(byte state, long attendanceId, LocalDateTime arrivalTime) {
+        static final Slot UNKNOWN_SLOT = new Slot(UNKNOWN, 0, null);
+        static final Slot NONE_SLOT = new Slot(NONE, 0, null);
+    }
+}
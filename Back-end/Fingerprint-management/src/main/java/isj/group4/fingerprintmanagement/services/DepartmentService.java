@@ -6,6 +6,7 @@ import isj.group4.fingerprintmanagement.dto.DepartmentResponseDTO;
 import isj.group4.fingerprintmanagement.entity.Department;
 import isj.group4.fingerprintmanagement.entity.Staff;
 import isj.group4.fingerprintmanagement.repository.DepartmentRepo;
+import isj.group4.fingerprintmanagement.repository.ReportRepo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
@@ -24,6 +25,11 @@ import java.util.stream.Collectors;
 public class DepartmentService {
 
     private final DepartmentRepo departmentRepo;
+    private final ReportRepo reportRepo;
+    private final RosterSyncService rosterSyncService;
+    private final StaffRoster staffRoster;
+    private final AttendanceAggregateService attendanceAggregates;
+    private final DirectoryCache directoryCache;
 
     /**
      * Create a new department.
@@ -48,6 +54,7 @@ public class DepartmentService {
                 .build();
 
         Department savedDepartment = departmentRepo.save(department);
+        directoryCache.departmentsChanged();
         log.info("Department created successfully: {} (ID: {})", savedDepartment.getDpmtName(), savedDepartment.getDpmtId());
 
         return mapToResponseDTO(savedDepartment);
@@ -64,13 +71,11 @@ public class DepartmentService {
     public DepartmentResponseDTO getDepartmentById(Long departmentId) {
         log.debug("Fetching department with ID: {}", departmentId);
 
-        Department department = departmentRepo.findByDpmtId(departmentId)
+        return departmentRepo.findResponseByDpmtId(departmentId)
                 .orElseThrow(() -> {
                     log.warn("Department not found with ID: {}", departmentId);
                     return new IllegalArgumentException("Department not found with ID: " + departmentId);
                 });
-
-        return mapToResponseDTO(department);
     }
 
     /**
@@ -84,13 +89,13 @@ public class DepartmentService {
     public DepartmentDetailDTO getDepartmentDetails(Long departmentId) {
         log.debug("Fetching detailed information for department ID: {}", departmentId);
 
-        Department department = departmentRepo.findByDpmtId(departmentId)
-                .orElseThrow(() -> {
-                    log.warn("Department not found with ID: {}", departmentId);
-                    return new IllegalArgumentException("Department not found with ID: " + departmentId);
-                });
-
-        return mapToDetailDTO(department);
+        DepartmentDetailDTO details = directoryCache.getDepartmentDetails(departmentId,
+                id -> departmentRepo.findByDpmtId(id).map(this::mapToDetailDTO).orElse(null));
+        if (details == null) {
+            log.warn("Department not found with ID: {}", departmentId);
+            throw new IllegalArgumentException("Department not found with ID: " + departmentId);
+        }
+        return details;
     }
 
     /**
@@ -104,13 +109,11 @@ public class DepartmentService {
     public DepartmentResponseDTO getDepartmentByName(String name) {
         log.debug("Fetching department with name: {}", name);
 
-        Department department = departmentRepo.findByDpmtName(name)
+        return departmentRepo.findResponseByDpmtName(name)
                 .orElseThrow(() -> {
                     log.warn("Department not found with name: {}", name);
                     return new IllegalArgumentException("Department not found with name: " + name);
                 });
-
-        return mapToResponseDTO(department);
     }
 
     /**
@@ -121,9 +124,7 @@ public class DepartmentService {
     @Transactional(readOnly = true)
     public List<DepartmentResponseDTO> getAllDepartments() {
         log.debug("Fetching all departments");
-        return departmentRepo.findAll().stream()
-                .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+        return directoryCache.getAllDepartments(departmentRepo::findAllResponses);
     }
 
     /**
@@ -135,9 +136,7 @@ public class DepartmentService {
     @Transactional(readOnly = true)
     public List<DepartmentResponseDTO> searchDepartmentsByName(String namePart) {
         log.debug("Searching departments with name containing: {}", namePart);
-        return departmentRepo.findByDpmtNameContainingIgnoreCase(namePart).stream()
-                .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+        return departmentRepo.findResponsesByDpmtNameContaining(namePart);
     }
 
     /**
@@ -148,9 +147,7 @@ public class DepartmentService {
     @Transactional(readOnly = true)
     public List<DepartmentResponseDTO> getDepartmentsWithStaff() {
         log.debug("Fetching departments with staff");
-        return departmentRepo.findDepartmentsWithStaff().stream()
-                .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+        return departmentRepo.findResponsesWithStaff();
     }
 
     /**
@@ -161,9 +158,7 @@ public class DepartmentService {
     @Transactional(readOnly = true)
     public List<DepartmentResponseDTO> getEmptyDepartments() {
         log.debug("Fetching empty departments");
-        return departmentRepo.findEmptyDepartments().stream()
-                .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+        return departmentRepo.findEmptyResponses();
     }
 
     /**
@@ -191,8 +186,17 @@ public class DepartmentService {
             throw new IllegalArgumentException("Department name already exists: " + requestDTO.getDpmtName());
         }
 
+        boolean renamed = !department.getDpmtName().equals(requestDTO.getDpmtName());
         department.setDpmtName(requestDTO.getDpmtName());
         Department updatedDepartment = departmentRepo.save(department);
+        if (renamed) {
+            // Terminals show the department name of each staff
+            rosterSyncService.departmentChanged(departmentId);
+            staffRoster.departmentChanged(departmentId);
+            directoryCache.departmentRenamed(departmentId);
+        } else {
+            directoryCache.departmentsChanged();
+        }
 
         log.info("Department updated successfully: {} (ID: {})", updatedDepartment.getDpmtName(), departmentId);
         return mapToResponseDTO(updatedDepartment);
@@ -223,6 +227,7 @@ public class DepartmentService {
         }
 
         departmentRepo.delete(department);
+        directoryCache.departmentsChanged();
         log.info("Department deleted successfully: {} (ID: {})", department.getDpmtName(), departmentId);
     }
 
@@ -243,7 +248,15 @@ public class DepartmentService {
                 });
 
         int staffCount = department.getStaff() != null ? department.getStaff().size() : 0;
+        List<Long> staffIds = department.getStaff() != null
+                ? department.getStaff().stream().map(Staff::getUserId).toList()
+                : List.of();
+        attendanceAggregates.staffRemoved(staffIds);
         departmentRepo.delete(department);
+        staffIds.forEach(rosterSyncService::recordDeletion);
+        staffRoster.departmentChanged(departmentId);
+        staffIds.forEach(directoryCache::staffCreatedOrDeleted);
+        directoryCache.departmentsChanged();
 
         log.warn("Department force deleted with {} staff members: {} (ID: {})",
                 staffCount, department.getDpmtName(), departmentId);
@@ -270,32 +283,21 @@ public class DepartmentService {
     public DepartmentResponseDTO getDepartmentStatistics(Long departmentId) {
         log.debug("Fetching statistics for department ID: {}", departmentId);
 
-        Department department = departmentRepo.findByDpmtId(departmentId)
+        return departmentRepo.findResponseByDpmtId(departmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Department not found with ID: " + departmentId));
-
-        return mapToResponseDTO(department);
     }
 
     /**
      * Map Department entity to DepartmentResponseDTO.
+     * Read back through the statistics query, which flushes pending changes of the current transaction first.
      *
      * @param department the department entity
      * @return the department response DTO
      */
     private DepartmentResponseDTO mapToResponseDTO(Department department) {
-        int totalStaff = department.getStaff() != null ? department.getStaff().size() : 0;
-        int activeStaff = department.getStaff() != null
-                ? (int) department.getStaff().stream().filter(Staff::getActive).count()
-                : 0;
-        int totalReports = department.getReports() != null ? department.getReports().size() : 0;
-
-        return DepartmentResponseDTO.builder()
-                .dpmtId(department.getDpmtId())
-                .dpmtName(department.getDpmtName())
-                .totalStaff(totalStaff)
-                .activeStaff(activeStaff)
-                .totalReports(totalReports)
-                .build();
+        return departmentRepo.findResponseByDpmtId(department.getDpmtId())
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Department not found with ID: " + department.getDpmtId()));
     }
 
     /**
@@ -307,9 +309,10 @@ public class DepartmentService {
     private DepartmentDetailDTO mapToDetailDTO(Department department) {
         int totalStaff = department.getStaff() != null ? department.getStaff().size() : 0;
         int activeStaff = department.getStaff() != null
-                ? (int) department.getStaff().stream().filter(Staff::getActive).count()
+                ? (int) department.getStaff().stream().filter(staff -> Boolean.TRUE.equals(staff.getActive())).count()
                 : 0;
-        int totalReports = department.getReports() != null ? department.getReports().size() : 0;
+        // Reports are only counted, not loaded
+        int totalReports = (int) reportRepo.countByDepartment_DpmtId(department.getDpmtId());
 
         List<DepartmentDetailDTO.StaffSummaryDTO> staffList = department.getStaff() != null
                 ? department.getStaff().stream()
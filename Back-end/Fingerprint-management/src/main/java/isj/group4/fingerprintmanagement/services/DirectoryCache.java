@@ -0,0 +1,240 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.CacheStatsDTO;
+import isj.group4.fingerprintmanagement.dto.DepartmentDetailDTO;
+import isj.group4.fingerprintmanagement.dto.DepartmentResponseDTO;
+import isj.group4.fingerprintmanagement.dto.StaffResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the staff and department response DTOs read on every page of the web app:
+ * the staff by ID, the staff list, the department list and the department details.
+ *
+ * The staff list is cached as the list of staff IDs, and its DTOs are the per-staff entries:
+ * a punch (which changes the attendance count of one staff) only evicts that staff, and the next
+ * list reads it again with the other missing staff. Changes made through StaffService,
+ * DepartmentService, ContractService and the absence jobs evict the affected entries once their
+ * transaction has committed. Entries expire after attendance.dto-cache.ttl-seconds, which bounds
+ * how long changes made by other instances (or directly in the database) go unseen.
+ * The ETag versions of ResourceVersions are bumped at the same points.
+ */
+@Component
+public class DirectoryCache {
+
+    private static final String ALL = "all";
+
+    private final boolean enabled;
+    private final BoundedCache<Long, StaffResponseDTO> staff;
+    private final BoundedCache<String, List<Long>> staffIds;
+    private final BoundedCache<String, List<DepartmentResponseDTO>> departments;
+    private final BoundedCache<Long, DepartmentDetailDTO> departmentDetails;
+    private final ResourceVersions resourceVersions;
+
+    public DirectoryCache(ResourceVersions resourceVersions,
+                          @Value("${attendance.dto-cache.enabled:true}") boolean enabled,
+                          @Value("${attendance.dto-cache.max-staff:100000}") int maxStaff,
+                          @Value("${attendance.dto-cache.max-departments:1000}") int maxDepartments,
+                          @Value("${attendance.dto-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.resourceVersions = resourceVersions;
+        this.enabled = enabled;
+        long ttlMillis = ttlSeconds * 1000;
+        this.staff = new BoundedCache<>("staff", maxStaff, ttlMillis);
+        this.staffIds = new BoundedCache<>("staff-list", 1, ttlMillis);
+        this.departments = new BoundedCache<>("department-list", 1, ttlMillis);
+        this.departmentDetails = new BoundedCache<>("department-details", maxDepartments, ttlMillis);
+    }
+
+    /**
+     * @param staffId the staff user ID
+     * @param loader loads the staff (null if not found)
+     * @return the staff, or null if not found
+     */
+    public StaffResponseDTO getStaff(Long staffId, Function<Long, StaffResponseDTO> loader) {
+        return enabled ? staff.get(staffId, loader) : loader.apply(staffId);
+    }
+
+    /**
+     * @param loadAll loads every staff, ordered by ID
+     * @param loadByIds loads the given staff
+     * @return every staff, ordered by ID
+     */
+    public List<StaffResponseDTO> getAllStaff(Supplier<List<StaffResponseDTO>> loadAll,
+                                              Function<List<Long>, List<StaffResponseDTO>> loadByIds) {
+        if (!enabled) {
+            return loadAll.get();
+        }
+        List<Long> ids = staffIds.getIfPresent(ALL);
+        if (ids == null) {
+            // One query for the list and every entry
+            long idsToken = staffIds.beginLoad();
+            long staffToken = staff.beginLoad();
+            Map<Long, StaffResponseDTO> loaded = new LinkedHashMap<>();
+            try {
+                loadAll.get().forEach(dto -> loaded.put(dto.getUserId(), dto));
+            } finally {
+                staff.endLoad(staffToken, loaded);
+                staffIds.endLoad(idsToken, loaded.isEmpty() ? Map.of() : Map.of(ALL, List.copyOf(loaded.keySet())));
+            }
+            return new ArrayList<>(loaded.values());
+        }
+        Map<Long, StaffResponseDTO> found = staff.getAll(ids, missing -> {
+            Map<Long, StaffResponseDTO> loaded = new LinkedHashMap<>();
+            loadByIds.apply(missing).forEach(dto -> loaded.put(dto.getUserId(), dto));
+            return loaded;
+        });
+        List<StaffResponseDTO> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            // Staff deleted meanwhile are left out
+            StaffResponseDTO dto = found.get(id);
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param loader loads every department
+     * @return every department
+     */
+    public List<DepartmentResponseDTO> getAllDepartments(Supplier<List<DepartmentResponseDTO>> loader) {
+        return enabled ? departments.get(ALL, key -> List.copyOf(loader.get())) : loader.get();
+    }
+
+    /**
+     * @param departmentId the department ID
+     * @param loader loads the department details (null if not found)
+     * @return the department details, or null if not found
+     */
+    public DepartmentDetailDTO getDepartmentDetails(Long departmentId, Function<Long, DepartmentDetailDTO> loader) {
+        return enabled ? departmentDetails.get(departmentId, loader) : loader.apply(departmentId);
+    }
+
+    /**
+     * Evict a changed staff once the current transaction has committed. The departments are evicted
+     * as well: they count the staff and list their name, status and absences.
+     *
+     * @param staffId the staff user ID
+     */
+    public void staffChanged(Long staffId) {
+        afterCommit(() -> {
+            staff.invalidate(staffId);
+            evictDepartments();
+            resourceVersions.staffChanged();
+        });
+    }
+
+    /**
+     * Evict a created or deleted staff and the staff list once the current transaction has committed.
+     *
+     * @param staffId the staff user ID
+     */
+    public void staffCreatedOrDeleted(Long staffId) {
+        afterCommit(() -> {
+            staff.invalidate(staffId);
+            staffIds.invalidateAll();
+            evictDepartments();
+            resourceVersions.staffChanged();
+        });
+    }
+
+    /**
+     * Evict staff whose absence count changed once the current transaction has committed.
+     *
+     * @param changedStaffIds the staff user IDs
+     */
+    public void absencesChanged(Collection<Long> changedStaffIds) {
+        afterCommit(() -> {
+            changedStaffIds.forEach(staff::invalidate);
+            departmentDetails.invalidateAll();
+            resourceVersions.absencesChanged();
+        });
+    }
+
+    /**
+     * Evict the staff of a changed contract once the current transaction has committed.
+     *
+     * @param staffId the staff user ID
+     */
+    public void contractChanged(Long staffId) {
+        afterCommit(() -> {
+            staff.invalidate(staffId);
+            resourceVersions.contractChanged();
+        });
+    }
+
+    /**
+     * Evict staff whose attendance totals changed (the DTO has its attendance count).
+     * Call once the summary rows have committed.
+     *
+     * @param changedStaffIds the staff user IDs, or null for every staff
+     */
+    public void attendanceTotalsChanged(Collection<Long> changedStaffIds) {
+        if (changedStaffIds == null) {
+            staff.invalidateAll();
+        } else {
+            changedStaffIds.forEach(staff::invalidate);
+        }
+        resourceVersions.attendanceTotalsChanged();
+    }
+
+    /**
+     * Evict the departments once the current transaction has committed (a department was created,
+     * changed or deleted).
+     */
+    public void departmentsChanged() {
+        afterCommit(() -> {
+            evictDepartments();
+            resourceVersions.departmentsChanged();
+        });
+    }
+
+    /**
+     * Evict the departments and the staff of a renamed department once the current transaction has committed.
+     *
+     * @param departmentId the department ID
+     */
+    public void departmentRenamed(Long departmentId) {
+        afterCommit(() -> {
+            evictDepartments();
+            staff.invalidateIf(dto -> departmentId.equals(dto.getDepartmentId()));
+            resourceVersions.departmentsChanged();
+        });
+    }
+
+    /**
+     * @return the size and counters of each cache
+     */
+    public List<CacheStatsDTO> getStats() {
+        return List.of(staff.getStats(), staffIds.getStats(), departments.getStats(), departmentDetails.getStats());
+    }
+
+    private void evictDepartments() {
+        departments.invalidateAll();
+        departmentDetails.invalidateAll();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
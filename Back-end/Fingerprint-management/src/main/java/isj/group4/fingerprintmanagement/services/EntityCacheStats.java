@@ -0,0 +1,75 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.config.InProcessRegionFactory;
+import isj.group4.fingerprintmanagement.config.InProcessRegionFactory.RegionStorage;
+import isj.group4.fingerprintmanagement.dto.CacheStatsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Usage of the Hibernate second-level and query cache regions (see InProcessRegionFactory):
+ * entry counts from the regions, hit/miss/put counters from the Hibernate statistics.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityCacheStats {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * @return true if the second-level cache is enabled (attendance.l2-cache)
+     */
+    public boolean isEnabled() {
+        return regionFactory() != null;
+    }
+
+    /**
+     * @return the size and counters of each region, by region name
+     */
+    public List<CacheStatsDTO> getStats() {
+        InProcessRegionFactory factory = regionFactory();
+        if (factory == null) {
+            return List.of();
+        }
+        Statistics statistics = sessionFactory().getStatistics();
+        List<CacheStatsDTO> stats = new ArrayList<>();
+        for (Map.Entry<String, RegionStorage> region : new TreeMap<>(factory.getRegions()).entrySet()) {
+            CacheRegionStatistics counters = statistics.isStatisticsEnabled()
+                    ? statistics.getCacheRegionStatistics(region.getKey())
+                    : null;
+            long hits = counters != null ? counters.getHitCount() : 0;
+            long misses = counters != null ? counters.getMissCount() : 0;
+            long requests = hits + misses;
+            stats.add(CacheStatsDTO.builder()
+                    .name(region.getKey())
+                    .size(region.getValue().size())
+                    .maxSize(region.getValue().getMaxEntries())
+                    .hits(hits)
+                    .misses(misses)
+                    .hitRate(requests > 0 ? Math.round(hits * 1000.0 / requests) / 10.0 : 0.0)
+                    .puts(counters != null ? counters.getPutCount() : 0)
+                    .evictions(region.getValue().getEvictions())
+                    .build());
+        }
+        return stats;
+    }
+
+    private InProcessRegionFactory regionFactory() {
+        return sessionFactory().getCache().getRegionFactory() instanceof InProcessRegionFactory factory
+                ? factory
+                : null;
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+}
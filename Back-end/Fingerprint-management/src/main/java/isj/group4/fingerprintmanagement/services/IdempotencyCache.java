@@ -0,0 +1,104 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.AttendanceRequestDTO;
+import isj.group4.fingerprintmanagement.dto.AttendanceResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, time-evicted cache of recently recorded punches, keyed by idempotency key.
+ * Lets a terminal retry get the original response back without touching the database.
+ * The unique arrival/departure key columns of the attendances table remain the source
+ * of truth once an entry has been evicted.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries;
+
+    public IdempotencyCache(@Value("${attendance.idempotency.max-entries:100000}") int maxEntries,
+                            @Value("${attendance.idempotency.ttl-minutes:30}") long ttlMinutes) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMinutes * 60_000;
+        // Insertion order: the eldest entry is always the first to expire
+        this.entries = new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Resolve the idempotency key of a punch: the explicit key if given, otherwise the
+     * natural key staffId:deviceId:attendanceTime when the device is known.
+     *
+     * @param request the attendance request
+     * @return the key, or null if the punch cannot be deduplicated
+     */
+    public static String keyOf(AttendanceRequestDTO request) {
+        if (request.getIdempotencyKey() != null && !request.getIdempotencyKey().isBlank()) {
+            return request.getIdempotencyKey();
+        }
+        if (request.getDeviceId() != null && !request.getDeviceId().isBlank()
+                && request.getStaffId() != null && request.getAttendanceTime() != null) {
+            return request.getStaffId() + ":" + request.getDeviceId() + ":" + request.getAttendanceTime();
+        }
+        return null;
+    }
+
+    /**
+     * @param key the idempotency key
+     * @return the response recorded for this key, or null if unknown or expired
+     */
+    public AttendanceResponseDTO get(String key) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            evictExpired(now);
+            Entry entry = entries.get(key);
+            return entry != null ? entry.response() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remember the response recorded for a key.
+     *
+     * @param key the idempotency key (ignored if null)
+     * @param response the response returned for the punch
+     */
+    public void put(String key, AttendanceResponseDTO response) {
+        if (key == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            // Re-insert so a refreshed entry moves to the end of the expiry order
+            entries.remove(key);
+            entries.put(key, new Entry(response, now + ttlMillis));
+            evictExpired(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictExpired(long now) {
+        var iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAt() <= now) {
+            iterator.remove();
+        }
+    }
+
+    private record Entry(AttendanceResponseDTO response, long expiresAt) {
+    }
+}
@@ -0,0 +1,204 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.repository.AttendanceJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo.RosterRow;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-day bitmaps of the staff present (with an arrival), and bitmaps of the staff expected
+ * (active staff, per department and per contract schedule), for the absence and coverage reports:
+ * present = day AND expected, absent = expected ANDNOT day, rates come from the cardinalities.
+ *
+ * Day bitmaps cover the last attendance.presence.months months. They are loaded at startup and
+ * a staff is added to a day once its attendance has committed (see AttendanceAggregateService).
+ * Presence only grows: a deleted staff stays in the day bitmaps but is no longer expected.
+ * Expected bitmaps are rebuilt from the staff table after a staff or department change of this
+ * instance, and at least every attendance.roster.refresh-interval-ms for the other instances.
+ */
+@Component
+@Log4j2
+public class PresenceBitmaps {
+
+    /** Schedule key of the staff without contract. */
+    public static final String NO_SCHEDULE = "none";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final AttendanceJdbcRepo attendanceJdbcRepo;
+    private final StaffJdbcRepo staffJdbcRepo;
+    private final StaffRoster staffRoster;
+    private final boolean enabled;
+    private final int months;
+    private final long expectedMaxAgeMs;
+    private final ReentrantLock expectedLock = new ReentrantLock();
+
+    private final Map<LocalDate, StaffBitmap> presentByDay = new ConcurrentHashMap<>();
+    // First day covered, set before loading so punches recorded meanwhile are kept
+    private volatile LocalDate windowStart;
+    private volatile boolean loaded;
+    private volatile Expected expected;
+
+    public PresenceBitmaps(AttendanceJdbcRepo attendanceJdbcRepo, StaffJdbcRepo staffJdbcRepo, StaffRoster staffRoster,
+                           @Value("${attendance.presence.enabled:true}") boolean enabled,
+                           @Value("${attendance.presence.months:3}") int months,
+                           @Value("${attendance.roster.refresh-interval-ms:300000}") long expectedMaxAgeMs) {
+        this.attendanceJdbcRepo = attendanceJdbcRepo;
+        this.staffJdbcRepo = staffJdbcRepo;
+        this.staffRoster = staffRoster;
+        this.enabled = enabled;
+        this.months = Math.max(1, months);
+        this.expectedMaxAgeMs = expectedMaxAgeMs;
+    }
+
+    /**
+     * Load the day bitmaps of the last attendance.presence.months months.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate start = YearMonth.now().minusMonths(months - 1L).atDay(1);
+        windowStart = start;
+        try {
+            Map<LocalDate, List<Long>> present = new HashMap<>();
+            attendanceJdbcRepo.streamAttendanceRows(null, null, start, null, FETCH_SIZE, row -> {
+                if (row.getArrivalTime() != null) {
+                    present.computeIfAbsent(row.getAttendanceDate(), date -> new ArrayList<>()).add(row.getStaffId());
+                }
+            });
+            // Merged, not replaced: presence marked while loading must not be lost
+            present.forEach((date, staffIds) -> presentByDay.merge(date, StaffBitmap.of(staffIds), StaffBitmap::or));
+            loaded = true;
+            log.info("Presence bitmaps loaded for {} days from {}", present.size(), start);
+        } catch (DataAccessException e) {
+            log.error("Cannot load the presence bitmaps: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add a staff to the present staff of a day. Call once the attendance has committed.
+     *
+     * @param staffId the staff user ID
+     * @param attendanceDate the attendance date
+     */
+    public void markPresent(Long staffId, LocalDate attendanceDate) {
+        LocalDate start = windowStart;
+        if (staffId == null || attendanceDate == null || start == null || attendanceDate.isBefore(start)) {
+            return;
+        }
+        presentByDay.compute(attendanceDate,
+                (date, present) -> present == null ? StaffBitmap.of(staffId) : present.with(staffId));
+    }
+
+    /**
+     * @return the first day covered, or null if the bitmaps are disabled or not loaded yet
+     */
+    public LocalDate getWindowStart() {
+        return enabled && loaded ? windowStart : null;
+    }
+
+    /**
+     * @return the staff with an arrival on the given day
+     */
+    public StaffBitmap presentStaff(LocalDate date) {
+        return presentByDay.getOrDefault(date, StaffBitmap.EMPTY);
+    }
+
+    /**
+     * Get the active staff, optionally only those of a department and/or a contract schedule.
+     *
+     * @param departmentId only staff of this department (may be null)
+     * @param schedule only staff with this contract schedule, e.g. "08:00-17:00" or "none" (may be null)
+     * @return the expected staff
+     * @throws IllegalArgumentException if the schedule is unknown
+     */
+    public StaffBitmap expectedStaff(Long departmentId, String schedule) {
+        Expected current = expected();
+        StaffBitmap staff = current.active();
+        if (departmentId != null) {
+            staff = staff.and(current.byDepartment().getOrDefault(departmentId, StaffBitmap.EMPTY));
+        }
+        if (schedule != null) {
+            StaffBitmap scheduled = current.bySchedule().get(schedule);
+            if (scheduled == null) {
+                throw new IllegalArgumentException("Unknown schedule: " + schedule
+                        + " (known: " + String.join(", ", new TreeSet<>(current.bySchedule().keySet())) + ")");
+            }
+            staff = staff.and(scheduled);
+        }
+        return staff;
+    }
+
+    private Expected expected() {
+        Expected current = expected;
+        if (isFresh(current)) {
+            return current;
+        }
+        expectedLock.lock();
+        try {
+            current = expected;
+            if (isFresh(current)) {
+                return current;
+            }
+            // Read the version first: a change committed while loading triggers another load
+            long version = staffRoster.modifications();
+            List<Long> active = new ArrayList<>();
+            Map<Long, List<Long>> byDepartment = new HashMap<>();
+            Map<String, List<Long>> bySchedule = new HashMap<>();
+            for (RosterRow staff : staffJdbcRepo.findAllRosterRows()) {
+                if (!staff.active()) {
+                    continue;
+                }
+                active.add(staff.staffId());
+                if (staff.departmentId() != null) {
+                    byDepartment.computeIfAbsent(staff.departmentId(), id -> new ArrayList<>()).add(staff.staffId());
+                }
+                bySchedule.computeIfAbsent(scheduleOf(staff.contractStart(), staff.contractEnd()), key -> new ArrayList<>())
+                        .add(staff.staffId());
+            }
+            Map<Long, StaffBitmap> departments = new HashMap<>();
+            byDepartment.forEach((id, staffIds) -> departments.put(id, StaffBitmap.of(staffIds)));
+            Map<String, StaffBitmap> schedules = new HashMap<>();
+            bySchedule.forEach((key, staffIds) -> schedules.put(key, StaffBitmap.of(staffIds)));
+            current = new Expected(version, System.currentTimeMillis(), StaffBitmap.of(active), departments, schedules);
+            expected = current;
+            return current;
+        } finally {
+            expectedLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Expected current) {
+        return current != null && current.rosterVersion() == staffRoster.modifications()
+                && System.currentTimeMillis() - current.loadedAt() < expectedMaxAgeMs;
+    }
+
+    private static String scheduleOf(LocalTime start, LocalTime end) {
+        if (start == null || end == null) {
+            return NO_SCHEDULE;
+        }
+        return start + "-" + end;
+    }
+
+    private record Expected(long rosterVersion, long loadedAt, StaffBitmap active,
+                            Map<Long, StaffBitmap> byDepartment, Map<String, StaffBitmap> bySchedule) {
+    }
+}
@@ -0,0 +1,408 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.AttendanceRequestDTO;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped journal of attendance punches.
+ *
+ * File layout:
+ * - header (64 bytes): magic, format version, generation, drained position
+ * - records: magic, generation, payload length, payload, CRC32 of payload
+ * - payload: staff ID, attendance date, attendance time (epoch second), append time,
+ *   the idempotency key of the punch (length, then bytes; length 0 without key) and
+ *   the nanoseconds of the attendance time. Version 1 records end after the append time
+ *   or the key, and are read with a zero nanosecond.
+ *
+ * Every append is forced to disk before it returns. The drained position is the
+ * checkpoint of punches already applied to the database; everything between it
+ * and the end of the last valid record is replayed after a restart. Once every
+ * record has been drained the journal is reset to its start and the generation
+ * is bumped, so stale records left behind in the file are never replayed.
+ *
+ * Space of drained records is reclaimed before the journal is fully drained: once
+ * the drained records take half of the file, or an append does not fit, the pending
+ * records are copied to a new file that atomically replaces the journal. Entry
+ * positions are logical (they keep growing across rolls), so entries read before a
+ * roll can still be marked as drained after it.
+ */
+public class PunchJournal implements Closeable {
+
+    private static final long FILE_MAGIC = 0x50554E43484A524EL; // "PUNCHJRN"
+    private static final int FORMAT_VERSION = 2;
+    private static final int RECORD_MAGIC = 0x50554E43; // "PUNC"
+
+    static final int HEADER_SIZE = 64;
+    private static final int GENERATION_OFFSET = 12;
+    private static final int DRAINED_OFFSET = 16;
+
+    /** Record framing: magic + generation + payload length before, CRC32 after. */
+    private static final int RECORD_OVERHEAD = 4 + 4 + 4 + 4;
+    private static final int PAYLOAD_SIZE = 8 + 8 + 8 + 8;
+    private static final int MAX_KEY_BYTES = 400;
+
+    private final Path path;
+    private final Path rollPath;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int generation;
+    private int writePosition;
+    private int drainedPosition;
+    private long pendingCount;
+    /** Logical position of the first record byte (HEADER_SIZE) of the current file. */
+    private long rolledBytes;
+
+    /**
+     * Open (or create) the journal file and recover its state.
+     *
+     * @param path the journal file
+     * @param capacity the size of the mapped file in bytes
+     */
+    public PunchJournal(Path path, int capacity) {
+        this.path = path;
+        this.rollPath = path.resolveSibling(path.getFileName() + ".roll");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.capacity = (int) Math.max(capacity, channel.size());
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open punch journal " + path, e);
+        }
+        recover();
+    }
+
+    /**
+     * Append a punch and force it to disk.
+     *
+     * @param request the punch to append
+     * @return false if the journal is full and the punch was not appended
+     */
+    public boolean append(AttendanceRequestDTO request) {
+        byte[] payload = encode(request, System.currentTimeMillis());
+        int recordSize = RECORD_OVERHEAD + payload.length;
+        MappedByteBuffer target;
+        int position;
+
+        lock.lock();
+        try {
+            if (writePosition + recordSize > capacity
+                    && (drainedPosition == HEADER_SIZE || !roll() || writePosition + recordSize > capacity)) {
+                return false;
+            }
+            target = buffer;
+            position = writePosition;
+            ByteBuffer view = buffer.duplicate();
+            view.position(position);
+            view.putInt(RECORD_MAGIC);
+            view.putInt(generation);
+            view.putInt(payload.length);
+            view.put(payload);
+            view.putInt(crc(payload));
+            writePosition += recordSize;
+            pendingCount++;
+        } finally {
+            lock.unlock();
+        }
+
+        // Force outside the lock so concurrent appenders share the disk flush latency.
+        // After a roll this forces the replaced file: the roll already forced its copy of the record.
+        target.force(position, recordSize);
+        return true;
+    }
+
+    /**
+     * Read pending punches, oldest first, without draining them.
+     *
+     * @param maxEntries maximum number of punches to read
+     * @return the pending punches (empty if nothing is pending)
+     */
+    public List<Entry> readPending(int maxEntries) {
+        lock.lock();
+        try {
+            List<Entry> entries = new ArrayList<>();
+            int position = drainedPosition;
+            while (position < writePosition && entries.size() < maxEntries) {
+                Entry entry = readRecord(position);
+                entries.add(entry);
+                position = (int) (entry.endPosition() - rolledBytes);
+            }
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark every punch up to the given position as applied to the database.
+     * Resets the journal to its start once everything has been drained, and rolls it
+     * to a new file once the drained records take half of it.
+     *
+     * @param endPosition end position of the last applied entry
+     * @param entries number of entries being marked as drained
+     */
+    public void markDrained(long endPosition, int entries) {
+        lock.lock();
+        try {
+            drainedPosition = (int) (endPosition - rolledBytes);
+            pendingCount -= entries;
+            if (drainedPosition >= writePosition) {
+                generation++;
+                rolledBytes += writePosition - HEADER_SIZE;
+                drainedPosition = HEADER_SIZE;
+                writePosition = HEADER_SIZE;
+                pendingCount = 0;
+                buffer.putInt(GENERATION_OFFSET, generation);
+            }
+            buffer.putLong(DRAINED_OFFSET, drainedPosition);
+            buffer.force(0, HEADER_SIZE);
+            if (drainedPosition - HEADER_SIZE >= (capacity - HEADER_SIZE) / 2) {
+                // A failed roll is tried again at the next drain
+                roll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of punches appended but not yet drained
+     */
+    public long getPendingCount() {
+        lock.lock();
+        try {
+            return pendingCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return append time (epoch millis) of the oldest pending punch, or null if nothing is pending
+     */
+    public Long getOldestPendingAppendedAt() {
+        lock.lock();
+        try {
+            return drainedPosition < writePosition ? readRecord(drainedPosition).appendedAt() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of bytes currently used by records
+     */
+    public int getUsedBytes() {
+        lock.lock();
+        try {
+            return writePosition - HEADER_SIZE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void close() {
+        buffer.force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close punch journal", e);
+        }
+    }
+
+    /**
+     * Copy the pending records to the start of a new file, force it and move it over the
+     * journal. A crash before the move leaves the journal as it was; after it, the new file
+     * holds every pending record. Called with the lock held.
+     *
+     * @return false if the new file could not be written; the journal is then unchanged
+     */
+    private boolean roll() {
+        int pendingBytes = writePosition - drainedPosition;
+        FileChannel rolledChannel = null;
+        MappedByteBuffer rolled;
+        try {
+            rolledChannel = FileChannel.open(rollPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            rolled = rolledChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            rolled.putLong(0, FILE_MAGIC);
+            rolled.putInt(8, FORMAT_VERSION);
+            rolled.putInt(GENERATION_OFFSET, generation);
+            rolled.putLong(DRAINED_OFFSET, HEADER_SIZE);
+            rolled.put(HEADER_SIZE, buffer, drainedPosition, pendingBytes);
+            rolled.force();
+            Files.move(rollPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            closeQuietly(rolledChannel);
+            return false;
+        }
+        forceDirectory();
+        closeQuietly(channel);
+        channel = rolledChannel;
+        buffer = rolled;
+        rolledBytes += drainedPosition - HEADER_SIZE;
+        drainedPosition = HEADER_SIZE;
+        writePosition = HEADER_SIZE + pendingBytes;
+        return true;
+    }
+
+    private static void closeQuietly(FileChannel fileChannel) {
+        if (fileChannel == null) {
+            return;
+        }
+        try {
+            fileChannel.close();
+        } catch (IOException ignored) {
+            // A mapping of the file stays valid after its channel is closed
+        }
+    }
+
+    /**
+     * Make the move of a rolled file durable. Not every platform can force a directory.
+     */
+    private void forceDirectory() {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // The rename is still atomic, only its durability depends on the file system
+        }
+    }
+
+    /**
+     * Read the header and find the end of the last valid record.
+     */
+    private void recover() {
+        if (buffer.getLong(0) != FILE_MAGIC) {
+            // New (or foreign) file - initialise an empty journal
+            generation = 1;
+            buffer.putLong(0, FILE_MAGIC);
+            buffer.putInt(8, FORMAT_VERSION);
+            buffer.putInt(GENERATION_OFFSET, generation);
+            buffer.putLong(DRAINED_OFFSET, HEADER_SIZE);
+            buffer.force(0, HEADER_SIZE);
+            drainedPosition = HEADER_SIZE;
+            writePosition = HEADER_SIZE;
+            pendingCount = 0;
+            return;
+        }
+
+        generation = buffer.getInt(GENERATION_OFFSET);
+        int position = HEADER_SIZE;
+        int checkpoint = (int) Math.min(Math.max(buffer.getLong(DRAINED_OFFSET), HEADER_SIZE), capacity);
+        long pending = 0;
+        while (isValidRecord(position)) {
+            int end = position + RECORD_OVERHEAD + buffer.getInt(position + 8);
+            if (position >= checkpoint) {
+                pending++;
+            }
+            position = end;
+        }
+        writePosition = position;
+        drainedPosition = Math.min(checkpoint, writePosition);
+        pendingCount = pending;
+    }
+
+    private boolean isValidRecord(int position) {
+        if (position + RECORD_OVERHEAD > capacity
+                || buffer.getInt(position) != RECORD_MAGIC
+                || buffer.getInt(position + 4) != generation) {
+            return false;
+        }
+        int length = buffer.getInt(position + 8);
+        if (length < PAYLOAD_SIZE || position + RECORD_OVERHEAD + length > capacity) {
+            return false;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(position + 12, payload);
+        return buffer.getInt(position + 12 + length) == crc(payload);
+    }
+
+    private Entry readRecord(int position) {
+        int length = buffer.getInt(position + 8);
+        ByteBuffer payload = buffer.slice(position + 12, length);
+        long staffId = payload.getLong();
+        LocalDate attendanceDate = LocalDate.ofEpochDay(payload.getLong());
+        long epochSecond = payload.getLong();
+        long appendedAt = payload.getLong();
+        String idempotencyKey = null;
+        if (payload.remaining() >= 2) {
+            byte[] key = new byte[payload.getShort()];
+            payload.get(key);
+            idempotencyKey = key.length > 0 ? new String(key, StandardCharsets.UTF_8) : null;
+        }
+        int nanos = payload.remaining() >= 4 ? payload.getInt() : 0;
+        AttendanceRequestDTO request = AttendanceRequestDTO.builder()
+                .staffId(staffId)
+                .attendanceDate(attendanceDate)
+                .attendanceTime(LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC))
+                .build();
+        request.setIdempotencyKey(idempotencyKey);
+        return new Entry(request, appendedAt, rolledBytes + position + RECORD_OVERHEAD + length);
+    }
+
+    private static byte[] encode(AttendanceRequestDTO request, long appendedAt) {
+        String idempotencyKey = IdempotencyCache.keyOf(request);
+        byte[] key = idempotencyKey != null ? idempotencyKey.getBytes(StandardCharsets.UTF_8) : null;
+        if (key != null && key.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Idempotency key is too long");
+        }
+        if (key == null) {
+            key = new byte[0];
+        }
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_SIZE + 2 + key.length + 4);
+        payload.putLong(request.getStaffId());
+        payload.putLong(request.getAttendanceDate().toEpochDay());
+        payload.putLong(request.getAttendanceTime().toEpochSecond(ZoneOffset.UTC));
+        payload.putLong(appendedAt);
+        payload.putShort((short) key.length);
+        payload.put(key);
+        payload.putInt(request.getAttendanceTime().getNano());
+        return payload.array();
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A punch read back from the journal.
+     *
+     * @param request the punch
+     * @param appendedAt time the punch was appended (epoch millis)
+     * @param endPosition logical journal position right after this record
+     */
+    public record Entry(AttendanceRequestDTO request, long appendedAt, long endPosition) {
+    }
+}
@@ -0,0 +1,270 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.AttendanceBatchResponseDTO;
+import isj.group4.fingerprintmanagement.dto.AttendanceRequestDTO;
+import isj.group4.fingerprintmanagement.dto.AttendanceResponseDTO;
+import isj.group4.fingerprintmanagement.dto.PunchJournalStatsDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind ingestion of attendance punches.
+ * Active when attendance.ingest.mode=journal: punches are acknowledged as soon as
+ * they are durable in the local {@link PunchJournal}, and a background drainer
+ * applies them to the database in ordered batches.
+ */
+@Service
+@ConditionalOnProperty(name = "attendance.ingest.mode", havingValue = "journal")
+@Log4j2
+public class PunchJournalService {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+
+    private final AttendanceService attendanceService;
+    private final Path journalPath;
+    private final int capacityBytes;
+    private final int drainBatchSize;
+    private final long shutdownDrainTimeoutMs;
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicLong appendedTotal = new AtomicLong();
+    private final AtomicLong drainedTotal = new AtomicLong();
+    private final AtomicLong drainFailures = new AtomicLong();
+    private final AtomicLong deadLetteredTotal = new AtomicLong();
+    private volatile Instant lastDrainAt;
+    private volatile String lastError;
+
+    private PunchJournal journal;
+    private boolean closed;
+
+    public PunchJournalService(AttendanceService attendanceService,
+                               @Value("${attendance.journal.path:./data/punch-journal.dat}") String journalPath,
+                               @Value("${attendance.journal.capacity-mb:64}") int capacityMb,
+                               @Value("${attendance.journal.drain-batch-size:500}") int drainBatchSize,
+                               @Value("${attendance.journal.shutdown-drain-timeout-ms:30000}") long shutdownDrainTimeoutMs) {
+        this.attendanceService = attendanceService;
+        this.journalPath = Path.of(journalPath);
+        long capacity = (long) capacityMb * 1024 * 1024;
+        if (capacityMb < 1 || capacity > Integer.MAX_VALUE) {
+            // The journal is mapped as a single buffer, indexed by int
+            throw new IllegalArgumentException("attendance.journal.capacity-mb must be between 1 and "
+                    + Integer.MAX_VALUE / (1024 * 1024) + ", got " + capacityMb);
+        }
+        this.capacityBytes = (int) capacity;
+        this.drainBatchSize = drainBatchSize;
+        this.shutdownDrainTimeoutMs = shutdownDrainTimeoutMs;
+    }
+
+    /**
+     * Open the journal. Punches left over from a previous run are replayed by the drainer.
+     */
+    @PostConstruct
+    public void open() {
+        journal = new PunchJournal(journalPath, capacityBytes);
+        long pending = journal.getPendingCount();
+        if (pending > 0) {
+            log.warn("Punch journal {} contains {} undrained punches, replaying", journalPath, pending);
+        } else {
+            log.info("Punch journal opened: {}", journalPath);
+        }
+    }
+
+    /**
+     * Append a punch to the journal. Returns once the punch is durable on local disk.
+     * A retried punch is not appended again: the response it already got is returned.
+     *
+     * @param requestDTO the attendance request
+     * @return the acknowledgement (status "QUEUED") or the original response of a retried punch,
+     *         or null if the journal is full and the caller must record the punch synchronously
+     */
+    public AttendanceResponseDTO append(AttendanceRequestDTO requestDTO) {
+        AttendanceResponseDTO cached = attendanceService.getCachedResponse(requestDTO);
+        if (cached != null) {
+            return cached;
+        }
+        if (!journal.append(requestDTO)) {
+            log.warn("Punch journal is full, staff ID: {} will be recorded synchronously",
+                    requestDTO.getStaffId());
+            return null;
+        }
+        appendedTotal.incrementAndGet();
+
+        AttendanceResponseDTO queued = AttendanceResponseDTO.builder()
+                .staffId(requestDTO.getStaffId())
+                .attendanceDate(requestDTO.getAttendanceDate())
+                .status(STATUS_QUEUED)
+                .build();
+        attendanceService.rememberResponse(requestDTO, queued);
+        return queued;
+    }
+
+    /**
+     * Apply pending punches to the database, oldest first.
+     */
+    @Scheduled(fixedDelayString = "${attendance.journal.drain-interval-ms:200}")
+    public void drain() {
+        drainLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            while (drainBatch() > 0) {
+                // keep draining batches until the backlog is gone
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Drain what is left in the journal before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        long deadline = System.currentTimeMillis() + shutdownDrainTimeoutMs;
+        drainLock.lock();
+        try {
+            while (journal.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+                if (drainBatch() < 0) {
+                    break;
+                }
+            }
+            long pending = journal.getPendingCount();
+            if (pending > 0) {
+                log.warn("Stopping with {} undrained punches, they will be replayed on restart", pending);
+            } else {
+                log.info("Punch journal fully drained on shutdown");
+            }
+            journal.close();
+            closed = true;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Get queue depth and lag of the journal.
+     *
+     * @return the journal statistics
+     */
+    public PunchJournalStatsDTO getStats() {
+        Long oldest = journal.getOldestPendingAppendedAt();
+        return PunchJournalStatsDTO.builder()
+                .pendingPunches(journal.getPendingCount())
+                .lagMillis(oldest != null ? Math.max(0, System.currentTimeMillis() - oldest) : 0L)
+                .oldestPendingAt(oldest != null ? Instant.ofEpochMilli(oldest).toString() : null)
+                .usedBytes(journal.getUsedBytes())
+                .capacityBytes(journal.getCapacity())
+                .appendedTotal(appendedTotal.get())
+                .drainedTotal(drainedTotal.get())
+                .drainFailures(drainFailures.get())
+                .deadLetteredTotal(deadLetteredTotal.get())
+                .lastDrainAt(lastDrainAt != null ? lastDrainAt.toString() : null)
+                .lastError(lastError)
+                .build();
+    }
+
+    /**
+     * Apply one batch of pending punches, cut to what AttendanceService records in one transaction:
+     * the checkpoint can only move past punches that have all been committed.
+     *
+     * @return number of punches drained, or -1 if the database was unavailable
+     */
+    private int drainBatch() {
+        List<PunchJournal.Entry> entries = journal.readPending(drainBatchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        entries = entries.subList(0, attendanceService.firstTransactionSize(
+                entries.stream().map(PunchJournal.Entry::request).toList()));
+        int drained = apply(entries);
+        if (drained < entries.size()) {
+            return -1;
+        }
+        lastError = null;
+        log.debug("Drained {} journaled punches", entries.size());
+        return entries.size();
+    }
+
+    /**
+     * Apply punches in order, moving the checkpoint past each applied run.
+     * A transient error (database or transaction unavailable) stops the drain, the punches are retried
+     * on the next run. Any other error is caused by the data of a punch and would fail every retry:
+     * the punches are split in halves until the punch causing it is found, which is skipped
+     * (dead-lettered to the log) so the punches after it are still drained.
+     *
+     * @return number of punches drained, fewer than given if a transient error stopped the drain
+     */
+    private int apply(List<PunchJournal.Entry> entries) {
+        AttendanceBatchResponseDTO result;
+        try {
+            result = attendanceService.recordAttendanceBatch(
+                    entries.stream().map(PunchJournal.Entry::request).toList());
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                // Database unavailable - keep the punches and retry on the next run
+                drainFailures.incrementAndGet();
+                lastError = e.getMessage();
+                log.error("Draining {} journaled punches failed, will retry: {}", entries.size(), e.getMessage());
+                return 0;
+            }
+            if (entries.size() == 1) {
+                deadLetter(entries.get(0), e);
+                return 1;
+            }
+            log.warn("Draining {} journaled punches failed on a punch, splitting the batch: {}",
+                    entries.size(), e.getMessage());
+            int half = entries.size() / 2;
+            int drained = apply(entries.subList(0, half));
+            return drained < half ? drained : half + apply(entries.subList(half, entries.size()));
+        }
+
+        result.getResults().stream()
+                .filter(item -> item.getAttendance() == null)
+                .forEach(item -> log.warn("Journaled punch for staff ID: {} not recorded ({}): {}",
+                        item.getStaffId(), item.getStatus(), item.getMessage()));
+        markDrained(entries);
+        drainedTotal.addAndGet(entries.size());
+        return entries.size();
+    }
+
+    private void deadLetter(PunchJournal.Entry entry, RuntimeException e) {
+        AttendanceRequestDTO request = entry.request();
+        log.error("Skipping journaled punch that cannot be recorded - staff ID: {}, date: {}, time: {}, key: {}: {}",
+                request.getStaffId(), request.getAttendanceDate(), request.getAttendanceTime(),
+                request.getIdempotencyKey(), e.getMessage(), e);
+        markDrained(List.of(entry));
+        deadLetteredTotal.incrementAndGet();
+        lastError = e.getMessage();
+    }
+
+    private void markDrained(List<PunchJournal.Entry> entries) {
+        journal.markDrained(entries.get(entries.size() - 1).endPosition(), entries.size());
+        lastDrainAt = Instant.now();
+    }
+
+    /**
+     * @return true if the error is expected to go away on retry (connection or transaction failure)
+     */
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+}
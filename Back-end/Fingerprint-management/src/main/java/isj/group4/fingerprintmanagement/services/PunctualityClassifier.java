@@ -0,0 +1,204 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.entity.Attendance;
+import isj.group4.fingerprintmanagement.entity.Attendance.Punctuality;
+import isj.group4.fingerprintmanagement.repository.AttendanceJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.AttendanceJdbcRepo.AttendanceRow;
+import isj.group4.fingerprintmanagement.repository.AttendanceJdbcRepo.PunchPunctuality;
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo.RosterRow;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classifies the punches of an attendance against the contract hours of its staff, when they
+ * are recorded: an arrival is LATE when it is more than attendance.punctuality.late-tolerance-minutes
+ * after the contract start, a departure is EARLY_DEPARTURE before the contract end and OVERTIME
+ * from attendance.punctuality.overtime-after-minutes after it. The result is stored with the
+ * attendance, so reports filter and count on it instead of comparing times row by row.
+ *
+ * Contract hours come from the roster entry of the staff (the in-memory StaffRoster on the punch
+ * paths). Staff without contract get the default hours (09:00-17:00, the rule the dashboard used).
+ * A contract ending at or before its start time is a night shift ending on the next day. Punches keep the classification of the contract
+ * in force when they were recorded.
+ */
+@Component
+@Log4j2
+public class PunctualityClassifier {
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private final StaffJdbcRepo staffJdbcRepo;
+    private final AttendanceJdbcRepo attendanceJdbcRepo;
+    private final AttendanceAggregateService attendanceAggregates;
+    private final LocalTime defaultStart;
+    private final LocalTime defaultEnd;
+    private final int lateToleranceMinutes;
+    private final int overtimeAfterMinutes;
+
+    public PunctualityClassifier(StaffJdbcRepo staffJdbcRepo,
+                                 AttendanceJdbcRepo attendanceJdbcRepo, AttendanceAggregateService attendanceAggregates,
+                                 @Value("${attendance.punctuality.default-start:09:00}") String defaultStart,
+                                 @Value("${attendance.punctuality.default-end:17:00}") String defaultEnd,
+                                 @Value("${attendance.punctuality.late-tolerance-minutes:0}") int lateToleranceMinutes,
+                                 @Value("${attendance.punctuality.overtime-after-minutes:30}") int overtimeAfterMinutes) {
+        this.staffJdbcRepo = staffJdbcRepo;
+        this.attendanceJdbcRepo = attendanceJdbcRepo;
+        this.attendanceAggregates = attendanceAggregates;
+        this.defaultStart = LocalTime.parse(defaultStart);
+        this.defaultEnd = LocalTime.parse(defaultEnd);
+        this.lateToleranceMinutes = Math.max(0, lateToleranceMinutes);
+        this.overtimeAfterMinutes = Math.max(0, overtimeAfterMinutes);
+    }
+
+    /**
+     * Classify the arrival of an attendance.
+     *
+     * @param staff the roster entry of the staff (may be null for the default hours)
+     * @param attendanceDate the attendance date
+     * @param arrivalTime the arrival punch (may be null)
+     * @return the classification, NONE if there is no arrival
+     */
+    public PunchPunctuality classifyArrival(RosterRow staff, LocalDate attendanceDate, LocalDateTime arrivalTime) {
+        if (arrivalTime == null) {
+            return PunchPunctuality.NONE;
+        }
+        long minutes = ChronoUnit.MINUTES.between(attendanceDate.atTime(startOf(staff)), arrivalTime);
+        if (minutes > lateToleranceMinutes) {
+            return new PunchPunctuality(Punctuality.LATE, (int) minutes);
+        }
+        return new PunchPunctuality(Punctuality.ON_TIME, 0);
+    }
+
+    /**
+     * Classify the departure of an attendance.
+     *
+     * @param staff the roster entry of the staff (may be null for the default hours)
+     * @param attendanceDate the attendance date
+     * @param departureTime the departure punch (may be null)
+     * @return the classification, NONE if there is no departure
+     */
+    public PunchPunctuality classifyDeparture(RosterRow staff, LocalDate attendanceDate, LocalDateTime departureTime) {
+        if (departureTime == null) {
+            return PunchPunctuality.NONE;
+        }
+        LocalTime start = startOf(staff);
+        LocalTime end = endOf(staff);
+        LocalDateTime scheduledEnd = attendanceDate.atTime(end);
+        if (!end.isAfter(start)) {
+            scheduledEnd = scheduledEnd.plusDays(1);
+        }
+        long minutes = ChronoUnit.MINUTES.between(scheduledEnd, departureTime);
+        if (minutes < 0) {
+            return new PunchPunctuality(Punctuality.EARLY_DEPARTURE, (int) -minutes);
+        }
+        if (minutes >= overtimeAfterMinutes && minutes > 0) {
+            return new PunchPunctuality(Punctuality.OVERTIME, (int) minutes);
+        }
+        return new PunchPunctuality(Punctuality.ON_TIME, 0);
+    }
+
+    /**
+     * Set the classification of the arrival of an attendance row from its arrival time.
+     */
+    public void classifyArrival(AttendanceRow row, RosterRow staff) {
+        PunchPunctuality arrival = classifyArrival(staff, row.getAttendanceDate(), row.getArrivalTime());
+        row.setArrivalStatus(arrival.status());
+        row.setLateMinutes(arrival.minutes());
+    }
+
+    /**
+     * Set the classification of the departure of an attendance row from its departure time.
+     */
+    public void classifyDeparture(AttendanceRow row, RosterRow staff) {
+        PunchPunctuality departure = classifyDeparture(staff, row.getAttendanceDate(), row.getDepartureTime());
+        row.setDepartureStatus(departure.status());
+        row.setDepartureMinutes(departure.minutes());
+    }
+
+    /**
+     * Set the classification of the arrival of an attendance from its arrival time.
+     */
+    public void classifyArrival(Attendance attendance, RosterRow staff) {
+        PunchPunctuality arrival = classifyArrival(staff, attendance.getAttendanceDate(), attendance.getArrivalTime());
+        attendance.setArrivalStatus(arrival.status());
+        attendance.setLateMinutes(arrival.minutes());
+    }
+
+    /**
+     * Set the classification of the departure of an attendance from its departure time.
+     */
+    public void classifyDeparture(Attendance attendance, RosterRow staff) {
+        PunchPunctuality departure = classifyDeparture(staff, attendance.getAttendanceDate(),
+                attendance.getDepartureTime());
+        attendance.setDepartureStatus(departure.status());
+        attendance.setDepartureMinutes(departure.minutes());
+    }
+
+    /**
+     * Classify the punches recorded before the classification existed (or written directly in the
+     * database), with the current contracts. Runs before the summary tables and the cube are loaded,
+     * and rebuilds the summary rows of the classified period.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void classifyUnclassified() {
+        try {
+            Map<Long, RosterRow> roster = new HashMap<>();
+            for (RosterRow staff : staffJdbcRepo.findAllRosterRows()) {
+                roster.put(staff.staffId(), staff);
+            }
+            long afterId = 0;
+            int classified = 0;
+            LocalDate first = null;
+            LocalDate last = null;
+            List<AttendanceRow> rows;
+            do {
+                rows = attendanceJdbcRepo.findUnclassifiedRows(afterId, BACKFILL_BATCH_SIZE);
+                for (AttendanceRow row : rows) {
+                    RosterRow staff = roster.get(row.getStaffId());
+                    classifyArrival(row, staff);
+                    classifyDeparture(row, staff);
+                    afterId = row.getAttendanceId();
+                    first = first == null || row.getAttendanceDate().isBefore(first) ? row.getAttendanceDate() : first;
+                    last = last == null || row.getAttendanceDate().isAfter(last) ? row.getAttendanceDate() : last;
+                }
+                attendanceJdbcRepo.batchFillPunctuality(rows);
+                classified += rows.size();
+            } while (rows.size() == BACKFILL_BATCH_SIZE);
+
+            if (classified > 0) {
+                log.info("Classified the punctuality of {} attendances from {} to {}", classified, first, last);
+                attendanceAggregates.rebuild(first, last);
+            }
+        } catch (DataAccessException e) {
+            log.error("Cannot classify the unclassified attendances: {}", e.getMessage());
+        }
+    }
+
+    private LocalTime startOf(RosterRow staff) {
+        return hasContractHours(staff) ? staff.contractStart() : defaultStart;
+    }
+
+    private LocalTime endOf(RosterRow staff) {
+        return hasContractHours(staff) ? staff.contractEnd() : defaultEnd;
+    }
+
+    private static boolean hasContractHours(RosterRow staff) {
+        return staff != null && staff.contractStart() != null && staff.contractEnd() != null;
+    }
+}
@@ -0,0 +1,282 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.DailyAttendanceDTO;
+import isj.group4.fingerprintmanagement.dto.MonthlyReportDTO;
+import isj.group4.fingerprintmanagement.dto.PresenceReportDTO;
+import isj.group4.fingerprintmanagement.repository.AttendanceAggregateJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.AttendanceAggregateJdbcRepo.StaffAttendanceTotals;
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo.RosterRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Service layer for attendance reports.
+ * Reports read the attendance summary tables maintained by AttendanceAggregateService,
+ * so they neither scan the attendances nor send any attendance row to the client.
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class ReportService {
+
+    /** Longest period of the daily totals (in days, a leap year). */
+    public static final int MAX_DAILY_DAYS = 366;
+
+    /** Most months one aggregate rebuild may touch: it holds the recompute lock until done. */
+    public static final int MAX_REBUILD_MONTHS = 24;
+
+    private final AttendanceAggregateJdbcRepo aggregateRepo;
+    private final AttendanceAggregateService attendanceAggregates;
+    private final AttendanceCube attendanceCube;
+    private final PresenceBitmaps presenceBitmaps;
+    private final StaffRoster staffRoster;
+
+    /**
+     * Get the monthly attendance report.
+     * The current month is covered up to today; past months are covered entirely.
+     *
+     * @param year the year (null for the current year)
+     * @param month the month, 1 to 12 (null for the current month)
+     * @param departmentId only staff of this department (may be null)
+     * @return the month statistics and the summary of each active staff
+     * @throws IllegalArgumentException if the month is invalid or in the future
+     */
+    public MonthlyReportDTO getMonthlyReport(Integer year, Integer month, Long departmentId) {
+        LocalDate today = LocalDate.now();
+        int reportYear = year != null ? year : today.getYear();
+        int reportMonth = month != null ? month : today.getMonthValue();
+        if (reportMonth < 1 || reportMonth > 12) {
+            throw new IllegalArgumentException("Month must be between 1 and 12");
+        }
+        YearMonth period = YearMonth.of(reportYear, reportMonth);
+        if (period.isAfter(YearMonth.from(today))) {
+            throw new IllegalArgumentException("No report for a future month: " + period);
+        }
+
+        LocalDate from = period.atDay(1);
+        LocalDate to = period.equals(YearMonth.from(today)) ? today : period.atEndOfMonth();
+        int totalDays = to.getDayOfMonth();
+
+        List<StaffAttendanceTotals> totals = aggregateRepo.findMonthlyStaffTotals(from, departmentId);
+
+        // Month statistics count every attendance; the expected days only count active staff
+        int activeStaff = 0;
+        long presentDays = 0;
+        long lateArrivals = 0;
+        List<MonthlyReportDTO.StaffReportDTO> staffReports = new ArrayList<>();
+        for (StaffAttendanceTotals staff : totals) {
+            presentDays += staff.daysPresent();
+            lateArrivals += staff.lateArrivals();
+            if (!staff.active()) {
+                continue;
+            }
+            activeStaff++;
+            staffReports.add(MonthlyReportDTO.StaffReportDTO.builder()
+                    .staffId(staff.staffId())
+                    .name(fullName(staff))
+                    .department(staff.departmentName() != null ? staff.departmentName() : "N/A")
+                    .daysPresent(staff.daysPresent())
+                    .totalDays(totalDays)
+                    .percentage((int) Math.round(staff.daysPresent() * 100.0 / totalDays))
+                    .lateArrivals(staff.lateArrivals())
+                    .build());
+        }
+        staffReports.sort(Comparator.comparing(MonthlyReportDTO.StaffReportDTO::getPercentage).reversed());
+
+        long expectedDays = (long) activeStaff * totalDays;
+        log.debug("Monthly report {} (department {}): {} staff, {} days present", period, departmentId,
+                activeStaff, presentDays);
+
+        return MonthlyReportDTO.builder()
+                .year(reportYear)
+                .month(reportMonth)
+                .period(period.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + reportYear)
+                .totalDays(totalDays)
+                .activeStaff(activeStaff)
+                .attendanceRate(percent(presentDays, expectedDays))
+                .lateArrivalRate(percent(lateArrivals, presentDays))
+                .totalAbsences((int) Math.max(0, expectedDays - presentDays))
+                .staffReports(staffReports)
+                .build();
+    }
+
+    /**
+     * Get the attendance totals of each department per day.
+     *
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive
+     * @param departmentId only this department (may be null)
+     * @return the totals, in (date, department ID) order; days without attendance are omitted
+     * @throws IllegalArgumentException if a date is missing or invalid, from is after to,
+     *         or the range is longer than MAX_DAILY_DAYS
+     */
+    public List<DailyAttendanceDTO> getDailyTotals(String from, String to, Long departmentId) {
+        LocalDate fromDate = parseDate(from, "from");
+        LocalDate toDate = parseDate(to, "to");
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_DAILY_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_DAILY_DAYS + " days");
+        }
+        return aggregateRepo.findDailyTotals(fromDate, toDate, departmentId);
+    }
+
+    /**
+     * Rebuild the summary tables of a period from the attendances, e.g. after attendances
+     * were imported or corrected directly in the database. The analytics cube is reloaded as well.
+     *
+     * A from before the oldest attendance starts at the oldest attendance instead.
+     *
+     * @param from first attendance date, inclusive
+     * @param to last attendance date, inclusive (null for today)
+     * @return number of months rebuilt
+     * @throws IllegalArgumentException if a date is missing or invalid, from is after to, to is in the future,
+     *         or the range touches more than MAX_REBUILD_MONTHS months
+     */
+    public int rebuildAggregates(String from, String to) {
+        LocalDate today = LocalDate.now();
+        LocalDate fromDate = parseDate(from, "from");
+        LocalDate toDate = to != null ? parseDate(to, "to") : today;
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (toDate.isAfter(today)) {
+            throw new IllegalArgumentException("'to' must not be in the future");
+        }
+        LocalDate oldest = aggregateRepo.findFirstAttendanceDate().orElse(null);
+        if (oldest == null || oldest.isAfter(toDate)) {
+            // No attendance in the range
+            return 0;
+        }
+        if (fromDate.isBefore(oldest)) {
+            fromDate = oldest;
+        }
+        if (YearMonth.from(fromDate).until(YearMonth.from(toDate), ChronoUnit.MONTHS) >= MAX_REBUILD_MONTHS) {
+            throw new IllegalArgumentException("Rebuild range must not exceed " + MAX_REBUILD_MONTHS + " months");
+        }
+        int months = attendanceAggregates.rebuild(fromDate, toDate);
+        attendanceCube.reload();
+        return months;
+    }
+
+    private static LocalDate parseDate(String value, String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("'" + name + "' is required (format: yyyy-MM-dd)");
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format. Use yyyy-MM-dd");
+        }
+    }
+
+    /**
+     * Get the expected, present and absent staff of each day of a period, from the presence bitmaps.
+     * Every active staff of the department/schedule is expected every day.
+     *
+     * @param from first day, inclusive (null for the first day of the month of 'to')
+     * @param to last day, inclusive (null for today; days after today are not reported)
+     * @param departmentId only staff of this department (may be null)
+     * @param schedule only staff with this contract schedule, e.g. "08:00-17:00" or "none" (may be null)
+     * @return the presence of each day and the absences of each staff
+     * @throws IllegalArgumentException if a date or the schedule is invalid, from is after to,
+     *         or from is before the days covered by the bitmaps
+     * @throws IllegalStateException if the presence bitmaps are disabled or not loaded yet
+     */
+    public PresenceReportDTO getPresenceReport(String from, String to, Long departmentId, String schedule) {
+        LocalDate windowStart = presenceBitmaps.getWindowStart();
+        if (windowStart == null) {
+            throw new IllegalStateException("Presence report is not available (bitmaps disabled or loading)");
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate toDate = to != null ? parseDate(to, "to") : today;
+        if (toDate.isAfter(today)) {
+            toDate = today;
+        }
+        LocalDate fromDate = from != null ? parseDate(from, "from") : toDate.withDayOfMonth(1);
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("'from' must not be after 'to' (nor after today)");
+        }
+        if (fromDate.isBefore(windowStart)) {
+            throw new IllegalArgumentException("Presence is kept from " + windowStart
+                    + ", use /api/reports/monthly for older periods");
+        }
+
+        StaffBitmap expected = presenceBitmaps.expectedStaff(departmentId, schedule);
+        List<PresenceReportDTO.DayDTO> days = new ArrayList<>();
+        Map<Long, Integer> absentDays = new HashMap<>();
+        long presentTotal = 0;
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            StaffBitmap day = presenceBitmaps.presentStaff(date);
+            int present = day.and(expected).cardinality();
+            StaffBitmap absent = expected.andNot(day);
+            absent.forEach(staffId -> absentDays.merge(staffId, 1, Integer::sum));
+            presentTotal += present;
+            days.add(PresenceReportDTO.DayDTO.builder()
+                    .date(date)
+                    .expected(expected.cardinality())
+                    .present(present)
+                    .absent(absent.cardinality())
+                    .attendanceRate(percent(present, expected.cardinality()))
+                    .build());
+        }
+
+        List<PresenceReportDTO.StaffAbsenceDTO> absentStaff = new ArrayList<>(absentDays.size());
+        absentDays.forEach((staffId, count) -> {
+            RosterRow staff = staffRoster.find(staffId).orElse(null);
+            absentStaff.add(PresenceReportDTO.StaffAbsenceDTO.builder()
+                    .staffId(staffId)
+                    .name(staff != null ? fullName(staff.name(), staff.surname()) : "Unknown")
+                    .department(staff != null && staff.departmentName() != null ? staff.departmentName() : "N/A")
+                    .absentDays(count)
+                    .build());
+        });
+        absentStaff.sort(Comparator.comparing(PresenceReportDTO.StaffAbsenceDTO::getAbsentDays).reversed()
+                .thenComparing(PresenceReportDTO.StaffAbsenceDTO::getStaffId));
+
+        long expectedTotal = (long) expected.cardinality() * days.size();
+        return PresenceReportDTO.builder()
+                .from(fromDate)
+                .to(toDate)
+                .departmentId(departmentId)
+                .schedule(schedule)
+                .expectedStaff(expected.cardinality())
+                .attendanceRate(percent(presentTotal, expectedTotal))
+                .totalAbsences((int) (expectedTotal - presentTotal))
+                .days(days)
+                .absentStaff(absentStaff)
+                .build();
+    }
+
+    private static String fullName(StaffAttendanceTotals staff) {
+        return fullName(staff.name(), staff.surname());
+    }
+
+    private static String fullName(String name, String surname) {
+        if (name == null) {
+            return "Unknown";
+        }
+        return (name + " " + (surname != null ? surname : "")).trim();
+    }
+
+    /**
+     * Percentage rounded to one decimal (0 when there is nothing to divide by)
+     */
+    private static double percent(long part, long whole) {
+        return whole > 0 ? Math.round(part * 1000.0 / whole) / 10.0 : 0;
+    }
+}
@@ -0,0 +1,121 @@
+package isj.group4.fingerprintmanagement.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters of the staff, department and attendance responses, from which the controllers
+ * build the ETags of their GET endpoints: a request whose If-None-Match still matches gets a 304
+ * without any query.
+ *
+ * A counter is bumped once a change has committed (at the same points DirectoryCache evicts), for
+ * every collection whose responses show the changed data: staff responses count attendances, and
+ * attendance responses show the staff and department names. Attendances also have a counter per
+ * date, so the attendances of a past day keep their ETag while today's punches come in.
+ *
+ * An ETag also holds an ID of this instance (counters restart at zero) and the current period of
+ * attendance.etag.max-age-seconds: changes made by other instances or directly in the database
+ * are not counted, the period bounds how long they go unseen.
+ */
+@Component
+public class ResourceVersions {
+
+    public enum Resource { STAFF, DEPARTMENTS, ATTENDANCES }
+
+    private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final long maxAgeMillis;
+    private final Map<Resource, AtomicLong> versions = new EnumMap<>(Resource.class);
+    // Staff and department changes, shown in the attendances of every date
+    private final AtomicLong directoryVersion = new AtomicLong();
+    private final Map<LocalDate, AtomicLong> attendanceDateVersions = new ConcurrentHashMap<>();
+
+    public ResourceVersions(@Value("${attendance.etag.max-age-seconds:300}") long maxAgeSeconds) {
+        this.maxAgeMillis = Math.max(1, maxAgeSeconds) * 1000;
+        for (Resource resource : Resource.values()) {
+            versions.put(resource, new AtomicLong());
+        }
+    }
+
+    /**
+     * @param resource the collection
+     * @return the strong ETag of the current version of the collection
+     */
+    public String etag(Resource resource) {
+        return etag(resource.name().toLowerCase(), Long.toString(versions.get(resource).get()));
+    }
+
+    /**
+     * @param date the attendance date
+     * @return the strong ETag of the current version of the attendances of the date
+     */
+    public String attendanceEtag(LocalDate date) {
+        AtomicLong dateVersion = attendanceDateVersions.get(date);
+        return etag("attendances-" + date,
+                directoryVersion.get() + "." + (dateVersion != null ? dateVersion.get() : 0));
+    }
+
+    /**
+     * A staff was created, changed or deleted (call once committed).
+     */
+    public void staffChanged() {
+        bump(Resource.STAFF, Resource.DEPARTMENTS, Resource.ATTENDANCES);
+        directoryVersion.incrementAndGet();
+    }
+
+    /**
+     * A department was created, changed or deleted (call once committed).
+     */
+    public void departmentsChanged() {
+        bump(Resource.DEPARTMENTS, Resource.STAFF, Resource.ATTENDANCES);
+        directoryVersion.incrementAndGet();
+    }
+
+    /**
+     * Absence counts changed (call once committed).
+     */
+    public void absencesChanged() {
+        bump(Resource.STAFF, Resource.DEPARTMENTS);
+    }
+
+    /**
+     * A contract was created or changed (call once committed).
+     */
+    public void contractChanged() {
+        bump(Resource.STAFF);
+    }
+
+    /**
+     * An attendance was created or changed (call once committed).
+     *
+     * @param date the attendance date
+     */
+    public void attendanceChanged(LocalDate date) {
+        bump(Resource.ATTENDANCES);
+        attendanceDateVersions.computeIfAbsent(date, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * The attendance totals of the staff changed (call once the summary rows have committed).
+     */
+    public void attendanceTotalsChanged() {
+        bump(Resource.STAFF);
+    }
+
+    private void bump(Resource... resources) {
+        for (Resource resource : resources) {
+            versions.get(resource).incrementAndGet();
+        }
+    }
+
+    private String etag(String name, String version) {
+        return "\"" + name + "-" + instanceId + "-" + version + "-"
+                + Long.toString(System.currentTimeMillis() / maxAgeMillis, 36) + "\"";
+    }
+}
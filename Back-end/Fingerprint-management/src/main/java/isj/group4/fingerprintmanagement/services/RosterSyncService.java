@@ -0,0 +1,165 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.RosterDeltaDTO;
+import isj.group4.fingerprintmanagement.dto.RosterEntryDTO;
+import isj.group4.fingerprintmanagement.entity.RosterTombstone;
+import isj.group4.fingerprintmanagement.repository.RosterTombstoneRepo;
+import isj.group4.fingerprintmanagement.repository.StaffRepo;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Versioned change feed of the staff roster for offline-capable terminals.
+ *
+ * Every roster mutation takes the next value of a monotonic revision and stores it on the
+ * changed staff (or on a tombstone for a deleted staff). A terminal polls with the last
+ * revision it has seen and only receives what changed since.
+ *
+ * Revisions are handed out before their transaction commits, so a higher revision can become
+ * visible before a lower one. The feed therefore only reports changes up to the highest revision
+ * below every revision still in flight; later changes are picked up by the next poll.
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class RosterSyncService {
+
+    private final StaffRepo staffRepo;
+    private final RosterTombstoneRepo rosterTombstoneRepo;
+
+    private final AtomicLong revision = new AtomicLong();
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private final ReentrantLock revisionLock = new ReentrantLock();
+
+    /**
+     * Continue numbering after the highest revision already stored.
+     */
+    @PostConstruct
+    public void init() {
+        Long staffMax = staffRepo.findMaxRosterRevision();
+        Long tombstoneMax = rosterTombstoneRepo.findMaxRevision();
+        revision.set(Math.max(staffMax != null ? staffMax : 0, tombstoneMax != null ? tombstoneMax : 0));
+        log.info("Roster revision starts at {}", revision.get());
+    }
+
+    /**
+     * Give a revision to staff created before roster sync existed, so they are part of full snapshots.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void assignMissingRevisions() {
+        int updated = staffRepo.assignMissingRosterRevision(nextRevision());
+        if (updated > 0) {
+            log.info("Assigned a roster revision to {} existing staff", updated);
+        }
+    }
+
+    /**
+     * Take the next roster revision for a change made in the current transaction.
+     *
+     * @return the revision to store on the changed staff
+     */
+    public long nextRevision() {
+        long next;
+        // Register as in flight before the value can be observed as the current revision
+        revisionLock.lock();
+        try {
+            next = revision.incrementAndGet();
+            inFlight.add(next);
+        } finally {
+            revisionLock.unlock();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    inFlight.remove(next);
+                }
+            });
+        } else {
+            inFlight.remove(next);
+        }
+        return next;
+    }
+
+    /**
+     * Record the deletion of a staff, in the current transaction.
+     *
+     * @param staffId the deleted staff user ID
+     */
+    public void recordDeletion(Long staffId) {
+        rosterTombstoneRepo.save(RosterTombstone.builder()
+                .staffId(staffId)
+                .revision(nextRevision())
+                .deletedAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Mark every staff of a department as changed (e.g. after the department was renamed).
+     *
+     * @param departmentId the department ID
+     */
+    public void departmentChanged(Long departmentId) {
+        int updated = staffRepo.updateRosterRevisionByDepartment(departmentId, nextRevision());
+        log.debug("Roster revision bumped for {} staff of department ID: {}", updated, departmentId);
+    }
+
+    /**
+     * Get the roster changes since a revision.
+     * since=0 returns a full snapshot of the active staff.
+     *
+     * @param since the last revision seen by the terminal
+     * @return the changed and removed staff, and the revision to poll from next
+     */
+    @Transactional(readOnly = true)
+    public RosterDeltaDTO getChangesSince(long since) {
+        if (since < 0) {
+            throw new IllegalArgumentException("Revision must not be negative");
+        }
+        long upTo = safeRevision();
+        if (since > upTo) {
+            // Terminal is ahead (e.g. the server database was restored): force a full resync
+            log.warn("Roster sync requested from revision {} beyond current revision {}, sending full roster",
+                    since, upTo);
+            since = 0;
+        }
+        boolean full = since == 0;
+        List<RosterEntryDTO> changed = staffRepo.findRosterEntries(since, upTo, full);
+        List<Long> removed = full ? List.of() : rosterTombstoneRepo.findStaffIdsDeletedBetween(since, upTo);
+
+        return RosterDeltaDTO.builder()
+                .since(since)
+                .revision(upTo)
+                .full(full)
+                .changed(changed)
+                .removed(removed)
+                .build();
+    }
+
+    /**
+     * @return the highest revision such that every change up to it has been committed (or rolled back)
+     */
+    private long safeRevision() {
+        revisionLock.lock();
+        try {
+            Long oldest = inFlight.isEmpty() ? null : inFlight.first();
+            return oldest != null ? oldest - 1 : revision.get();
+        } finally {
+            revisionLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package isj.group4.fingerprintmanagement.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable compressed set of staff IDs, laid out like a roaring bitmap.
+ *
+ * IDs are split on their high 16 bits into chunks of 65536 values. A chunk with at most 4096
+ * IDs is a sorted char[] of its low 16 bits (2 bytes per ID), a denser chunk is a 1024-word
+ * bitset (8 KB). Set operations work chunk by chunk and only touch the chunks both sides have,
+ * so intersecting or subtracting a few hundred staff costs a few hundred comparisons.
+ * IDs must be between 0 and 2^32 - 1.
+ */
+public final class StaffBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITSET_WORDS = 1024;
+    private static final long MAX_ID = 0xFFFFFFFFL;
+
+    public static final StaffBitmap EMPTY = new StaffBitmap(new int[0], new Object[0]);
+
+    // High 16 bits of each chunk, ascending
+    private final int[] keys;
+    // char[] (sorted low bits) or long[BITSET_WORDS], one per key
+    private final Object[] containers;
+    private final int cardinality;
+
+    private StaffBitmap(int[] keys, Object[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+        int count = 0;
+        for (Object container : containers) {
+            count += cardinality(container);
+        }
+        this.cardinality = count;
+    }
+
+    /**
+     * @param ids the staff IDs (in any order, duplicates allowed)
+     * @return the bitmap of the IDs
+     * @throws IllegalArgumentException if an ID is negative or above 2^32 - 1
+     */
+    public static StaffBitmap of(Collection<Long> ids) {
+        long[] values = new long[ids.size()];
+        int i = 0;
+        for (Long id : ids) {
+            values[i++] = id;
+        }
+        return of(values);
+    }
+
+    /**
+     * @param ids the staff IDs (in any order, duplicates allowed)
+     * @return the bitmap of the IDs
+     * @throws IllegalArgumentException if an ID is negative or above 2^32 - 1
+     */
+    public static StaffBitmap of(long... ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        if (sorted[0] < 0 || sorted[sorted.length - 1] > MAX_ID) {
+            throw new IllegalArgumentException("Staff ID out of bitmap range");
+        }
+        List<Integer> keys = new ArrayList<>();
+        List<Object> containers = new ArrayList<>();
+        int start = 0;
+        while (start < sorted.length) {
+            int key = (int) (sorted[start] >>> 16);
+            char[] low = new char[Math.min(sorted.length - start, 65536)];
+            int size = 0;
+            int i = start;
+            for (; i < sorted.length && (int) (sorted[i] >>> 16) == key; i++) {
+                char value = (char) sorted[i];
+                if (size == 0 || low[size - 1] != value) {
+                    low[size++] = value;
+                }
+            }
+            keys.add(key);
+            containers.add(size <= ARRAY_MAX ? Arrays.copyOf(low, size) : toBitset(low, size));
+            start = i;
+        }
+        return new StaffBitmap(keys.stream().mapToInt(Integer::intValue).toArray(), containers.toArray());
+    }
+
+    /**
+     * @return this bitmap plus the given ID (this bitmap if it already contains it)
+     */
+    public StaffBitmap with(long id) {
+        return contains(id) ? this : or(of(id));
+    }
+
+    public boolean contains(long id) {
+        if (id < 0 || id > MAX_ID) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, (int) (id >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) id;
+        Object container = containers[index];
+        if (container instanceof char[] array) {
+            return Arrays.binarySearch(array, low) >= 0;
+        }
+        return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * @return the IDs in both bitmaps
+     */
+    public StaffBitmap and(StaffBitmap other) {
+        List<Integer> keys = new ArrayList<>();
+        List<Object> containers = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < this.keys.length && j < other.keys.length) {
+            if (this.keys[i] < other.keys[j]) {
+                i++;
+            } else if (this.keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Object result = and(this.containers[i], other.containers[j]);
+                if (result != null) {
+                    keys.add(this.keys[i]);
+                    containers.add(result);
+                }
+                i++;
+                j++;
+            }
+        }
+        return build(keys, containers);
+    }
+
+    /**
+     * @return the IDs of this bitmap that are not in the other one
+     */
+    public StaffBitmap andNot(StaffBitmap other) {
+        List<Integer> keys = new ArrayList<>();
+        List<Object> containers = new ArrayList<>();
+        int j = 0;
+        for (int i = 0; i < this.keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < this.keys[i]) {
+                j++;
+            }
+            Object result = j < other.keys.length && other.keys[j] == this.keys[i]
+                    ? andNot(this.containers[i], other.containers[j])
+                    : this.containers[i];
+            if (result != null) {
+                keys.add(this.keys[i]);
+                containers.add(result);
+            }
+        }
+        return build(keys, containers);
+    }
+
+    /**
+     * @return the IDs in either bitmap
+     */
+    public StaffBitmap or(StaffBitmap other) {
+        List<Integer> keys = new ArrayList<>();
+        List<Object> containers = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < this.keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < this.keys.length && this.keys[i] < other.keys[j])) {
+                keys.add(this.keys[i]);
+                containers.add(this.containers[i++]);
+            } else if (i == this.keys.length || this.keys[i] > other.keys[j]) {
+                keys.add(other.keys[j]);
+                containers.add(other.containers[j++]);
+            } else {
+                keys.add(this.keys[i]);
+                containers.add(or(this.containers[i++], other.containers[j++]));
+            }
+        }
+        return build(keys, containers);
+    }
+
+    /**
+     * Call the consumer with every ID, in ascending order.
+     */
+    public void forEach(LongConsumer consumer) {
+        for (int k = 0; k < keys.length; k++) {
+            long high = (long) keys[k] << 16;
+            Object container = containers[k];
+            if (container instanceof char[] array) {
+                for (char low : array) {
+                    consumer.accept(high | low);
+                }
+            } else {
+                long[] bits = (long[]) container;
+                for (int w = 0; w < BITSET_WORDS; w++) {
+                    long word = bits[w];
+                    while (word != 0) {
+                        consumer.accept(high | ((long) w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the IDs, in ascending order
+     */
+    public long[] toArray() {
+        long[] ids = new long[cardinality];
+        int[] size = new int[1];
+        forEach(id -> ids[size[0]++] = id);
+        return ids;
+    }
+
+    private static StaffBitmap build(List<Integer> keys, List<Object> containers) {
+        if (keys.isEmpty()) {
+            return EMPTY;
+        }
+        return new StaffBitmap(keys.stream().mapToInt(Integer::intValue).toArray(), containers.toArray());
+    }
+
+    private static int cardinality(Object container) {
+        if (container instanceof char[] array) {
+            return array.length;
+        }
+        int count = 0;
+        for (long word : (long[]) container) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static Object and(Object a, Object b) {
+        if (a instanceof char[] left && b instanceof char[] right) {
+            char[] result = new char[Math.min(left.length, right.length)];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < left.length && j < right.length) {
+                if (left[i] < right[j]) {
+                    i++;
+                } else if (left[i] > right[j]) {
+                    j++;
+                } else {
+                    result[size++] = left[i];
+                    i++;
+                    j++;
+                }
+            }
+            return size > 0 ? Arrays.copyOf(result, size) : null;
+        }
+        if (a instanceof char[] array) {
+            return filter(array, (long[]) b, true);
+        }
+        if (b instanceof char[] array) {
+            return filter(array, (long[]) a, true);
+        }
+        long[] left = (long[]) a;
+        long[] right = (long[]) b;
+        long[] result = new long[BITSET_WORDS];
+        for (int w = 0; w < BITSET_WORDS; w++) {
+            result[w] = left[w] & right[w];
+        }
+        return normalize(result);
+    }
+
+    private static Object andNot(Object a, Object b) {
+        if (a instanceof char[] left && b instanceof char[] right) {
+            char[] result = new char[left.length];
+            int size = 0;
+            int j = 0;
+            for (char value : left) {
+                while (j < right.length && right[j] < value) {
+                    j++;
+                }
+                if (j == right.length || right[j] != value) {
+                    result[size++] = value;
+                }
+            }
+            return size > 0 ? Arrays.copyOf(result, size) : null;
+        }
+        if (a instanceof char[] array) {
+            return filter(array, (long[]) b, false);
+        }
+        long[] result = ((long[]) a).clone();
+        if (b instanceof char[] array) {
+            for (char value : array) {
+                result[value >>> 6] &= ~(1L << value);
+            }
+        } else {
+            long[] right = (long[]) b;
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                result[w] &= ~right[w];
+            }
+        }
+        return normalize(result);
+    }
+
+    private static Object or(Object a, Object b) {
+        if (a instanceof char[] left && b instanceof char[] right) {
+            char[] result = new char[left.length + right.length];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < left.length || j < right.length) {
+                char value;
+                if (j == right.length || (i < left.length && left[i] < right[j])) {
+                    value = left[i++];
+                } else if (i == left.length || left[i] > right[j]) {
+                    value = right[j++];
+                } else {
+                    value = left[i++];
+                    j++;
+                }
+                result[size++] = value;
+            }
+            return size <= ARRAY_MAX ? Arrays.copyOf(result, size) : toBitset(result, size);
+        }
+        long[] result;
+        if (a instanceof char[] array) {
+            result = ((long[]) b).clone();
+            setAll(result, array);
+        } else if (b instanceof char[] array) {
+            result = ((long[]) a).clone();
+            setAll(result, array);
+        } else {
+            long[] left = (long[]) a;
+            long[] right = (long[]) b;
+            result = new long[BITSET_WORDS];
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                result[w] = left[w] | right[w];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Values of the array that are (keep = true) or are not (keep = false) set in the bitset.
+     */
+    private static char[] filter(char[] array, long[] bits, boolean keep) {
+        char[] result = new char[array.length];
+        int size = 0;
+        for (char value : array) {
+            if (((bits[value >>> 6] & (1L << value)) != 0) == keep) {
+                result[size++] = value;
+            }
+        }
+        return size > 0 ? Arrays.copyOf(result, size) : null;
+    }
+
+    private static long[] toBitset(char[] values, int size) {
+        long[] bits = new long[BITSET_WORDS];
+        for (int i = 0; i < size; i++) {
+            bits[values[i] >>> 6] |= 1L << values[i];
+        }
+        return bits;
+    }
+
+    private static void setAll(long[] bits, char[] values) {
+        for (char value : values) {
+            bits[value >>> 6] |= 1L << value;
+        }
+    }
+
+    /**
+     * A bitset as the smallest container: null when empty, an array up to ARRAY_MAX values.
+     */
+    private static Object normalize(long[] bits) {
+        int count = cardinality(bits);
+        if (count == 0) {
+            return null;
+        }
+        if (count > ARRAY_MAX) {
+            return bits;
+        }
+        char[] array = new char[count];
+        int size = 0;
+        for (int w = 0; w < BITSET_WORDS; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                array[size++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return array;
+    }
+}
@@ -0,0 +1,144 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.LockStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Striped in-JVM locks serializing the read-modify-write of punches per staff.
+ * Punches of the same staff always map to the same stripe and are applied one at a time;
+ * punches of staff on different stripes proceed in parallel.
+ *
+ * Contention is counted per stripe so the number of stripes can be sized from
+ * GET /api/attendance/metrics/locks.
+ */
+@Component
+public class StaffLockStripes {
+
+    private static final int HOTTEST_STRIPES = 10;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray contendedPerStripe;
+
+    public StaffLockStripes(@Value("${attendance.lock.stripes:256}") int stripes) {
+        // Round up to a power of two so the stripe index is a simple mask
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.contendedPerStripe = new AtomicLongArray(size);
+    }
+
+    /**
+     * Run the action while holding the stripe of the given staff.
+     *
+     * @param staffId the staff user ID
+     * @param action the read-modify-write to serialize
+     * @return the result of the action
+     */
+    public <T> T withLock(Long staffId, Supplier<T> action) {
+        int stripe = stripeOf(staffId);
+        acquire(stripe);
+        try {
+            return action.get();
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Run the action while holding the stripes of all given staff.
+     * Stripes are always taken in ascending order, so two batches cannot deadlock.
+     *
+     * @param staffIds the staff user IDs
+     * @param action the read-modify-write to serialize
+     * @return the result of the action
+     */
+    public <T> T withLocks(Collection<Long> staffIds, Supplier<T> action) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Long staffId : staffIds) {
+            stripes.add(stripeOf(staffId));
+        }
+        int held = 0;
+        try {
+            for (int stripe : stripes) {
+                acquire(stripe);
+                held++;
+            }
+            return action.get();
+        } finally {
+            stripes.stream().limit(held).forEach(stripe -> locks[stripe].unlock());
+        }
+    }
+
+    /**
+     * Get contention counters since startup.
+     *
+     * @return the lock statistics
+     */
+    public LockStatsDTO getStats() {
+        long acquired = acquisitions.sum();
+        long contended = 0;
+        for (int i = 0; i < contendedPerStripe.length(); i++) {
+            contended += contendedPerStripe.get(i);
+        }
+        List<LockStatsDTO.StripeDTO> hottest = IntStream.range(0, contendedPerStripe.length())
+                .filter(i -> contendedPerStripe.get(i) > 0)
+                .mapToObj(i -> new LockStatsDTO.StripeDTO(i, contendedPerStripe.get(i), locks[i].getQueueLength()))
+                .sorted(Comparator.comparingLong(LockStatsDTO.StripeDTO::getContended).reversed())
+                .limit(HOTTEST_STRIPES)
+                .toList();
+
+        return LockStatsDTO.builder()
+                .stripes(locks.length)
+                .acquisitions(acquired)
+                .contended(contended)
+                .contentionRate(acquired > 0 ? (double) contended / acquired : 0.0)
+                .totalWaitMillis(waitNanos.sum() / 1_000_000)
+                .maxWaitMillis(maxWaitNanos.get() / 1_000_000)
+                .hottestStripes(hottest)
+                .build();
+    }
+
+    private void acquire(int stripe) {
+        ReentrantLock lock = locks[stripe];
+        acquisitions.increment();
+        if (lock.tryLock()) {
+            return;
+        }
+        // Someone else holds the stripe - count it and measure how long we wait
+        contendedPerStripe.incrementAndGet(stripe);
+        long start = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+    }
+
+    private int stripeOf(Long staffId) {
+        int h = Long.hashCode(staffId);
+        // Spread sequential IDs over the stripes
+        h ^= (h >>> 16);
+        h *= 0x45d9f3b;
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+}
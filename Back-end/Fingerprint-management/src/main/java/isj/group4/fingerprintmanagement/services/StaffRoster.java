@@ -0,0 +1,280 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo;
+import isj.group4.fingerprintmanagement.repository.StaffJdbcRepo.RosterRow;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Compact in-memory roster of the staff, keyed by staff ID.
+ * The punch path validates the staff and fills in the response from it, instead of loading
+ * a Staff entity through the users/staff/departments joins and its eager associations.
+ *
+ * The roster is an open-addressing table over a primitive long[] of staff IDs and an array of
+ * immutable rows, loaded at startup. Reads take no lock; a change writes a single slot.
+ * Changes made by StaffService/DepartmentService evict the affected staff once their transaction
+ * has committed, and the next lookup reads them again. A periodic reload picks up changes
+ * made by other instances.
+ */
+@Component
+@Log4j2
+public class StaffRoster {
+
+    private static final int LOAD_ATTEMPTS = 3;
+
+    private final StaffJdbcRepo staffJdbcRepo;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile Table table = Table.of(List.of());
+    // Incremented under writeLock by every eviction; loads started before an eviction are discarded
+    private volatile long modifications;
+
+    public StaffRoster(StaffJdbcRepo staffJdbcRepo) {
+        this.staffJdbcRepo = staffJdbcRepo;
+    }
+
+    /**
+     * Get the roster entry of a staff, reading it from the database if it is not in the roster.
+     *
+     * @param staffId the staff user ID
+     * @return the roster entry, or empty if the staff does not exist
+     */
+    public Optional<RosterRow> find(Long staffId) {
+        if (staffId == null) {
+            return Optional.empty();
+        }
+        RosterRow row = table.get(staffId);
+        if (row != null) {
+            return Optional.of(row);
+        }
+        long start = modifications;
+        Optional<RosterRow> loaded = staffJdbcRepo.findRosterRow(staffId);
+        loaded.ifPresent(found -> {
+            writeLock.lock();
+            try {
+                if (modifications == start && table.get(staffId) == null) {
+                    table = table.with(found);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Evict a created, changed or deleted staff once the current transaction has committed.
+     *
+     * @param staffId the staff user ID
+     */
+    public void staffChanged(Long staffId) {
+        afterCommit(() -> evict(table -> table.remove(staffId)));
+    }
+
+    /**
+     * Evict every staff of a changed or deleted department once the current transaction has committed.
+     *
+     * @param departmentId the department ID
+     */
+    public void departmentChanged(Long departmentId) {
+        afterCommit(() -> evict(table -> table.remove(row -> departmentId.equals(row.departmentId()))));
+    }
+
+    /**
+     * Load the whole roster once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * Reload the whole roster, to pick up changes made by other instances.
+     */
+    @Scheduled(fixedDelayString = "${attendance.roster.refresh-interval-ms:300000}",
+            initialDelayString = "${attendance.roster.refresh-interval-ms:300000}")
+    public void reload() {
+        for (int attempt = 1; attempt <= LOAD_ATTEMPTS; attempt++) {
+            long start = modifications;
+            List<RosterRow> rows;
+            try {
+                rows = staffJdbcRepo.findAllRosterRows();
+            } catch (Exception e) {
+                log.error("Cannot load the staff roster: {}", e.getMessage());
+                return;
+            }
+            writeLock.lock();
+            try {
+                if (modifications != start) {
+                    // A staff changed while loading - the snapshot may be stale, load again
+                    continue;
+                }
+                table = Table.of(rows);
+                log.debug("Staff roster loaded with {} staff", rows.size());
+                return;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        log.warn("Staff roster not reloaded, staff kept changing during {} attempts", LOAD_ATTEMPTS);
+    }
+
+    /**
+     * @return number of evictions so far; changes whenever a staff or department was changed by this instance
+     */
+    public long modifications() {
+        return modifications;
+    }
+
+    /**
+     * @return number of staff in the roster
+     */
+    public int size() {
+        return table.size;
+    }
+
+    private void evict(Consumer<Table> eviction) {
+        writeLock.lock();
+        try {
+            modifications++;
+            eviction.accept(table);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Open-addressing table. Slot i is taken when staffIds[i] != 0 (staff IDs start at 1) and holds
+     * that staff for good: an evicted staff leaves its ID as a tombstone, so probe chains stay intact
+     * and the slot is reused if the staff is read again. Written under writeLock, one slot per change;
+     * a full table (live staff and tombstones over half the slots) is replaced by a rehashed copy.
+     * Readers take no lock: a slot being written is at worst a miss, and the staff is read from the database.
+     */
+    private static final class Table {
+
+        private static final int MIN_CAPACITY = 64;
+
+        private final long[] staffIds;
+        private final AtomicReferenceArray<RosterRow> rows;
+        private volatile int size;
+        private int used;
+
+        private Table(int capacity) {
+            this.staffIds = new long[capacity];
+            this.rows = new AtomicReferenceArray<>(capacity);
+        }
+
+        static Table of(Collection<RosterRow> entries) {
+            // Keep the load factor at or below 0.5
+            Table table = new Table(Math.max(MIN_CAPACITY,
+                    Integer.highestOneBit(Math.max(1, entries.size() * 2 - 1)) << 1));
+            for (RosterRow row : entries) {
+                table.put(row);
+            }
+            return table;
+        }
+
+        RosterRow get(long staffId) {
+            RosterRow row = rows.get(indexOf(staffIds, staffId));
+            return row != null && row.staffId() == staffId ? row : null;
+        }
+
+        /**
+         * Add or replace a staff (writeLock held).
+         *
+         * @return this table, or a larger copy if it was full (to be published by the caller)
+         */
+        Table with(RosterRow row) {
+            int i = indexOf(staffIds, row.staffId());
+            if (staffIds[i] == 0 && (used + 1) * 2 > staffIds.length) {
+                List<RosterRow> entries = entries();
+                entries.add(row);
+                return of(entries);
+            }
+            put(row);
+            return this;
+        }
+
+        /**
+         * Evict a staff (writeLock held).
+         */
+        void remove(long staffId) {
+            int i = indexOf(staffIds, staffId);
+            if (staffIds[i] != 0 && rows.getAndSet(i, null) != null) {
+                size--;
+            }
+        }
+
+        /**
+         * Evict the matching staff (writeLock held).
+         */
+        void remove(Predicate<RosterRow> removed) {
+            for (int i = 0; i < staffIds.length; i++) {
+                RosterRow row = rows.get(i);
+                if (row != null && removed.test(row)) {
+                    rows.set(i, null);
+                    size--;
+                }
+            }
+        }
+
+        private void put(RosterRow row) {
+            int i = indexOf(staffIds, row.staffId());
+            if (staffIds[i] == 0) {
+                staffIds[i] = row.staffId();
+                used++;
+            }
+            if (rows.getAndSet(i, row) == null) {
+                size++;
+            }
+        }
+
+        private List<RosterRow> entries() {
+            List<RosterRow> entries = new ArrayList<>(size + 1);
+            for (int i = 0; i < staffIds.length; i++) {
+                RosterRow row = rows.get(i);
+                if (row != null) {
+                    entries.add(row);
+                }
+            }
+            return entries;
+        }
+
+        private static int indexOf(long[] staffIds, long staffId) {
+            int mask = staffIds.length - 1;
+            long h = staffId * 0x9E3779B97F4A7C15L;
+            int i = (int) (h ^ (h >>> 32)) & mask;
+            while (staffIds[i] != 0 && staffIds[i] != staffId) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+    }
+}
@@ -17,9 +17,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Service layer for Staff management.
@@ -30,10 +30,17 @@ import java.util.stream.Collectors;
 @Log4j2
 public class StaffService {
 
+    /** Upper bound for the number of values bound into a single IN (...) list. */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
     private final StaffRepo staffRepo;
     private final DepartmentRepo departmentRepo;
     private final PasswordEncoder passwordEncoder;
     private final ContractRepo contractRepo;
+    private final RosterSyncService rosterSyncService;
+    private final StaffRoster staffRoster;
+    private final AttendanceAggregateService attendanceAggregates;
+    private final DirectoryCache directoryCache;
 
     /**
      * Create a new staff member.
@@ -68,6 +75,7 @@ public class StaffService {
         staff.setActive(staffRequest.getActive() != null ? staffRequest.getActive() : true);
         staff.setNoAbsence(staffRequest.getNoAbsence() != null ? staffRequest.getNoAbsence() : 0);
         staff.setDepartment(department);
+        staff.setRosterRevision(rosterSyncService.nextRevision());
 
         Staff savedStaff = staffRepo.save(staff);
 
@@ -82,6 +90,8 @@ public class StaffService {
         Contract savedContract = contractRepo.save(contract);
 
         log.info("contract created successfully: {}, for staff: {}", savedContract.getContractDate(), savedContract.getStaff().getName());
+        staffRoster.staffChanged(savedStaff.getUserId());
+        directoryCache.staffCreatedOrDeleted(savedStaff.getUserId());
 
         return mapToResponseDTO(savedStaff);
     }
@@ -97,13 +107,13 @@ public class StaffService {
     public StaffResponseDTO getStaffById(Long staffId) {
         log.debug("Fetching staff with ID: {}", staffId);
 
-        Staff staff = staffRepo.findByUserId(staffId)
-                .orElseThrow(() -> {
-                    log.warn("Staff not found with ID: {}", staffId);
-                    return new IllegalArgumentException("Staff not found with ID: " + staffId);
-                });
-
-        return mapToResponseDTO(staff);
+        StaffResponseDTO staff = directoryCache.getStaff(staffId,
+                id -> staffRepo.findResponseByUserId(id).orElse(null));
+        if (staff == null) {
+            log.warn("Staff not found with ID: {}", staffId);
+            throw new IllegalArgumentException("Staff not found with ID: " + staffId);
+        }
+        return staff;
     }
 
     /**
@@ -115,7 +125,7 @@ public class StaffService {
     @Transactional(readOnly = true)
     public Optional<StaffResponseDTO> getStaffByEmail(String email) {
         log.debug("Fetching staff with email: {}", email);
-        return staffRepo.findByEmail(email).map(this::mapToResponseDTO);
+        return staffRepo.findResponseByEmail(email);
     }
 
     /**
@@ -126,9 +136,7 @@ public class StaffService {
     @Transactional(readOnly = true)
     public List<StaffResponseDTO> getAllStaff() {
         log.debug("Fetching all staff members");
-        return staffRepo.findAll().stream()
-                .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+        return directoryCache.getAllStaff(staffRepo::findAllResponses, this::findResponsesByUserIds);
     }
 
     /**
@@ -139,9 +147,7 @@ public class StaffService {
     @Transactional(readOnly = true)
     public List<StaffResponseDTO> getAllActiveStaff() {
         log.debug("Fetching all active staff members");
-        return staffRepo.findByActiveTrue().stream()
-                .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+        return staffRepo.findActiveResponses();
     }
 
     /**
@@ -153,9 +159,7 @@ public class StaffService {
     @Transactional(readOnly = true)
     public List<StaffResponseDTO> getStaffByDepartment(Long departmentId) {
         log.debug("Fetching staff for department ID: {}", departmentId);
-        return staffRepo.findByDepartment_DpmtId(departmentId).stream()
-                .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+        return staffRepo.findResponsesByDepartment(departmentId);
     }
 
     /**
@@ -167,9 +171,7 @@ public class StaffService {
     @Transactional(readOnly = true)
     public List<StaffResponseDTO> getActiveStaffByDepartment(Long departmentId) {
         log.debug("Fetching active staff for department ID: {}", departmentId);
-        return staffRepo.findActiveStaffByDepartment(departmentId).stream()
-                .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+        return staffRepo.findActiveResponsesByDepartment(departmentId);
     }
 
     /**
@@ -215,8 +217,11 @@ public class StaffService {
         if (updateDTO.getActive() != null) {
             staff.setActive(updateDTO.getActive());
         }
+        staff.setRosterRevision(rosterSyncService.nextRevision());
 
         Staff updatedStaff = staffRepo.save(staff);
+        staffRoster.staffChanged(staffId);
+        directoryCache.staffChanged(staffId);
         log.info("Staff updated successfully: {} (ID: {})", updatedStaff.getEmail(), staffId);
 
         return mapToResponseDTO(updatedStaff);
@@ -239,6 +244,7 @@ public class StaffService {
 
         staff.setNoAbsence(staff.getNoAbsence() + 1);
         Staff updated = staffRepo.save(staff);
+        directoryCache.staffChanged(staffId);
 
         log.info("Absence incremented for staff ID: {}. New count: {}", staffId, updated.getNoAbsence());
         return mapToResponseDTO(updated);
@@ -259,6 +265,7 @@ public class StaffService {
 
         staff.setNoAbsence(0);
         Staff updated = staffRepo.save(staff);
+        directoryCache.staffChanged(staffId);
 
         log.info("Absence reset for staff ID: {}", staffId);
         return mapToResponseDTO(updated);
@@ -281,7 +288,10 @@ public class StaffService {
                 });
 
         staff.setActive(false);
+        staff.setRosterRevision(rosterSyncService.nextRevision());
         staffRepo.save(staff);
+        staffRoster.staffChanged(staffId);
+        directoryCache.staffChanged(staffId);
 
         log.info("Staff deactivated successfully: {} (ID: {})", staff.getEmail(), staffId);
     }
@@ -303,7 +313,10 @@ public class StaffService {
                 });
 
         staff.setActive(true);
+        staff.setRosterRevision(rosterSyncService.nextRevision());
         staffRepo.save(staff);
+        staffRoster.staffChanged(staffId);
+        directoryCache.staffChanged(staffId);
 
         log.info("Staff reactivated successfully: {} (ID: {})", staff.getEmail(), staffId);
     }
@@ -324,7 +337,11 @@ public class StaffService {
                     return new IllegalArgumentException("Staff not found");
                 });
 
+        attendanceAggregates.staffRemoved(List.of(staffId));
         staffRepo.delete(staff);
+        rosterSyncService.recordDeletion(staffId);
+        staffRoster.staffChanged(staffId);
+        directoryCache.staffCreatedOrDeleted(staffId);
         log.info("Staff deleted successfully with ID: {}", staffId);
     }
 
@@ -350,29 +367,24 @@ public class StaffService {
         return staffRepo.countByDepartment_DpmtId(departmentId);
     }
 
+    private List<StaffResponseDTO> findResponsesByUserIds(List<Long> staffIds) {
+        List<StaffResponseDTO> found = new ArrayList<>(staffIds.size());
+        for (int from = 0; from < staffIds.size(); from += IN_CLAUSE_CHUNK) {
+            found.addAll(staffRepo.findResponsesByUserIds(
+                    staffIds.subList(from, Math.min(staffIds.size(), from + IN_CLAUSE_CHUNK))));
+        }
+        return found;
+    }
+
     /**
      * Map Staff entity to StaffResponseDTO.
+     * Read back through the projection query, which flushes pending changes of the current transaction first.
      *
      * @param staff the staff entity
      * @return the staff response DTO
      */
     private StaffResponseDTO mapToResponseDTO(Staff staff) {
-        Contract contract = new Contract();
-        contract = contractRepo.findContractByStaff_UserId(staff.getUserId());
-
-        return StaffResponseDTO.builder()
-                .userId(staff.getUserId())
-                .name(staff.getName())
-                .surname(staff.getSurname())
-                .email(staff.getEmail())
-                .role(staff.getRole())
-                .active(staff.getActive())
-                .noAbsence(staff.getNoAbsence())
-                .departmentId(staff.getDepartment() != null ? staff.getDepartment().getDpmtId() : null)
-                .departmentName(staff.getDepartment() != null ? staff.getDepartment().getDpmtName() : null)
-                .contractId(contract != null ? contract.getContractId() : null)
-                .contractStatus(contract != null ? "Active" : "No Contract")
-                .totalAttendances(staff.getAttendances() != null ? staff.getAttendances().size() : 0)
-                .build();
+        return staffRepo.findResponseByUserId(staff.getUserId())
+                .orElseThrow(() -> new IllegalArgumentException("Staff not found with ID: " + staff.getUserId()));
     }
 }
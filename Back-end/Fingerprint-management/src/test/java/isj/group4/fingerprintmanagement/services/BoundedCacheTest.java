@@ -0,0 +1,132 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.CacheStatsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Loading, bounds, expiry and invalidation of BoundedCache, in particular invalidations racing a load.
+ */
+class BoundedCacheTest {
+
+    private static final long TTL = 60_000;
+
+    @Test
+    void loadsOnceAndCountsHits() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, TTL);
+        List<Long> loads = new ArrayList<>();
+        assertEquals("v1", cache.get(1L, key -> load(loads, key)));
+        assertEquals("v1", cache.get(1L, key -> load(loads, key)));
+        assertEquals(List.of(1L), loads);
+
+        CacheStatsDTO stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void doesNotCacheMissingValues() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, TTL);
+        assertNull(cache.get(1L, key -> null));
+        assertEquals("v1", cache.get(1L, key -> "v" + key));
+    }
+
+    @Test
+    void evictsTheOldestEntryBeyondItsBound() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 2, TTL);
+        cache.get(1L, key -> "v" + key);
+        cache.get(2L, key -> "v" + key);
+        cache.get(3L, key -> "v" + key);
+        assertNull(cache.getIfPresent(1L));
+        assertEquals("v2", cache.getIfPresent(2L));
+        assertEquals("v3", cache.getIfPresent(3L));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void expiresEntries() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, 0);
+        cache.get(1L, key -> "v" + key);
+        assertNull(cache.getIfPresent(1L));
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    void loadsOnlyTheMissingKeys() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, TTL);
+        cache.get(1L, key -> "v" + key);
+        List<List<Long>> loads = new ArrayList<>();
+        Map<Long, String> found = cache.getAll(List.of(1L, 2L, 3L), missing -> {
+            loads.add(missing);
+            // Key 3 has no value
+            return Map.of(2L, "v2");
+        });
+        assertEquals(Map.of(1L, "v1", 2L, "v2"), found);
+        assertEquals(List.of(List.of(2L, 3L)), loads);
+        assertEquals("v2", cache.getIfPresent(2L));
+        assertNull(cache.getIfPresent(3L));
+    }
+
+    @Test
+    void doesNotStoreAValueInvalidatedWhileLoading() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, TTL);
+        // The change commits (and evicts the key) after the loader read the old value
+        assertEquals("old", cache.get(1L, key -> {
+            cache.invalidate(1L);
+            return "old";
+        }));
+        assertNull(cache.getIfPresent(1L));
+        assertEquals("new", cache.get(1L, key -> "new"));
+    }
+
+    @Test
+    void keepsOtherKeysOfALoadWhenOneIsInvalidated() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, TTL);
+        cache.getAll(List.of(1L, 2L), missing -> {
+            cache.invalidate(1L);
+            Map<Long, String> loaded = new HashMap<>();
+            missing.forEach(key -> loaded.put(key, "v" + key));
+            return loaded;
+        });
+        assertNull(cache.getIfPresent(1L));
+        assertEquals("v2", cache.getIfPresent(2L));
+    }
+
+    @Test
+    void doesNotStoreALoadRacingAnInvalidateAll() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, TTL);
+        long token = cache.beginLoad();
+        cache.invalidateAll();
+        cache.endLoad(token, Map.of(1L, "old"));
+        assertNull(cache.getIfPresent(1L));
+
+        // A load begun after the invalidation is stored
+        token = cache.beginLoad();
+        cache.endLoad(token, Map.of(1L, "new"));
+        assertEquals("new", cache.getIfPresent(1L));
+    }
+
+    @Test
+    void storesALoadBegunAfterAnInvalidation() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, TTL);
+        long first = cache.beginLoad();
+        cache.invalidate(1L);
+        long second = cache.beginLoad();
+        cache.endLoad(second, Map.of(1L, "new"));
+        cache.endLoad(first, Map.of(1L, "old"));
+        assertEquals("new", cache.getIfPresent(1L));
+    }
+
+    private static String load(List<Long> loads, Long key) {
+        loads.add(key);
+        return "v" + key;
+    }
+}
@@ -0,0 +1,211 @@
+package isj.group4.fingerprintmanagement.services;
+
+import isj.group4.fingerprintmanagement.dto.AttendanceRequestDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery and rollover of the punch journal: each test reopens the journal file as a restart would.
+ */
+class PunchJournalTest {
+
+    private static final int CAPACITY = 64 * 1024;
+    // Record of a punch without idempotency key: framing (16 bytes) and payload (32 bytes,
+    // key length 2 bytes, nanoseconds 4 bytes)
+    private static final int RECORD_SIZE = 54;
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 12);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsPunchesBackInOrder() {
+        try (PunchJournal journal = open(CAPACITY)) {
+            assertTrue(journal.append(punch(1, 8)));
+            AttendanceRequestDTO keyed = punch(2, 9);
+            keyed.setIdempotencyKey("device-7:42");
+            assertTrue(journal.append(keyed));
+
+            List<PunchJournal.Entry> entries = journal.readPending(10);
+            assertEquals(2, entries.size());
+            assertEquals(punch(1, 8), entries.get(0).request());
+            assertEquals(keyed, entries.get(1).request());
+            assertEquals(2, journal.getPendingCount());
+            assertEquals(1, journal.readPending(1).size());
+        }
+    }
+
+    @Test
+    void keepsTheNanosecondsOfThePunchTime() {
+        AttendanceRequestDTO punch = punch(1, 8);
+        punch.setAttendanceTime(DAY.atTime(8, 0, 1, 123_456_789));
+        try (PunchJournal journal = open(CAPACITY)) {
+            journal.append(punch);
+        }
+
+        try (PunchJournal journal = open(CAPACITY)) {
+            assertEquals(punch, journal.readPending(1).get(0).request());
+        }
+    }
+
+    @Test
+    void replaysUndrainedPunchesAfterRestart() {
+        try (PunchJournal journal = open(CAPACITY)) {
+            for (int staffId = 1; staffId <= 5; staffId++) {
+                journal.append(punch(staffId, 8));
+            }
+            List<PunchJournal.Entry> entries = journal.readPending(2);
+            journal.markDrained(entries.get(1).endPosition(), 2);
+        }
+
+        try (PunchJournal journal = open(CAPACITY)) {
+            assertEquals(3, journal.getPendingCount());
+            assertEquals(List.of(3L, 4L, 5L), staffIds(journal.readPending(10)));
+        }
+    }
+
+    @Test
+    void dropsACorruptRecordAtTheTail() throws IOException {
+        try (PunchJournal journal = open(CAPACITY)) {
+            for (int staffId = 1; staffId <= 3; staffId++) {
+                journal.append(punch(staffId, 8));
+            }
+        }
+        // Flip a payload byte of the last record: its CRC no longer matches
+        int lastRecord = PunchJournal.HEADER_SIZE + 2 * RECORD_SIZE;
+        write(lastRecord + 12, new byte[] {0x7F});
+
+        try (PunchJournal journal = open(CAPACITY)) {
+            assertEquals(2, journal.getPendingCount());
+            assertEquals(List.of(1L, 2L), staffIds(journal.readPending(10)));
+            // New punches go over the corrupt record
+            assertTrue(journal.append(punch(9, 8)));
+            assertEquals(List.of(1L, 2L, 9L), staffIds(journal.readPending(10)));
+        }
+    }
+
+    @Test
+    void dropsATornRecordAtTheTail() throws IOException {
+        try (PunchJournal journal = open(CAPACITY)) {
+            for (int staffId = 1; staffId <= 3; staffId++) {
+                journal.append(punch(staffId, 8));
+            }
+        }
+        // The second half of the last record never reached the disk
+        int lastRecord = PunchJournal.HEADER_SIZE + 2 * RECORD_SIZE;
+        write(lastRecord + RECORD_SIZE / 2, new byte[RECORD_SIZE / 2]);
+
+        try (PunchJournal journal = open(CAPACITY)) {
+            assertEquals(2, journal.getPendingCount());
+            assertEquals(List.of(1L, 2L), staffIds(journal.readPending(10)));
+            assertEquals(2 * RECORD_SIZE, journal.getUsedBytes());
+        }
+    }
+
+    @Test
+    void resetsToItsStartOnceFullyDrained() {
+        try (PunchJournal journal = open(CAPACITY)) {
+            for (int staffId = 1; staffId <= 3; staffId++) {
+                journal.append(punch(staffId, 8));
+            }
+            List<PunchJournal.Entry> entries = journal.readPending(10);
+            journal.markDrained(entries.get(2).endPosition(), 3);
+
+            assertEquals(0, journal.getPendingCount());
+            assertEquals(0, journal.getUsedBytes());
+            assertNull(journal.getOldestPendingAppendedAt());
+            assertTrue(journal.readPending(10).isEmpty());
+        }
+
+        // The drained records are still in the file, with the previous generation
+        try (PunchJournal journal = open(CAPACITY)) {
+            assertEquals(0, journal.getPendingCount());
+            assertTrue(journal.readPending(10).isEmpty());
+            // Overwrites the first stale record only; the two after it must not be replayed
+            journal.append(punch(7, 8));
+        }
+
+        try (PunchJournal journal = open(CAPACITY)) {
+            assertEquals(1, journal.getPendingCount());
+            assertEquals(List.of(7L), staffIds(journal.readPending(10)));
+        }
+    }
+
+    @Test
+    void refusesPunchesWhenFull() {
+        try (PunchJournal journal = open(PunchJournal.HEADER_SIZE + 3 * RECORD_SIZE)) {
+            for (int staffId = 1; staffId <= 3; staffId++) {
+                assertTrue(journal.append(punch(staffId, 8)));
+            }
+            assertFalse(journal.append(punch(4, 8)));
+            assertEquals(3, journal.getPendingCount());
+
+            // The space of drained punches is reclaimed by rolling the pending ones to a new file
+            List<PunchJournal.Entry> entries = journal.readPending(10);
+            journal.markDrained(entries.get(0).endPosition(), 1);
+            assertTrue(journal.append(punch(4, 8)));
+            assertFalse(journal.append(punch(5, 8)));
+            assertEquals(List.of(2L, 3L, 4L), staffIds(journal.readPending(10)));
+
+            // Entries read before the roll are still marked at the right place
+            journal.markDrained(entries.get(2).endPosition(), 2);
+            assertEquals(List.of(4L), staffIds(journal.readPending(10)));
+        }
+    }
+
+    @Test
+    void rollsOnceHalfOfTheJournalIsDrained() {
+        try (PunchJournal journal = open(PunchJournal.HEADER_SIZE + 4 * RECORD_SIZE)) {
+            for (int staffId = 1; staffId <= 4; staffId++) {
+                journal.append(punch(staffId, 8));
+            }
+            List<PunchJournal.Entry> entries = journal.readPending(10);
+            journal.markDrained(entries.get(1).endPosition(), 2);
+            assertEquals(2 * RECORD_SIZE, journal.getUsedBytes());
+            assertTrue(journal.append(punch(5, 8)));
+
+            journal.markDrained(entries.get(2).endPosition(), 1);
+            assertEquals(List.of(4L, 5L), staffIds(journal.readPending(10)));
+        }
+
+        try (PunchJournal journal = open(PunchJournal.HEADER_SIZE + 4 * RECORD_SIZE)) {
+            assertEquals(2, journal.getPendingCount());
+            assertEquals(List.of(4L, 5L), staffIds(journal.readPending(10)));
+        }
+    }
+
+    private PunchJournal open(int capacity) {
+        return new PunchJournal(directory.resolve("punch-journal.dat"), capacity);
+    }
+
+    private void write(int position, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve("punch-journal.dat"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    private static AttendanceRequestDTO punch(long staffId, int hour) {
+        return AttendanceRequestDTO.builder()
+                .staffId(staffId)
+                .attendanceDate(DAY)
+                .attendanceTime(DAY.atTime(hour, 0))
+                .build();
+    }
+
+    private static List<Long> staffIds(List<PunchJournal.Entry> entries) {
+        return entries.stream().map(entry -> entry.request().getStaffId()).toList();
+    }
+}
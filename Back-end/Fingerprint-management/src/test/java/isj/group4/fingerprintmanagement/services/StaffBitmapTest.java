@@ -0,0 +1,164 @@
+package isj.group4.fingerprintmanagement.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares StaffBitmap with a TreeSet of the same IDs, over random sets whose chunks are empty,
+ * sparse (sorted arrays), around the 4096-ID switch to a bitset, or dense (bitsets).
+ */
+class StaffBitmapTest {
+
+    private static final int ROUNDS = 200;
+    // Chunk sizes around the array/bitset switch, so set operations convert in both directions
+    private static final int[] CHUNK_SIZES = {0, 1, 7, 100, 2048, 4095, 4096, 4097, 6000, 20000};
+
+    @Test
+    void buildsTheSameSetAsATreeSet() {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            TreeSet<Long> expected = randomSet(random);
+            assertSameIds(expected, StaffBitmap.of(expected));
+        }
+    }
+
+    @Test
+    void setOperationsMatchATreeSet() {
+        Random random = new Random(2);
+        for (int round = 0; round < ROUNDS; round++) {
+            TreeSet<Long> a = randomSet(random);
+            TreeSet<Long> b = random.nextBoolean() ? randomSet(random) : overlapping(a, random);
+            StaffBitmap left = StaffBitmap.of(a);
+            StaffBitmap right = StaffBitmap.of(b);
+
+            TreeSet<Long> and = new TreeSet<>(a);
+            and.retainAll(b);
+            assertSameIds(and, left.and(right));
+            assertSameIds(and, right.and(left));
+
+            TreeSet<Long> andNot = new TreeSet<>(a);
+            andNot.removeAll(b);
+            assertSameIds(andNot, left.andNot(right));
+
+            TreeSet<Long> or = new TreeSet<>(a);
+            or.addAll(b);
+            assertSameIds(or, left.or(right));
+            assertSameIds(or, right.or(left));
+
+            // Results are bitmaps like any other: chained operations give the same sets
+            assertSameIds(a, left.andNot(right).or(left.and(right)));
+        }
+    }
+
+    @Test
+    void addsOneIdAtATime() {
+        Random random = new Random(3);
+        TreeSet<Long> expected = new TreeSet<>();
+        StaffBitmap bitmap = StaffBitmap.EMPTY;
+        // Crosses 4096 IDs in the first chunk, then spreads over a few more
+        for (int i = 0; i < 10000; i++) {
+            long id = i < 5000 ? random.nextInt(8192) : random.nextInt(4) * 65536L + random.nextInt(65536);
+            expected.add(id);
+            bitmap = bitmap.with(id);
+        }
+        assertSameIds(expected, bitmap);
+        assertSame(bitmap, bitmap.with(expected.first()));
+    }
+
+    @Test
+    void keepsIdsAtTheEdgesOfTheRange() {
+        List<Long> ids = List.of(0L, 65535L, 65536L, 0xFFFFFFFFL);
+        StaffBitmap bitmap = StaffBitmap.of(ids);
+        assertSameIds(new TreeSet<>(ids), bitmap);
+        assertFalse(bitmap.contains(-1));
+        assertFalse(bitmap.contains(0x100000000L));
+        assertThrows(IllegalArgumentException.class, () -> StaffBitmap.of(-1L));
+        assertThrows(IllegalArgumentException.class, () -> StaffBitmap.of(0x100000000L));
+    }
+
+    @Test
+    void handlesAFullChunk() {
+        TreeSet<Long> full = new TreeSet<>();
+        for (long id = 65536; id < 2 * 65536; id++) {
+            full.add(id);
+        }
+        StaffBitmap bitmap = StaffBitmap.of(full);
+        assertSameIds(full, bitmap);
+
+        StaffBitmap few = StaffBitmap.of(65536, 70000, 131071, 131072);
+        assertArrayEquals(new long[] {65536, 70000, 131071}, bitmap.and(few).toArray());
+        assertArrayEquals(new long[] {131072}, few.andNot(bitmap).toArray());
+        assertEquals(4093, bitmap.andNot(StaffBitmap.of(full.headSet(65536L + 61443))).cardinality());
+        assertEquals(65537, bitmap.or(few).cardinality());
+    }
+
+    @Test
+    void ignoresDuplicates() {
+        StaffBitmap bitmap = StaffBitmap.of(5, 3, 5, 3, 70000, 70000);
+        assertArrayEquals(new long[] {3, 5, 70000}, bitmap.toArray());
+        assertEquals(3, bitmap.cardinality());
+        assertTrue(StaffBitmap.of().isEmpty());
+    }
+
+    private static void assertSameIds(TreeSet<Long> expected, StaffBitmap actual) {
+        assertEquals(expected.size(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), actual.toArray());
+        for (long id : expected) {
+            assertTrue(actual.contains(id), "missing " + id);
+        }
+        // Neighbours of the IDs, which are only in the bitmap if in the set
+        for (long id : expected) {
+            for (long neighbour : new long[] {id - 1, id + 1}) {
+                assertEquals(expected.contains(neighbour), actual.contains(neighbour), "ID " + neighbour);
+            }
+        }
+    }
+
+    /**
+     * A set over a few of the first six chunks, each chunk of a random size from CHUNK_SIZES.
+     */
+    private static TreeSet<Long> randomSet(Random random) {
+        TreeSet<Long> ids = new TreeSet<>();
+        List<Long> highs = new ArrayList<>(List.of(0L, 1L, 2L, 3L, 4L, 5L));
+        Collections.shuffle(highs, random);
+        for (long chunk : highs.subList(0, 1 + random.nextInt(4))) {
+            int size = CHUNK_SIZES[random.nextInt(CHUNK_SIZES.length)];
+            long high = chunk << 16;
+            // Dense chunks packed into a narrow range, so bitsets also share IDs with each other
+            int range = size > 4096 || random.nextBoolean() ? 65536 : Math.max(1, size * 2);
+            for (int added = 0; added < size; ) {
+                if (ids.add(high | random.nextInt(range))) {
+                    added++;
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * A set sharing about half of its IDs with the given one.
+     */
+    private static TreeSet<Long> overlapping(TreeSet<Long> ids, Random random) {
+        TreeSet<Long> overlap = new TreeSet<>();
+        for (long id : ids) {
+            if (random.nextBoolean()) {
+                overlap.add(id);
+            }
+        }
+        overlap.addAll(randomSet(random));
+        return overlap;
+    }
+}